@@ -1,5 +1,6 @@
 package ch.epfl.javelo;
 
+import java.nio.FloatBuffer;
 import java.util.function.DoubleUnaryOperator;
 
 /**
@@ -38,7 +39,52 @@ public final class Functions {
      */
     public static DoubleUnaryOperator sampled(float[] samples, double xMax) {
         Preconditions.checkArgument(xMax > 0 && samples.length >= 2);
-        return new Sampled(samples, xMax);
+        return new Sampled(samples, xMax, false);
+    }
+
+    /**
+     * Retourne la fonction que retournerait sampled pour une copie inversée du tableau samples, sans le copier :
+     * le dernier échantillon correspond à 0 et le premier à xMax. Le tableau n'étant pas copié, il ne doit plus
+     * être modifié ; lève IllegalArgumentException dans les mêmes cas que sampled.
+     *
+     * @param samples échantillons, dans l'ordre inverse
+     * @param xMax    valeur maximale de x
+     * @return une fonction obtenue par interpolation linéaire entre les échantillons samples pris dans l'ordre inverse,
+     * espacés régulièrement et couvrant la plage allant de 0 à xMax
+     */
+    public static DoubleUnaryOperator sampledReversed(float[] samples, double xMax) {
+        Preconditions.checkArgument(xMax > 0 && samples.length >= 2);
+        return new Sampled(samples, xMax, true);
+    }
+
+    /**
+     * Retourne la fonction que retournerait sampled pour un tableau contenant les échantillons de la mémoire tampon
+     * donnée, de sa position à sa limite, sans les copier ; la mémoire tampon ne doit plus être modifiée.
+     * Lève IllegalArgumentException dans les mêmes cas que sampled.
+     *
+     * @param samples échantillons
+     * @param xMax    valeur maximale de x
+     * @return une fonction obtenue par interpolation linéaire entre les échantillons de la mémoire tampon,
+     * espacés régulièrement et couvrant la plage allant de 0 à xMax
+     */
+    public static DoubleUnaryOperator sampled(FloatBuffer samples, double xMax) {
+        Preconditions.checkArgument(xMax > 0 && samples.remaining() >= 2);
+        return new BufferSampled(samples.slice(), xMax, false);
+    }
+
+    /**
+     * Retourne la fonction que retournerait sampledReversed pour un tableau contenant les échantillons
+     * de la mémoire tampon donnée, de sa position à sa limite, sans les copier ; la mémoire tampon ne doit plus
+     * être modifiée. Lève IllegalArgumentException dans les mêmes cas que sampled.
+     *
+     * @param samples échantillons, dans l'ordre inverse
+     * @param xMax    valeur maximale de x
+     * @return une fonction obtenue par interpolation linéaire entre les échantillons de la mémoire tampon
+     * pris dans l'ordre inverse, espacés régulièrement et couvrant la plage allant de 0 à xMax
+     */
+    public static DoubleUnaryOperator sampledReversed(FloatBuffer samples, double xMax) {
+        Preconditions.checkArgument(xMax > 0 && samples.remaining() >= 2);
+        return new BufferSampled(samples.slice(), xMax, true);
     }
 
     /**
@@ -74,15 +120,22 @@ public final class Functions {
     private static final class Sampled implements DoubleUnaryOperator {
         private final float[] samples;
         private final double xMax;
+        private final boolean reversed;
 
         /**
          * Constructeur d'instance de la classe Sampled
          *
-         * @param xMax    valeur maximale de l'élément x
+         * @param xMax     valeur maximale de l'élément x
+         * @param reversed vrai ssi les échantillons sont pris dans l'ordre inverse
          */
-        Sampled(float[] samples, double xMax) {
+        Sampled(float[] samples, double xMax, boolean reversed) {
             this.samples = samples;
             this.xMax = xMax;
+            this.reversed = reversed;
+        }
+
+        private float sample(int i) {
+            return reversed ? samples[samples.length - 1 - i] : samples[i];
         }
 
         /**
@@ -99,13 +152,50 @@ public final class Functions {
             double val = x / ecart;
 
             if (x <= 0) {
-                return samples[0];
+                return sample(0);
             }
             if (x >= xMax) {
-                return samples[samples.length - 1];
+                return sample(samples.length - 1);
             }
-            return Math2.interpolate(samples[(int) val], samples[(int) val + 1], val - (int) val);
+            // juste avant xMax, l'arrondi de la division peut désigner le dernier échantillon
+            int i = Math.min((int) val, samples.length - 2);
+            return Math2.interpolate(sample(i), sample(i + 1), val - i);
         }
     }
 
+    /**
+     * Classe privée et imbriquée statiquement dans Functions, identique à Sampled mais dont les échantillons
+     * sont lus dans une mémoire tampon
+     */
+    private static final class BufferSampled implements DoubleUnaryOperator {
+        private final FloatBuffer samples;
+        private final double xMax;
+        private final boolean reversed;
+
+        BufferSampled(FloatBuffer samples, double xMax, boolean reversed) {
+            this.samples = samples;
+            this.xMax = xMax;
+            this.reversed = reversed;
+        }
+
+        private float sample(int i) {
+            return samples.get(reversed ? samples.capacity() - 1 - i : i);
+        }
+
+        @Override
+        public double applyAsDouble(double x) {
+            int count = samples.capacity();
+            double ecart = xMax / (count - 1);
+            double val = x / ecart;
+
+            if (x <= 0) {
+                return sample(0);
+            }
+            if (x >= xMax) {
+                return sample(count - 1);
+            }
+            int i = Math.min((int) val, count - 2);
+            return Math2.interpolate(sample(i), sample(i + 1), val - i);
+        }
+    }
 }
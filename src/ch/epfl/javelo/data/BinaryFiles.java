@@ -0,0 +1,139 @@
+package ch.epfl.javelo.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * La classe BinaryFiles contient des méthodes permettant de lire (par projection en mémoire) et d'écrire
+ * les fichiers binaires produits par les prétraitements hors ligne, au même format que les fichiers du graphe
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class BinaryFiles {
+
+    private static final long CHECKSUM_CHUNK_SIZE = 1L << 30;
+
+    /**
+     * Constructeur privé de la classe qui est donc non instanciable
+     */
+    private BinaryFiles() {
+    }
+
+    /**
+     * Retourne le contenu du fichier donné, projeté en mémoire en lecture seule
+     *
+     * @param path chemin d'accès du fichier
+     * @return la mémoire tampon projetée sur le fichier
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si le fichier n'existe pas
+     */
+    public static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Retourne une somme de contrôle (CRC-32C) du contenu des fichiers donnés, dans l'ordre donné,
+     * permettant de vérifier qu'un fichier de prétraitement correspond toujours aux fichiers dont il est dérivé
+     *
+     * @param paths chemins d'accès des fichiers
+     * @return la somme de contrôle du contenu des fichiers
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des fichiers n'existe pas
+     */
+    public static long checksum(Path... paths) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (Path path : paths) {
+            // par tranches, la projection d'un fichier d'un seul tenant étant limitée à 2 Go
+            try (FileChannel channel = FileChannel.open(path)) {
+                for (long start = 0; start < channel.size(); start += CHECKSUM_CHUNK_SIZE) {
+                    long length = Math.min(channel.size() - start, CHECKSUM_CHUNK_SIZE);
+                    crc.update(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Retourne le contenu du fichier donné, projeté en mémoire en lecture seule, à l'exception de la somme de contrôle
+     * par laquelle il commence (voir writeChecked), qui doit être égale à celle donnée
+     *
+     * @param path     chemin d'accès du fichier
+     * @param checksum somme de contrôle attendue des fichiers dont le fichier est dérivé
+     * @return la mémoire tampon projetée sur le fichier, somme de contrôle exclue
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si le fichier n'existe pas,
+     *                     ou si sa somme de contrôle diffère de celle donnée
+     */
+    public static ByteBuffer mapChecked(Path path, long checksum) throws IOException {
+        ByteBuffer buffer = map(path);
+        if (buffer.capacity() < Long.BYTES || buffer.getLong(0) != checksum)
+            throw new IOException(path + " ne correspond pas aux fichiers dont il est dérivé");
+        return buffer.slice(Long.BYTES, buffer.capacity() - Long.BYTES);
+    }
+
+    /**
+     * Écrit, l'une après l'autre, la totalité du contenu des mémoires tampon données dans le fichier donné,
+     * qui est écrasé s'il existe
+     *
+     * @param path  chemin d'accès du fichier
+     * @param bytes mémoires tampon à écrire, chacune de sa position à sa limite
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void write(Path path, ByteBuffer... bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            for (ByteBuffer buffer : bytes) {
+                ByteBuffer toWrite = buffer.duplicate();
+                while (toWrite.hasRemaining()) {
+                    channel.write(toWrite);
+                }
+            }
+        }
+    }
+
+    /**
+     * Écrit la somme de contrôle donnée, puis la totalité du contenu des mémoires tampon données,
+     * dans le fichier donné, qui est écrasé s'il existe ; le fichier peut ensuite être lu par mapChecked
+     *
+     * @param path     chemin d'accès du fichier
+     * @param checksum somme de contrôle des fichiers dont le fichier est dérivé
+     * @param bytes    mémoires tampon à écrire, chacune de sa position à sa limite
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void writeChecked(Path path, long checksum, ByteBuffer... bytes) throws IOException {
+        ByteBuffer[] all = new ByteBuffer[bytes.length + 1];
+        all[0] = ByteBuffer.allocate(Long.BYTES).putLong(0, checksum);
+        System.arraycopy(bytes, 0, all, 1, bytes.length);
+        write(path, all);
+    }
+
+    /**
+     * Retourne une mémoire tampon d'octets contenant la totalité des entiers donnés
+     *
+     * @param ints mémoire tampon d'entiers
+     * @return une mémoire tampon d'octets de même contenu
+     */
+    public static ByteBuffer asBytes(IntBuffer ints) {
+        ByteBuffer bytes = ByteBuffer.allocate(ints.capacity() * Integer.BYTES);
+        bytes.asIntBuffer().put(ints.duplicate().rewind());
+        return bytes;
+    }
+
+    /**
+     * Retourne une mémoire tampon d'octets contenant la totalité des nombres à virgule flottante donnés
+     *
+     * @param floats mémoire tampon de nombres à virgule flottante
+     * @return une mémoire tampon d'octets de même contenu
+     */
+    public static ByteBuffer asBytes(FloatBuffer floats) {
+        ByteBuffer bytes = ByteBuffer.allocate(floats.capacity() * Float.BYTES);
+        bytes.asFloatBuffer().put(floats.duplicate().rewind());
+        return bytes;
+    }
+}
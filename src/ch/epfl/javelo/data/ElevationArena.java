@@ -0,0 +1,153 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Représente les profils de toutes les arêtes du graphe, décompressés une fois pour toutes dans une seule zone
+ * de mémoire hors du tas (ou projetée depuis un fichier), accompagnée d'un index donnant, pour chaque arête,
+ * la position de ses échantillons. Les échantillons sont rangés dans le sens de la voie OSM, si bien qu'une arête
+ * et son inverse, qui partagent le même profil, partagent aussi les mêmes échantillons.
+ * <p>
+ * Le fichier elevations_decoded.bin contient une somme de contrôle des fichiers dont il est dérivé,
+ * suivie de la position des échantillons de chaque arête (-1 si elle n'a pas de profil), puis des échantillons.
+ * L'index est immuable et peut donc être interrogé par plusieurs fils d'exécution à la fois.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class ElevationArena {
+
+    public static final String FILE_NAME = "elevations_decoded.bin";
+
+    private static final int OFFSET_CHECKSUM = 0;
+    private static final int OFFSET_EDGE_OFFSETS = OFFSET_CHECKSUM + Long.BYTES;
+    private static final int NO_PROFILE = -1;
+    private static final int MAX_SAMPLES = Integer.MAX_VALUE / Float.BYTES;
+
+    private final GraphEdges edges;
+    private final IntBuffer offsets;
+    private final FloatBuffer samples;
+    private final ByteBuffer sampleBytes;
+
+    private ElevationArena(GraphEdges edges, IntBuffer offsets, ByteBuffer sampleBytes) {
+        this.edges = edges;
+        this.offsets = offsets;
+        this.sampleBytes = sampleBytes;
+        this.samples = sampleBytes.asFloatBuffer();
+    }
+
+    /**
+     * Retourne les profils décompressés des arêtes données ; les profils distincts sont décompressés une seule fois,
+     * en parallèle sur les processeurs disponibles, dans une zone de mémoire hors du tas
+     *
+     * @param edges arêtes du graphe
+     * @return les profils décompressés des arêtes
+     * @throws IllegalArgumentException si les échantillons décompressés ne tiennent pas dans une zone de 2 Go
+     */
+    public static ElevationArena of(GraphEdges edges) {
+        int edgeCount = edges.count();
+
+        // les arêtes possédant un profil, triées par identité de profil afin de regrouper celles qui le partagent
+        long[] keys = IntStream.range(0, edgeCount)
+                .filter(edges::hasProfile)
+                .mapToLong(edgeId -> ((long) edges.profileId(edgeId) << Integer.SIZE) | edgeId)
+                .toArray();
+        Arrays.parallelSort(keys);
+
+        int[] offsets = new int[edgeCount];
+        Arrays.fill(offsets, NO_PROFILE);
+        int[] decodedEdgeIds = new int[keys.length];
+        int decodedCount = 0;
+        long sampleCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int edgeId = (int) keys[i];
+            if (i == 0 || (keys[i] >>> Integer.SIZE) != (keys[i - 1] >>> Integer.SIZE)) {
+                decodedEdgeIds[decodedCount++] = edgeId;
+                offsets[edgeId] = (int) sampleCount;
+                sampleCount += edges.profileSampleCount(edgeId);
+                Preconditions.checkArgument(sampleCount <= MAX_SAMPLES);
+            } else {
+                offsets[edgeId] = offsets[(int) keys[i - 1]];
+            }
+        }
+
+        ByteBuffer sampleBytes = ByteBuffer.allocateDirect((int) sampleCount * Float.BYTES);
+        FloatBuffer samples = sampleBytes.asFloatBuffer();
+        IntStream.range(0, decodedCount).parallel().forEach(i -> {
+            int edgeId = decodedEdgeIds[i];
+            samples.put(offsets[edgeId], edges.osmProfileSamples(edgeId));
+        });
+        return new ElevationArena(edges, IntBuffer.wrap(offsets), sampleBytes);
+    }
+
+    /**
+     * Retourne les profils décompressés des arêtes du graphe dont les fichiers se trouvent dans le répertoire donné.
+     * Ils sont projetés en mémoire depuis le fichier elevations_decoded.bin de ce répertoire si la somme de contrôle
+     * qu'il contient correspond aux fichiers du graphe ; sinon, ils sont décompressés puis écrits dans ce fichier,
+     * dans la mesure du possible
+     *
+     * @param basePath chemin d'accès du répertoire contenant le graphe
+     * @param edges    arêtes du graphe chargées depuis ce répertoire
+     * @return les profils décompressés des arêtes
+     * @throws IOException en cas d'erreur d'entrée/sortie lors de la lecture des fichiers du graphe
+     */
+    public static ElevationArena loadOrDecode(Path basePath, GraphEdges edges) throws IOException {
+        Path path = basePath.resolve(FILE_NAME);
+        int edgeCount = edges.count();
+        long checksum = BinaryFiles.checksum(basePath.resolve("edges.bin"), basePath.resolve("profile_ids.bin"),
+                basePath.resolve("elevations.bin"));
+        int samplesOffset = OFFSET_EDGE_OFFSETS + edgeCount * Integer.BYTES;
+
+        if (Files.exists(path) && Files.size(path) >= samplesOffset
+                && (Files.size(path) - samplesOffset) % Float.BYTES == 0) {
+            ByteBuffer buffer = BinaryFiles.map(path);
+            if (buffer.getLong(OFFSET_CHECKSUM) == checksum) {
+                return new ElevationArena(edges,
+                        buffer.slice(OFFSET_EDGE_OFFSETS, edgeCount * Integer.BYTES).asIntBuffer(),
+                        buffer.slice(samplesOffset, buffer.capacity() - samplesOffset));
+            }
+        }
+
+        ElevationArena arena = of(edges);
+        ByteBuffer header = ByteBuffer.allocate(samplesOffset);
+        header.putLong(OFFSET_CHECKSUM, checksum);
+        header.slice(OFFSET_EDGE_OFFSETS, edgeCount * Integer.BYTES).asIntBuffer()
+                .put(arena.offsets.duplicate().rewind());
+        try {
+            BinaryFiles.write(path, header, arena.sampleBytes);
+        } catch (IOException e) {
+            // Répertoire en lecture seule : les profils restent en mémoire et seront décompressés au prochain chargement
+        }
+        return arena;
+    }
+
+    /**
+     * Retourne une vue, en lecture seule et sans copie, des échantillons du profil de l'arête d'identité donnée,
+     * dans le sens de la voie OSM, qui est vide si l'arête ne possède pas de profil
+     *
+     * @param edgeId identité de l'arête
+     * @return les échantillons du profil de l'arête, dans le sens de la voie OSM
+     */
+    public FloatBuffer osmProfileSamples(int edgeId) {
+        int offset = offsets.get(edgeId);
+        if (offset == NO_PROFILE) return FloatBuffer.allocate(0);
+        return samples.slice(offset, edges.profileSampleCount(edgeId)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Retourne le nombre d'échantillons décompressés, tous profils confondus
+     *
+     * @return le nombre d'échantillons décompressés
+     */
+    public int sampleCount() {
+        return samples.capacity();
+    }
+}
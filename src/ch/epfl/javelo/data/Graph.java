@@ -1,16 +1,16 @@
 package ch.epfl.javelo.data;
 
 import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.projection.PointCh;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
+import java.nio.FloatBuffer;
 import java.nio.LongBuffer;
-import java.nio.ShortBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.DoubleUnaryOperator;
 import static java.lang.Double.NaN;
@@ -27,10 +27,32 @@ public final class Graph {
     private final GraphSectors sectors;
     private final GraphEdges edges;
     private final List<AttributeSet> attributeSets;
-    private final List<GraphSectors.Sector> sectorsInArea = new LinkedList<>();
+    private volatile GraphReverseEdges reverseEdges;
+    private final ProfileCache profileCache = new ProfileCache(ProfileCache.DEFAULT_CAPACITY);
+    private final ElevationArena elevationArena;
+    private final Path basePath;
 
     /**
-     * Constructeur public du Graphe
+     * Énumère les manières de décompresser les profils des arêtes lors du chargement d'un graphe
+     */
+    public enum ProfileLoading {
+        /**
+         * Les profils sont décompressés à la demande, et conservés dans un cache borné
+         */
+        ON_DEMAND,
+        /**
+         * Tous les profils sont décompressés au chargement, en parallèle, dans une zone de mémoire hors du tas
+         */
+        DECODED,
+        /**
+         * Comme DECODED, mais les profils décompressés sont projetés en mémoire depuis le fichier
+         * elevations_decoded.bin, qui est créé s'il n'existe pas ou ne correspond plus au graphe
+         */
+        DECODED_PERSISTED
+    }
+
+    /**
+     * Constructeur public du Graphe ; l'index inverse des arêtes est calculé lors de sa première utilisation
      *
      * @param nodes         noeuds donnés
      * @param sectors       secteurs donnés
@@ -38,16 +60,57 @@ public final class Graph {
      * @param attributeSets ensembles d'attributs donnés
      */
     public Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, List<AttributeSet> attributeSets) {
+        this(nodes, sectors, edges, attributeSets, null);
+    }
+
+    /**
+     * Constructeur public du Graphe muni de son index inverse des arêtes
+     *
+     * @param nodes         noeuds donnés
+     * @param sectors       secteurs donnés
+     * @param edges         arêtes données
+     * @param attributeSets ensembles d'attributs donnés
+     * @param reverseEdges  index inverse des arêtes données, ou null pour le calculer lors de sa première utilisation
+     */
+    public Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, List<AttributeSet> attributeSets,
+                 GraphReverseEdges reverseEdges) {
+        this(nodes, sectors, edges, attributeSets, reverseEdges, null);
+    }
+
+    /**
+     * Constructeur public du Graphe muni de son index inverse des arêtes et des profils décompressés de ses arêtes
+     *
+     * @param nodes          noeuds donnés
+     * @param sectors        secteurs donnés
+     * @param edges          arêtes données
+     * @param attributeSets  ensembles d'attributs donnés
+     * @param reverseEdges   index inverse des arêtes données, ou null pour le calculer lors de sa première utilisation
+     * @param elevationArena profils décompressés des arêtes données, ou null pour les décompresser à la demande
+     */
+    public Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, List<AttributeSet> attributeSets,
+                 GraphReverseEdges reverseEdges, ElevationArena elevationArena) {
+        this(nodes, sectors, edges, attributeSets, reverseEdges, elevationArena, null);
+    }
+
+    // basePath : répertoire depuis lequel charger l'index inverse des arêtes, ou null pour le calculer en mémoire
+    private Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, List<AttributeSet> attributeSets,
+                  GraphReverseEdges reverseEdges, ElevationArena elevationArena, Path basePath) {
         this.nodes = nodes;
         this.sectors = sectors;
         this.edges = edges;
         this.attributeSets = List.copyOf(attributeSets);
+        this.reverseEdges = reverseEdges;
+        this.elevationArena = elevationArena;
+        this.basePath = basePath;
     }
 
     /**
      * retourne le graphe JaVelo obtenu à partir des fichiers se trouvant dans le répertoire dont le
      * chemin d'accès est basePath, ou
-     * lève IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des fichiers attendu n'existe pas
+     * lève IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des fichiers attendu n'existe pas.
+     * L'index inverse des arêtes n'est chargé que lors de sa première utilisation, depuis le fichier
+     * reverse_edges.bin ; si celui-ci n'existe pas ou ne correspond plus au graphe, il est calculé puis écrit
+     * dans le répertoire, dans la mesure du possible
      *
      * @param basePath chemin d'accès du répertoire
      * @return le graphe JaVelo obtenu à partir des fichiers se trouvant dans le répertoire dont le
@@ -56,6 +119,19 @@ public final class Graph {
      * @throws IOException en cas d'erreur d'entrée/sortie
      */
     public static Graph loadFrom(Path basePath) throws IOException {
+        return loadFrom(basePath, ProfileLoading.ON_DEMAND);
+    }
+
+    /**
+     * Retourne le graphe JaVelo obtenu à partir des fichiers se trouvant dans le répertoire donné, comme loadFrom(Path),
+     * dont les profils des arêtes sont décompressés de la manière donnée
+     *
+     * @param basePath       chemin d'accès du répertoire
+     * @param profileLoading manière de décompresser les profils des arêtes
+     * @return le graphe JaVelo obtenu à partir des fichiers se trouvant dans le répertoire
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static Graph loadFrom(Path basePath, ProfileLoading profileLoading) throws IOException {
 
         Path attributesPath = basePath.resolve("attributes.bin");
         Path edgesPath = basePath.resolve("edges.bin");
@@ -65,49 +141,15 @@ public final class Graph {
         Path profile_idsPath = basePath.resolve("profile_ids.bin");
         Path sectorsPath = basePath.resolve("sectors.bin");
 
-        IntBuffer nodesBuffer;
-
-        ByteBuffer sectorsBuffer;
-        ByteBuffer edgesBuffer;
-        ShortBuffer elevationsBuffer;
-        IntBuffer profileIds;
         List<AttributeSet> attributeSet = new ArrayList<>();
         LongBuffer attribute;
 
-
-        try (FileChannel channel = FileChannel.open(nodesPath)) {
-            nodesBuffer = channel
-                    .map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
-                    .asIntBuffer();
-        }
-
-        try (FileChannel channel = FileChannel.open(sectorsPath)) {
-
-            sectorsBuffer = channel
-                    .map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
-        }
-
-
-        try (FileChannel channel = FileChannel.open(edgesPath)) {
-
-            edgesBuffer = channel
-                    .map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
-        }
-
-        try (FileChannel channel = FileChannel.open(elevationsPath)) {
-
-            elevationsBuffer = channel
-                    .map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
-                    .asShortBuffer();
-        }
-
-        try (FileChannel channel = FileChannel.open(profile_idsPath)) {
-
-            profileIds = channel
-                    .map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
-                    .asIntBuffer();
-        }
-
+        // fichiers projetés par tranches, dont la taille n'est pas limitée à 2 Go
+        GraphBuffer nodesBuffer = GraphBuffer.map(nodesPath);
+        GraphBuffer sectorsBuffer = GraphBuffer.map(sectorsPath);
+        GraphBuffer edgesBuffer = GraphBuffer.map(edgesPath);
+        GraphBuffer elevationsBuffer = GraphBuffer.map(elevationsPath);
+        GraphBuffer profileIds = GraphBuffer.map(profile_idsPath);
 
         try (FileChannel channel = FileChannel.open(attributesPath)) {
 
@@ -120,12 +162,18 @@ public final class Graph {
             attributeSet.add(i, new AttributeSet(attribute.get(i)));
         }
 
-        return new Graph(new GraphNodes(nodesBuffer), new GraphSectors(sectorsBuffer),
-                new GraphEdges(edgesBuffer, profileIds, elevationsBuffer), attributeSet);
+        GraphNodes graphNodes = new GraphNodes(nodesBuffer);
+        GraphEdges graphEdges = new GraphEdges(edgesBuffer, profileIds, elevationsBuffer);
+        ElevationArena elevationArena = switch (profileLoading) {
+            case ON_DEMAND -> null;
+            case DECODED -> ElevationArena.of(graphEdges);
+            case DECODED_PERSISTED -> ElevationArena.loadOrDecode(basePath, graphEdges);
+        };
+        return new Graph(graphNodes, new GraphSectors(sectorsBuffer), graphEdges, attributeSet, null,
+                elevationArena, basePath);
 
     }
 
-
     /**
      * Retourne le nombre de noeuds donnés
      *
@@ -135,6 +183,15 @@ public final class Graph {
         return nodes.count();
     }
 
+    /**
+     * Retourne le nombre d'arêtes du graphe
+     *
+     * @return le nombre d'arêtes du graphe
+     */
+    public int edgeCount() {
+        return edges.count();
+    }
+
     /**
      * Retourne la position du noeud d'identité donnée
      *
@@ -145,6 +202,49 @@ public final class Graph {
         return new PointCh(nodes.nodeE(nodeId), nodes.nodeN(nodeId));
     }
 
+    /**
+     * Retourne la coordonnée E du noeud d'identité donnée, sans construire sa position
+     *
+     * @param nodeId identité du noeud
+     * @return la coordonnée E du noeud
+     */
+    public double nodeE(int nodeId) {
+        return nodes.nodeE(nodeId);
+    }
+
+    /**
+     * Retourne la coordonnée N du noeud d'identité donnée, sans construire sa position
+     *
+     * @param nodeId identité du noeud
+     * @return la coordonnée N du noeud
+     */
+    public double nodeN(int nodeId) {
+        return nodes.nodeN(nodeId);
+    }
+
+    /**
+     * Retourne le carré de la distance, en mètres, séparant les deux noeuds d'identités données
+     *
+     * @param nodeId1 identité du premier noeud
+     * @param nodeId2 identité du second noeud
+     * @return le carré de la distance séparant les deux noeuds
+     */
+    public double nodeSquaredDistance(int nodeId1, int nodeId2) {
+        return nodeSquaredDistance(nodeId1, nodes.nodeE(nodeId2), nodes.nodeN(nodeId2));
+    }
+
+    /**
+     * Retourne le carré de la distance, en mètres, séparant le noeud d'identité donnée du point de coordonnées données
+     *
+     * @param nodeId identité du noeud
+     * @param e      coordonnée E du point
+     * @param n      coordonnée N du point
+     * @return le carré de la distance séparant le noeud du point
+     */
+    public double nodeSquaredDistance(int nodeId, double e, double n) {
+        return Math2.squaredNorm(e - nodes.nodeE(nodeId), n - nodes.nodeN(nodeId));
+    }
+
     /**
      * Retourne le nombre d'arêtes sortant du nœud d'identité donnée,
      *
@@ -166,6 +266,63 @@ public final class Graph {
         return nodes.edgeId(nodeId, edgeIndex);
     }
 
+    /**
+     * Retourne le nombre d'arêtes arrivant au nœud d'identité donnée
+     *
+     * @param nodeId identité du noeud
+     * @return le nombre d'arêtes arrivant au nœud d'identité donnée
+     */
+    public int nodeInDegree(int nodeId) {
+        return reverseEdges().inDegree(nodeId);
+    }
+
+    /**
+     * Retourne l'identité de la edgeIndex-ième arête arrivant au nœud d'identité nodeId
+     *
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête
+     * @return l'identité de la edgeIndex-ième arête arrivant au nœud d'identité nodeId
+     */
+    public int nodeInEdgeId(int nodeId, int edgeIndex) {
+        return reverseEdges().edgeId(nodeId, edgeIndex);
+    }
+
+    /**
+     * Retourne l'identité du nœud de départ de la edgeIndex-ième arête arrivant au nœud d'identité nodeId
+     *
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête
+     * @return l'identité du nœud de départ de la edgeIndex-ième arête arrivant au nœud d'identité nodeId
+     */
+    public int nodeInEdgeSourceNodeId(int nodeId, int edgeIndex) {
+        return reverseEdges().sourceNodeId(nodeId, edgeIndex);
+    }
+
+    private GraphReverseEdges reverseEdges() {
+        GraphReverseEdges result = reverseEdges;
+        if (result == null) {
+            synchronized (this) {
+                result = reverseEdges;
+                if (result == null) {
+                    result = loadOrComputeReverseEdges();
+                    reverseEdges = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private GraphReverseEdges loadOrComputeReverseEdges() {
+        if (basePath != null) {
+            try {
+                return GraphReverseEdges.loadOrCompute(basePath, nodes, edges);
+            } catch (IOException e) {
+                // fichiers du graphe devenus illisibles : l'index est calculé depuis les données déjà projetées
+            }
+        }
+        return GraphReverseEdges.of(nodes, edges);
+    }
+
     /**
      * Retourne l'identité du nœud se trouvant le plus proche du point donné,
      * à la distance maximale donnée (en mètres), ou -1 si aucun nœud ne correspond à ces critères,
@@ -176,22 +333,85 @@ public final class Graph {
      * à la distance maximale donnée (en mètres), ou -1 si aucun nœud ne correspond à ces critères,
      */
     public int nodeClosestTo(PointCh point, double searchDistance) {
-        int index = -1;
+        return nodeClosestTo(point.e(), point.n(), searchDistance);
+    }
 
-        sectorsInArea.addAll(sectors.sectorsInArea(point, searchDistance));
+    /**
+     * Retourne l'identité du nœud se trouvant le plus proche du point de coordonnées données,
+     * à la distance maximale donnée (en mètres), ou -1 si aucun nœud ne correspond à ces critères.
+     * Cette méthode n'alloue aucun objet et peut être appelée par plusieurs fils d'exécution à la fois
+     *
+     * @param e              coordonnée E du point
+     * @param n              coordonnée N du point
+     * @param searchDistance distance maximale de recherche
+     * @return l'identité du nœud le plus proche, ou -1 si aucun nœud ne se trouve à la distance donnée
+     */
+    public int nodeClosestTo(double e, double n, double searchDistance) {
+        int index = -1;
         double minimum = searchDistance * searchDistance;
-        for (GraphSectors.Sector s : sectorsInArea) {
-            for (int i = s.startNodeId(); i < s.endNodeId(); i++) {
-                double squaredDistance = nodePoint(i).squaredDistanceTo(point);
-                if (squaredDistance <= minimum) {
-                    index = i;
-                    minimum = squaredDistance;
+
+        int xUp = GraphSectors.sectorX(e + searchDistance);
+        int yDown = GraphSectors.sectorY(n - searchDistance);
+        int yUp = GraphSectors.sectorY(n + searchDistance);
+        for (int x = GraphSectors.sectorX(e - searchDistance); x <= xUp; x++) {
+            for (int y = yDown; y <= yUp; y++) {
+                int endNodeId = sectors.endNodeId(x, y);
+                for (int i = sectors.startNodeId(x, y); i < endNodeId; i++) {
+                    double squaredDistance = nodeSquaredDistance(i, e, n);
+                    if (squaredDistance <= minimum) {
+                        index = i;
+                        minimum = squaredDistance;
+                    }
                 }
             }
         }
         return index;
     }
 
+    /**
+     * Retourne les identités des (au plus) k nœuds se trouvant le plus près du point donné,
+     * à la distance maximale donnée (en mètres), triées par distance croissante
+     *
+     * @param point          point dont on cherche les noeuds les plus proches
+     * @param searchDistance distance maximale de recherche
+     * @param k              nombre maximal de nœuds à retourner
+     * @return le tableau des identités des nœuds les plus proches, vide si aucun nœud ne se trouve à la distance donnée
+     * @throws IllegalArgumentException si k n'est pas strictement positif
+     */
+    public int[] nodesClosestTo(PointCh point, double searchDistance, int k) {
+        Preconditions.checkArgument(k > 0);
+        double e = point.e();
+        double n = point.n();
+        int[] closest = new int[k];
+        double[] squaredDistances = new double[k];
+        int count = 0;
+        double maximum = searchDistance * searchDistance;
+
+        int xUp = GraphSectors.sectorX(e + searchDistance);
+        int yDown = GraphSectors.sectorY(n - searchDistance);
+        int yUp = GraphSectors.sectorY(n + searchDistance);
+        for (int x = GraphSectors.sectorX(e - searchDistance); x <= xUp; x++) {
+            for (int y = yDown; y <= yUp; y++) {
+                int endNodeId = sectors.endNodeId(x, y);
+                for (int i = sectors.startNodeId(x, y); i < endNodeId; i++) {
+                    double squaredDistance = nodeSquaredDistance(i, e, n);
+                    if (squaredDistance > maximum || (count == k && squaredDistance >= squaredDistances[k - 1]))
+                        continue;
+
+                    // Insertion dans les tableaux triés, le plus éloigné étant évincé s'ils sont pleins
+                    int position = count < k ? count++ : k - 1;
+                    while (position > 0 && squaredDistances[position - 1] > squaredDistance) {
+                        closest[position] = closest[position - 1];
+                        squaredDistances[position] = squaredDistances[position - 1];
+                        position--;
+                    }
+                    closest[position] = i;
+                    squaredDistances[position] = squaredDistance;
+                }
+            }
+        }
+        return Arrays.copyOf(closest, count);
+    }
 
     /**
      * Retourne l'identité du nœud destination de l'arête d'identité donnée,
@@ -223,6 +443,35 @@ public final class Graph {
         return attributeSets.get(edges.attributesIndex(edgeId));
     }
 
+    /**
+     * Retourne l'index, dans la table des ensembles d'attributs, de l'ensemble attaché à l'arête d'identité donnée
+     *
+     * @param edgeId identité de l'arête
+     * @return l'index de l'ensemble des attributs OSM attachés à l'arête d'identité donnée
+     */
+    public int edgeAttributesIndex(int edgeId) {
+        return edges.attributesIndex(edgeId);
+    }
+
+    /**
+     * Retourne le nombre d'ensembles d'attributs distincts du graphe
+     *
+     * @return le nombre d'ensembles d'attributs du graphe
+     */
+    public int attributeSetCount() {
+        return attributeSets.size();
+    }
+
+    /**
+     * Retourne l'ensemble d'attributs d'index donné
+     *
+     * @param index index de l'ensemble d'attributs
+     * @return l'ensemble d'attributs d'index donné
+     */
+    public AttributeSet attributeSet(int index) {
+        return attributeSets.get(index);
+    }
+
     /**
      * Retourne la longueur, en mètres, de l'arête d'identité donnée,
      *
@@ -246,17 +495,37 @@ public final class Graph {
     /**
      * Retourne le profil en long de l'arête d'identité donnée, sous la forme d'une fonction; si l'arête ne possède pas de profil,
      * alors cette fonction doit retourner Double.NaN pour n'importe quel argument.
+     * Les échantillons décompressés sont lus sans copie dans les profils décompressés au chargement, s'il y en a,
+     * et sinon conservés dans un cache borné ; ils sont partagés avec l'arête inverse, dont la fonction
+     * les lit dans l'ordre inverse.
      *
      * @param edgeId identité de l'arête
      * @return le profil en long de l'arête d'identité donnée, sous la forme d'une fonction; si l'arête ne possède pas de profil,
      * alors cette fonction doit retourner Double.NaN pour n'importe quel argument.
      */
     public DoubleUnaryOperator edgeProfile(int edgeId) {
-        if (edges.hasProfile(edgeId)) {
-            return Functions.sampled(edges.profileSamples(edgeId), edgeLength(edgeId));
+        if (edges.hasProfile(edgeId) && elevationArena != null) {
+            FloatBuffer samples = elevationArena.osmProfileSamples(edgeId);
+            return edges.isInverted(edgeId)
+                    ? Functions.sampledReversed(samples, edgeLength(edgeId))
+                    : Functions.sampled(samples, edgeLength(edgeId));
+        } else if (edges.hasProfile(edgeId)) {
+            float[] samples = profileCache.osmProfileSamples(edges, edgeId);
+            return edges.isInverted(edgeId)
+                    ? Functions.sampledReversed(samples, edgeLength(edgeId))
+                    : Functions.sampled(samples, edgeLength(edgeId));
         } else return Functions.constant(NaN);
 
     }
 
+    /**
+     * Retourne les statistiques du cache des profils décompressés des arêtes
+     *
+     * @return les statistiques du cache des profils
+     */
+    public ProfileCache.Stats profileCacheStats() {
+        return profileCache.stats();
+    }
+
 
 }
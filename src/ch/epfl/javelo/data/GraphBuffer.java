@@ -0,0 +1,190 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Représente une zone de mémoire en lecture seule contenant les données d'un fichier du graphe, adressée
+ * par des positions en octets de type long, afin que les fichiers des graphes de plus de 2 Go soient utilisables.
+ * <p>
+ * Un fichier est projeté en mémoire par tranches de 1 Go, chacune débordant de quelques octets sur la suivante,
+ * si bien que toute valeur commence et se termine dans la même tranche. Les mémoires tampon java.nio existantes
+ * peuvent aussi être utilisées telles quelles, sans copie, ce qui limite alors leur taille à 2 Go.
+ * Les valeurs sont lues dans l'ordre big-endian, et les positions doivent être alignées sur leur taille.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public abstract class GraphBuffer {
+
+    static final int DEFAULT_CHUNK_BITS = 30;
+    // débordement de chaque tranche sur la suivante, supérieur ou égal à la taille des valeurs lues
+    private static final int CHUNK_OVERLAP = Long.BYTES;
+
+    private GraphBuffer() {
+    }
+
+    /**
+     * Retourne la zone de mémoire constituée des octets de la mémoire tampon donnée, de sa position 0 à sa capacité
+     *
+     * @param buffer mémoire tampon
+     * @return la zone de mémoire correspondante
+     */
+    public static GraphBuffer of(ByteBuffer buffer) {
+        return new Chunked(new ByteBuffer[]{buffer}, Integer.SIZE - 1, buffer.capacity());
+    }
+
+    /**
+     * Retourne la zone de mémoire constituée des entiers de la mémoire tampon donnée, de sa position 0 à sa capacité
+     *
+     * @param buffer mémoire tampon
+     * @return la zone de mémoire correspondante
+     */
+    public static GraphBuffer of(IntBuffer buffer) {
+        return new Ints(buffer);
+    }
+
+    /**
+     * Retourne la zone de mémoire constituée des entiers courts de la mémoire tampon donnée,
+     * de sa position 0 à sa capacité
+     *
+     * @param buffer mémoire tampon
+     * @return la zone de mémoire correspondante
+     */
+    public static GraphBuffer of(ShortBuffer buffer) {
+        return new Shorts(buffer);
+    }
+
+    /**
+     * Retourne la zone de mémoire constituée du contenu du fichier donné, projeté en mémoire par tranches,
+     * quelle que soit sa taille
+     *
+     * @param path chemin d'accès du fichier
+     * @return la zone de mémoire correspondante
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static GraphBuffer map(Path path) throws IOException {
+        return map(path, DEFAULT_CHUNK_BITS);
+    }
+
+    static GraphBuffer map(Path path, int chunkBits) throws IOException {
+        Preconditions.checkArgument(chunkBits >= Integer.numberOfTrailingZeros(CHUNK_OVERLAP)
+                && chunkBits < Integer.SIZE - 1);
+        try (FileChannel channel = FileChannel.open(path)) {
+            long size = channel.size();
+            long chunkSize = 1L << chunkBits;
+            ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (size + chunkSize - 1) >>> chunkBits)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = i * chunkSize;
+                long length = Math.min(size - start, chunkSize + CHUNK_OVERLAP);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            return new Chunked(chunks, chunkBits, size);
+        }
+    }
+
+    /**
+     * Retourne la taille de la zone de mémoire, en octets
+     *
+     * @return la taille de la zone de mémoire
+     */
+    public abstract long byteSize();
+
+    /**
+     * Retourne l'entier de 32 bits commençant à la position donnée
+     *
+     * @param offset position en octets, multiple de 4
+     * @return l'entier commençant à cette position
+     */
+    public abstract int getInt(long offset);
+
+    /**
+     * Retourne l'entier de 16 bits commençant à la position donnée
+     *
+     * @param offset position en octets, multiple de 2
+     * @return l'entier commençant à cette position
+     */
+    public abstract short getShort(long offset);
+
+    private static final class Chunked extends GraphBuffer {
+        private final ByteBuffer[] chunks;
+        private final int chunkBits;
+        private final long chunkMask;
+        private final long byteSize;
+
+        private Chunked(ByteBuffer[] chunks, int chunkBits, long byteSize) {
+            this.chunks = chunks;
+            this.chunkBits = chunkBits;
+            this.chunkMask = (1L << chunkBits) - 1;
+            this.byteSize = byteSize;
+        }
+
+        @Override
+        public long byteSize() {
+            return byteSize;
+        }
+
+        @Override
+        public int getInt(long offset) {
+            return chunks[(int) (offset >>> chunkBits)].getInt((int) (offset & chunkMask));
+        }
+
+        @Override
+        public short getShort(long offset) {
+            return chunks[(int) (offset >>> chunkBits)].getShort((int) (offset & chunkMask));
+        }
+    }
+
+    private static final class Ints extends GraphBuffer {
+        private final IntBuffer ints;
+
+        private Ints(IntBuffer ints) {
+            this.ints = ints;
+        }
+
+        @Override
+        public long byteSize() {
+            return (long) ints.capacity() * Integer.BYTES;
+        }
+
+        @Override
+        public int getInt(long offset) {
+            return ints.get((int) (offset / Integer.BYTES));
+        }
+
+        @Override
+        public short getShort(long offset) {
+            // la moitié de poids fort de l'entier se trouve à la position la plus basse
+            int shift = offset % Integer.BYTES == 0 ? Short.SIZE : 0;
+            return (short) (getInt(offset - offset % Integer.BYTES) >>> shift);
+        }
+    }
+
+    private static final class Shorts extends GraphBuffer {
+        private final ShortBuffer shorts;
+
+        private Shorts(ShortBuffer shorts) {
+            this.shorts = shorts;
+        }
+
+        @Override
+        public long byteSize() {
+            return (long) shorts.capacity() * Short.BYTES;
+        }
+
+        @Override
+        public int getInt(long offset) {
+            return (getShort(offset) << Short.SIZE) | Short.toUnsignedInt(getShort(offset + Short.BYTES));
+        }
+
+        @Override
+        public short getShort(long offset) {
+            return shorts.get((int) (offset / Short.BYTES));
+        }
+    }
+}
@@ -14,13 +14,13 @@ import static java.lang.Short.toUnsignedInt;
 /**
  * Représente le tableau de toutes les arêtes du graphe JaVelo
  *
- * @param edgesBuffer la mémoire tampon contenant la valeur d'attributs pour la totalité des arêtes du graphe
- * @param profileIds  la mémoire tampon contenant la valeur d'attributs pour la totalité des arêtes du graphe
- * @param elevations  la mémoire tampon contenant la totalité des échantillons des profils, compressés ou non
+ * @param edgesBuffer la zone de mémoire contenant la valeur d'attributs pour la totalité des arêtes du graphe
+ * @param profileIds  la zone de mémoire contenant l'identité du profil de la totalité des arêtes du graphe
+ * @param elevations  la zone de mémoire contenant la totalité des échantillons des profils, compressés ou non
  * @author Georges Moussalli (316630)
  */
 
-public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuffer elevations) {
+public record GraphEdges(GraphBuffer edgesBuffer, GraphBuffer profileIds, GraphBuffer elevations) {
 
     public static final int OFFSET_NB_OF_BYTES = 10;
     public static final int OFFSET_LENGTH_METERS = Integer.BYTES;
@@ -29,13 +29,34 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
     public static final int LENGTH = 30;
     public static final int SIGN_BIT = 1;
 
+    /**
+     * Construit le tableau des arêtes dont les attributs, les identités de profil et les échantillons
+     * se trouvent dans les mémoires tampon données
+     *
+     * @param edgesBuffer la mémoire tampon contenant la valeur d'attributs pour la totalité des arêtes du graphe
+     * @param profileIds  la mémoire tampon contenant l'identité du profil de la totalité des arêtes du graphe
+     * @param elevations  la mémoire tampon contenant la totalité des échantillons des profils, compressés ou non
+     */
+    public GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuffer elevations) {
+        this(GraphBuffer.of(edgesBuffer), GraphBuffer.of(profileIds), GraphBuffer.of(elevations));
+    }
+
+    /**
+     * Retourne le nombre total d'arêtes
+     *
+     * @return le nombre total d'arêtes
+     */
+    public int count() {
+        return (int) (edgesBuffer.byteSize() / OFFSET_NB_OF_BYTES);
+    }
+
     /**
      * @param edgeId identité de l'arête
      * @return vrai ssi l'arête d'identité donnée va dans le sens inverse de la voie OSM dont elle provient
      * @ Retourne vrai ssi l'arête d'identité donnée va dans le sens inverse de la voie OSM dont elle provient
      */
     public boolean isInverted(int edgeId) {
-    return (extractUnsigned((edgesBuffer.getInt(edgeId * OFFSET_NB_OF_BYTES)), LENGTH + SIGN_BIT, SIGN_BIT) == 1);
+    return (extractUnsigned((edgesBuffer.getInt(edgeOffset(edgeId))), LENGTH + SIGN_BIT, SIGN_BIT) == 1);
     }
 
     /**
@@ -45,10 +66,9 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      * @return l'identité du nœud destination de l'arête d'identité donnée
      */
     public int targetNodeId(int edgeId) {
-        if (isInverted(edgeId)) {
-            return ~(edgesBuffer.getInt(edgeId * OFFSET_NB_OF_BYTES));
-        } else
-            return extractUnsigned(edgesBuffer.getInt(edgeId * OFFSET_NB_OF_BYTES), 0, LENGTH + SIGN_BIT);
+        // le bit d'inversion est le bit de signe : une seule lecture suffit
+        int targetAndDirection = edgesBuffer.getInt(edgeOffset(edgeId));
+        return targetAndDirection < 0 ? ~targetAndDirection : targetAndDirection;
     }
 
     /**
@@ -59,7 +79,7 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      */
     public double length(int edgeId) {
         return asDouble
-                (toUnsignedInt(edgesBuffer.getShort(OFFSET_LENGTH_METERS + edgeId * OFFSET_NB_OF_BYTES)));
+                (toUnsignedInt(edgesBuffer.getShort(edgeOffset(edgeId) + OFFSET_LENGTH_METERS)));
     }
 
     /**
@@ -70,7 +90,7 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      */
     public double elevationGain(int edgeId) {
         return asDouble
-                (toUnsignedInt(edgesBuffer.getShort(OFFSET_HEIGHT_METERS + edgeId * OFFSET_NB_OF_BYTES)));
+                (toUnsignedInt(edgesBuffer.getShort(edgeOffset(edgeId) + OFFSET_HEIGHT_METERS)));
     }
 
     /**
@@ -80,7 +100,7 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      * @return vrai ssi l'arête d'identité donnée possède un profil
      */
     public boolean hasProfile(int edgeId) {
-        int temp = extractUnsigned(profileIds.get(edgeId), LENGTH, Short.BYTES);
+        int temp = extractUnsigned(profileIds.getInt((long) edgeId * Integer.BYTES), LENGTH, Short.BYTES);
     return temp != 0;
     }
 
@@ -93,50 +113,78 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      * qui est vide si l'arête ne possède pas de profil
      */
     public float[] profileSamples(int edgeId) {
-        int number = 1 + (Math2.ceilDiv((Short.toUnsignedInt(edgesBuffer.getShort(edgeId * OFFSET_NB_OF_BYTES + OFFSET_LENGTH_METERS))),
+        float[] profile = osmProfileSamples(edgeId);
+        if (!isInverted(edgeId)) return profile;
+
+        int number = profile.length;
+        float[] backProfile = new float[number];
+        for (int i = 0; i < number; i++) {
+            backProfile[i] = profile[number - i - 1];
+        }
+        return backProfile;
+    }
+
+    /**
+     * Retourne l'identité du profil de l'arête d'identité donnée, c.-à-d. la valeur qui désigne le type
+     * et le premier échantillon de son profil ; une arête et son inverse partagent le même profil
+     *
+     * @param edgeId identité de l'arête
+     * @return l'identité du profil de l'arête d'identité donnée
+     */
+    public int profileId(int edgeId) {
+        return profileIds.getInt((long) edgeId * Integer.BYTES);
+    }
+
+    /**
+     * Retourne le nombre d'échantillons du profil de l'arête d'identité donnée, si elle en possède un,
+     * qui ne dépend que de sa longueur : un échantillon tous les deux mètres au plus, extrémités comprises
+     */
+    int profileSampleCount(int edgeId) {
+        return 1 + (Math2.ceilDiv((Short.toUnsignedInt(edgesBuffer.getShort(edgeOffset(edgeId) + OFFSET_LENGTH_METERS))),
                 Q28_4.ofInt(2)));
-        int first = extractUnsigned(profileIds.get(edgeId), 0, 30);
+    }
+
+    /**
+     * Retourne le tableau des échantillons du profil de l'arête d'identité donnée, dans le sens de la voie OSM
+     * dont elle provient, c.-à-d. sans les inverser si l'arête est inversée ; il est vide si l'arête
+     * ne possède pas de profil
+     */
+    float[] osmProfileSamples(int edgeId) {
+        int number = profileSampleCount(edgeId);
+        int first = extractUnsigned(profileIds.getInt((long) edgeId * Integer.BYTES), 0, 30);
         float[] profile = new float[number];
-        float[] backProfile = new float[number];
 
-        profile[0] = (asFloat(toUnsignedInt(elevations.get(first))));
+        profile[0] = (asFloat(toUnsignedInt(elevation(first))));
 
 
-        switch (extractUnsigned(profileIds.get(edgeId), 30, 2)) {
+        switch (extractUnsigned(profileIds.getInt((long) edgeId * Integer.BYTES), 30, 2)) {
             case 0:
                 float[] temp0 = new float[0];
                 return temp0;
 
             case 1:
                 for (int i = 0; i < number; i++) {
-                    profile[i] = asFloat((toUnsignedInt(elevations.get(first + i))));
+                    profile[i] = asFloat((toUnsignedInt(elevation(first + i))));
                 }
                 break;
 
             case 2:
                 for (int i = 1; i < number; i++) {
                     profile[i] = asFloat(extractSigned(toUnsignedInt
-                            (elevations.get(((i - 1) / 2) + 1 + first)), 8 - ((i + 1) % 2) * 8, 8)) + profile[i - 1];
+                            (elevation(((i - 1) / 2) + 1 + first)), 8 - ((i + 1) % 2) * 8, 8)) + profile[i - 1];
                 }
 
                 break;
 
             case 3:
                 for (int i = 1; i < number; i++) {
-                    profile[i] = asFloat(extractSigned(toUnsignedInt(elevations.get(first + ((i - 1) / 4) + 1)), 12 - ((i + 3) % 4) * 4, 4))
+                    profile[i] = asFloat(extractSigned(toUnsignedInt(elevation(first + ((i - 1) / 4) + 1)), 12 - ((i + 3) % 4) * 4, 4))
                             + profile[i - 1];
                 }
                 break;
 
         }
-        for (int i = 0; i < number; i++) {
-            backProfile[i] = profile[number - i - 1];
-        }
-
-        if (isInverted(edgeId)) {
-            return backProfile;
-        } else
-            return profile;
+        return profile;
     }
 
     /**
@@ -146,6 +194,14 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      * @return l'identité de l'ensemble d'attributs attaché à l'arête d'identité donnée
      */
     public int attributesIndex(int edgeId) {
-        return toUnsignedInt(edgesBuffer.getShort(OFFSET_ID_OSM + edgeId * OFFSET_NB_OF_BYTES));
+        return toUnsignedInt(edgesBuffer.getShort(edgeOffset(edgeId) + OFFSET_ID_OSM));
+    }
+
+    private static long edgeOffset(int edgeId) {
+        return (long) edgeId * OFFSET_NB_OF_BYTES;
+    }
+
+    private short elevation(int index) {
+        return elevations.getShort((long) index * Short.BYTES);
     }
 }
\ No newline at end of file
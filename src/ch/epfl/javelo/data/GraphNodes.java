@@ -9,11 +9,11 @@ import static ch.epfl.javelo.Bits.extractUnsigned;
 /**
  * Représente le tableau de tous les nœuds du graphe JaVelo
  *
- * @param buffer la mémoire tampon contenant la valeur des attributs
+ * @param buffer la zone de mémoire contenant la valeur des attributs
  *               de la totalité des nœuds du graphe
  * @author Georges Moussalli (316630)
  */
-public record GraphNodes(IntBuffer buffer) {
+public record GraphNodes(GraphBuffer buffer) {
 
     private static final int OFFSET_E = 0;
     private static final int OFFSET_N = OFFSET_E + 1;
@@ -24,13 +24,22 @@ public record GraphNodes(IntBuffer buffer) {
     private static final int LENGTH_EDGE_ID = 28;
     private static final int LENGTH_NODE_ID = 4;
 
+    /**
+     * Construit le tableau des nœuds dont les attributs se trouvent dans la mémoire tampon donnée
+     *
+     * @param buffer la mémoire tampon contenant la valeur des attributs de la totalité des nœuds du graphe
+     */
+    public GraphNodes(IntBuffer buffer) {
+        this(GraphBuffer.of(buffer));
+    }
+
     /**
      * Retourne le nombre total de nœuds
      *
      * @return le nombre total de nœuds
      */
     public int count() {
-        return buffer().capacity() / NODE_INTS;
+        return (int) (buffer.byteSize() / (NODE_INTS * Integer.BYTES));
     }
 
     /**
@@ -40,7 +49,7 @@ public record GraphNodes(IntBuffer buffer) {
      * @return retourne la coordonnée E du nœud d'identité donnée,
      */
     public double nodeE(int nodeId) {
-        return Q28_4.asDouble(buffer.get(nodeId * NODE_INTS) + OFFSET_E);
+        return Q28_4.asDouble(nodeInt(nodeId, OFFSET_E));
     }
 
     /**
@@ -50,7 +59,7 @@ public record GraphNodes(IntBuffer buffer) {
      * @return la coordonnée N du nœud d'identité donnée,
      */
     public double nodeN(int nodeId) {
-        return Q28_4.asDouble(buffer.get(nodeId * NODE_INTS + OFFSET_N));
+        return Q28_4.asDouble(nodeInt(nodeId, OFFSET_N));
     }
 
     /**
@@ -60,7 +69,7 @@ public record GraphNodes(IntBuffer buffer) {
      * @return le nombre d'arêtes sortant du nœud d'identité donné,
      */
     public int outDegree(int nodeId) {
-        return extractUnsigned(buffer.get((nodeId * NODE_INTS) + OFFSET_OUT_EDGES), START_NODE, LENGTH_NODE_ID);
+        return extractUnsigned(nodeInt(nodeId, OFFSET_OUT_EDGES), START_NODE, LENGTH_NODE_ID);
     }
 
     /**
@@ -71,8 +80,11 @@ public record GraphNodes(IntBuffer buffer) {
      * @return l'identité de la edgeIndex-ième arête sortant du nœud d'identité nodeId.
      */
     public int edgeId(int nodeId, int edgeIndex) {
-        return extractUnsigned
-                (buffer.get((nodeId * NODE_INTS) + OFFSET_OUT_EDGES), START_EDGE_ID, LENGTH_EDGE_ID) + edgeIndex;
+        return extractUnsigned(nodeInt(nodeId, OFFSET_OUT_EDGES), START_EDGE_ID, LENGTH_EDGE_ID) + edgeIndex;
+    }
+
+    private int nodeInt(int nodeId, int offset) {
+        return buffer.getInt(((long) nodeId * NODE_INTS + offset) * Integer.BYTES);
     }
 
 }
@@ -0,0 +1,384 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static ch.epfl.javelo.data.GraphSectors.SECTORS_PER_ROW;
+import static ch.epfl.javelo.projection.SwissBounds.*;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Outil hors ligne renumérotant les nœuds d'un graphe JaVelo, et en conséquence ses arêtes, afin que des nœuds
+ * proches dans l'espace aient des identités proches, ce qui améliore la localité des accès aux fichiers projetés
+ * en mémoire lors de la recherche d'itinéraire.
+ * <p>
+ * Les nœuds de chaque secteur restent contigus, comme l'exige le fichier sectors.bin : les secteurs sont parcourus
+ * dans l'ordre de la courbe choisie, et les nœuds d'un même secteur dans l'ordre de la même courbe, prolongée
+ * à l'intérieur du secteur, ou dans l'ordre de leur découverte par un parcours en largeur.
+ * Les arêtes sortant d'un nœud restent contiguës et dans le même ordre.
+ * <p>
+ * Les fichiers nodes.bin, edges.bin, profile_ids.bin, sectors.bin et nodes_osmid.bin sont réécrits, elevations.bin
+ * et attributes.bin copiés tels quels. Les fichiers dérivés des identités (index inverse des arêtes,
+ * profils décompressés, facteurs de coût précalculés, points de repère et hiérarchies de contraction)
+ * ne sont pas copiés et doivent être recalculés pour le graphe renuméroté.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class GraphReorderer {
+
+    /**
+     * Énumère les ordres dans lesquels les nœuds peuvent être renumérotés
+     */
+    public enum Order {
+        /**
+         * Ordre de la courbe de Hilbert, qui ne fait jamais de saut entre deux cellules voisines sur la courbe
+         */
+        HILBERT,
+        /**
+         * Ordre de la courbe de Lebesgue (ordre Z), obtenu en entrelaçant les bits des coordonnées
+         */
+        Z_ORDER,
+        /**
+         * Ordre de découverte par un parcours en largeur du graphe non orienté, dans chaque secteur
+         */
+        BFS
+    }
+
+    private static final String[] COPIED_FILES = {"elevations.bin", "attributes.bin"};
+    private static final int NODE_INTS = 3;
+    private static final int OFFSET_OUT_EDGES = 2;
+    private static final int OUT_DEGREE_SHIFT = 28;
+    private static final int SECTOR_BYTES = Integer.BYTES + Short.BYTES;
+    private static final int OFFSET_SECTOR_COUNT = Integer.BYTES;
+    // nombre de bits des coordonnées d'une cellule à l'intérieur d'un secteur, de 10 m de côté environ
+    private static final int CELL_BITS = 8;
+    private static final int SECTOR_BITS = Integer.numberOfTrailingZeros(SECTORS_PER_ROW);
+    private static final int CURVE_BITS = SECTOR_BITS + CELL_BITS;
+
+    private GraphReorderer() {
+    }
+
+    /**
+     * Retourne l'ordre, de la famille donnée, des nœuds du graphe donné : l'élément d'index i du tableau retourné
+     * est l'identité actuelle du nœud qui portera l'identité i
+     *
+     * @param nodes   nœuds du graphe
+     * @param sectors secteurs du graphe
+     * @param edges   arêtes du graphe
+     * @param order   ordre des nœuds
+     * @return la permutation des identités des nœuds
+     */
+    public static int[] nodeOrder(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, Order order) {
+        int nodeCount = nodes.count();
+        int[] sectorIndices = sectorIndices(nodes, sectors);
+
+        // clés triées : indice du nœud sur la courbe dans les 32 bits de poids fort, identité dans les autres ;
+        // le parcours en largeur part des nœuds pris dans l'ordre de Hilbert
+        Order curve = order == Order.Z_ORDER ? Order.Z_ORDER : Order.HILBERT;
+        long[] keys = new long[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            keys[nodeId] = (curveIndex(curve, nodeId, nodes, sectorIndices[nodeId]) << Integer.SIZE) | nodeId;
+        }
+        Arrays.parallelSort(keys);
+        int[] newToOld = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            newToOld[i] = (int) keys[i];
+        }
+        if (order != Order.BFS) return newToOld;
+
+        // regroupement par secteur des nœuds dans l'ordre de leur découverte
+        int[] visitOrder = breadthFirstOrder(nodes, edges, newToOld);
+        for (int rank = 0; rank < nodeCount; rank++) {
+            int nodeId = visitOrder[rank];
+            int sectorIndex = sectorIndices[nodeId];
+            long sectorKey = sectorCurveIndex(Order.HILBERT,
+                    sectorIndex % SECTORS_PER_ROW, sectorIndex / SECTORS_PER_ROW);
+            keys[rank] = (sectorKey << Integer.SIZE) | rank;
+        }
+        Arrays.parallelSort(keys);
+        for (int i = 0; i < nodeCount; i++) {
+            newToOld[i] = visitOrder[(int) keys[i]];
+        }
+        return newToOld;
+    }
+
+    /**
+     * Écrit dans le répertoire target le graphe dont les fichiers se trouvent dans le répertoire source,
+     * renuméroté dans l'ordre donné
+     *
+     * @param source chemin d'accès du répertoire contenant le graphe
+     * @param target chemin d'accès du répertoire, vide ou inexistant, dans lequel écrire le graphe renuméroté
+     * @param order  ordre des nœuds
+     * @return la permutation des identités des nœuds, au sens de nodeOrder
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si le répertoire target existe et n'est pas vide
+     */
+    public static int[] reorder(Path source, Path target, Order order) throws IOException {
+        if (Files.exists(target)) {
+            try (Stream<Path> entries = Files.list(target)) {
+                Preconditions.checkArgument(entries.findAny().isEmpty());
+            }
+        }
+        GraphNodes nodes = new GraphNodes(GraphBuffer.map(source.resolve("nodes.bin")));
+        ByteBuffer sectorsBuffer = BinaryFiles.map(source.resolve("sectors.bin"));
+        GraphSectors sectors = new GraphSectors(sectorsBuffer);
+        GraphEdges edges = new GraphEdges(GraphBuffer.map(source.resolve("edges.bin")),
+                GraphBuffer.map(source.resolve("profile_ids.bin")),
+                GraphBuffer.map(source.resolve("elevations.bin")));
+        LongBuffer osmIds = BinaryFiles.map(source.resolve("nodes_osmid.bin")).asLongBuffer();
+
+        int nodeCount = nodes.count();
+        int edgeCount = edges.count();
+        int[] newToOld = nodeOrder(nodes, sectors, edges, order);
+        int[] oldToNew = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            oldToNew[newToOld[i]] = i;
+        }
+
+        ByteBuffer newNodes = ByteBuffer.allocate(nodeCount * NODE_INTS * Integer.BYTES);
+        ByteBuffer newEdges = ByteBuffer.allocate(edgeCount * GraphEdges.OFFSET_NB_OF_BYTES);
+        ByteBuffer newProfileIds = ByteBuffer.allocate(edgeCount * Integer.BYTES);
+        ByteBuffer newOsmIds = ByteBuffer.allocate(nodeCount * Long.BYTES);
+        IntBuffer nodeInts = newNodes.asIntBuffer();
+        IntBuffer profileIds = newProfileIds.asIntBuffer();
+        LongBuffer osmIdLongs = newOsmIds.asLongBuffer();
+
+        int newEdgeId = 0;
+        for (int newNodeId = 0; newNodeId < nodeCount; newNodeId++) {
+            int oldNodeId = newToOld[newNodeId];
+            int degree = nodes.outDegree(oldNodeId);
+            nodeInts.put(newNodeId * NODE_INTS, nodes.buffer().getInt((long) oldNodeId * NODE_INTS * Integer.BYTES));
+            nodeInts.put(newNodeId * NODE_INTS + 1,
+                    nodes.buffer().getInt(((long) oldNodeId * NODE_INTS + 1) * Integer.BYTES));
+            nodeInts.put(newNodeId * NODE_INTS + OFFSET_OUT_EDGES, (degree << OUT_DEGREE_SHIFT) | newEdgeId);
+            osmIdLongs.put(newNodeId, osmIds.get(oldNodeId));
+
+            for (int i = 0; i < degree; i++, newEdgeId++) {
+                int oldEdgeId = nodes.edgeId(oldNodeId, i);
+                int newOffset = newEdgeId * GraphEdges.OFFSET_NB_OF_BYTES;
+                long oldOffset = (long) oldEdgeId * GraphEdges.OFFSET_NB_OF_BYTES;
+                int targetNodeId = oldToNew[edges.targetNodeId(oldEdgeId)];
+                newEdges.putInt(newOffset, edges.isInverted(oldEdgeId) ? ~targetNodeId : targetNodeId);
+                // longueur, dénivelé et ensemble d'attributs, recopiés tels quels
+                for (int offset = Integer.BYTES; offset < GraphEdges.OFFSET_NB_OF_BYTES; offset += Short.BYTES) {
+                    newEdges.putShort(newOffset + offset, edges.edgesBuffer().getShort(oldOffset + offset));
+                }
+                profileIds.put(newEdgeId, edges.profileId(oldEdgeId));
+            }
+        }
+
+        Files.createDirectories(target);
+        BinaryFiles.write(target.resolve("nodes.bin"), newNodes);
+        BinaryFiles.write(target.resolve("edges.bin"), newEdges);
+        BinaryFiles.write(target.resolve("profile_ids.bin"), newProfileIds);
+        BinaryFiles.write(target.resolve("sectors.bin"), reorderedSectors(sectorsBuffer, sectors, order));
+        BinaryFiles.write(target.resolve("nodes_osmid.bin"), newOsmIds);
+        for (String fileName : COPIED_FILES) {
+            Files.copy(source.resolve(fileName), target.resolve(fileName), REPLACE_EXISTING);
+        }
+        return newToOld;
+    }
+
+    /**
+     * Renumérote dans l'ordre donné le graphe d'un répertoire et l'écrit dans un autre, puis affiche l'écart moyen
+     * entre les identités des extrémités des arêtes avant et après la renumérotation
+     *
+     * @param args le chemin d'accès du répertoire contenant le graphe, celui du répertoire dans lequel écrire
+     *             le graphe renuméroté, et éventuellement l'ordre (hilbert, z_order ou bfs, par défaut hilbert)
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Preconditions.checkArgument(args.length >= 2);
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        Order order = args.length > 2 ? Order.valueOf(args[2].toUpperCase(Locale.ROOT)) : Order.HILBERT;
+
+        long start = System.nanoTime();
+        int[] newToOld = reorder(source, target, order);
+        System.out.printf("%d nœuds renumérotés (%s) en %.1f s%n",
+                newToOld.length, order, (System.nanoTime() - start) / 1e9);
+        System.out.printf("écart moyen entre les extrémités des arêtes : %.1f avant, %.1f après%n",
+                meanEdgeSpan(source), meanEdgeSpan(target));
+    }
+
+    /**
+     * Retourne, pour chaque nœud, l'index du secteur qui le contient d'après le fichier sectors.bin,
+     * ou celui que désignent ses coordonnées s'il n'appartient à aucun secteur
+     */
+    private static int[] sectorIndices(GraphNodes nodes, GraphSectors sectors) {
+        int[] sectorIndices = new int[nodes.count()];
+        Arrays.fill(sectorIndices, -1);
+        for (int y = 0; y < SECTORS_PER_ROW; y++) {
+            for (int x = 0; x < SECTORS_PER_ROW; x++) {
+                for (int nodeId = sectors.startNodeId(x, y); nodeId < sectors.endNodeId(x, y); nodeId++) {
+                    sectorIndices[nodeId] = x + SECTORS_PER_ROW * y;
+                }
+            }
+        }
+        for (int nodeId = 0; nodeId < sectorIndices.length; nodeId++) {
+            if (sectorIndices[nodeId] == -1) {
+                sectorIndices[nodeId] = GraphSectors.sectorX(nodes.nodeE(nodeId))
+                        + SECTORS_PER_ROW * GraphSectors.sectorY(nodes.nodeN(nodeId));
+            }
+        }
+        return sectorIndices;
+    }
+
+    /**
+     * Retourne l'indice, sur la courbe donnée (HILBERT ou Z_ORDER), de la cellule contenant le nœud donné ;
+     * les bits de poids fort de cet indice sont ceux de l'indice de son secteur, si bien que les nœuds
+     * d'un même secteur sont contigus
+     */
+    private static long curveIndex(Order order, int nodeId, GraphNodes nodes, int sectorIndex) {
+        int sectorX = sectorIndex % SECTORS_PER_ROW;
+        int sectorY = sectorIndex / SECTORS_PER_ROW;
+        int x = (sectorX << CELL_BITS) + cell((nodes.nodeE(nodeId) - MIN_E) / WIDTH, sectorX);
+        int y = (sectorY << CELL_BITS) + cell((nodes.nodeN(nodeId) - MIN_N) / HEIGHT, sectorY);
+        return order == Order.HILBERT ? hilbertIndex(x, y) : zIndex(x, y);
+    }
+
+    /**
+     * Retourne la coordonnée, à l'intérieur du secteur d'index donné, de la cellule contenant la position donnée,
+     * exprimée en fraction de la largeur ou de la hauteur de la Suisse
+     */
+    private static int cell(double fraction, int sector) {
+        return Math2.clamp(0, (int) ((fraction * SECTORS_PER_ROW - sector) * (1 << CELL_BITS)), (1 << CELL_BITS) - 1);
+    }
+
+    private static long sectorCurveIndex(Order order, int sectorX, int sectorY) {
+        int x = sectorX << CELL_BITS;
+        int y = sectorY << CELL_BITS;
+        return (order == Order.Z_ORDER ? zIndex(x, y) : hilbertIndex(x, y)) >>> (2 * CELL_BITS);
+    }
+
+    private static long hilbertIndex(int x, int y) {
+        int side = 1 << CURVE_BITS;
+        long index = 0;
+        for (int s = side >>> 1; s > 0; s >>>= 1) {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            // rotation du quadrant, afin que la courbe y soit parcourue dans la bonne orientation
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return index;
+    }
+
+    private static long zIndex(int x, int y) {
+        return interleave(x) | (interleave(y) << 1);
+    }
+
+    /**
+     * Retourne l'entier dont les bits de rang pair sont ceux de l'entier donné, sur CURVE_BITS bits
+     */
+    private static long interleave(int value) {
+        long bits = value & ((1L << CURVE_BITS) - 1);
+        bits = (bits | (bits << 8)) & 0x00FF00FFL;
+        bits = (bits | (bits << 4)) & 0x0F0F0F0FL;
+        bits = (bits | (bits << 2)) & 0x33333333L;
+        bits = (bits | (bits << 1)) & 0x55555555L;
+        return bits;
+    }
+
+    /**
+     * Retourne les nœuds dans l'ordre de leur découverte par un parcours en largeur du graphe non orienté,
+     * chaque nouvelle composante étant commencée au premier nœud non découvert de l'ordre donné
+     */
+    private static int[] breadthFirstOrder(GraphNodes nodes, GraphEdges edges, int[] seeds) {
+        int nodeCount = nodes.count();
+        GraphReverseEdges reverseEdges = GraphReverseEdges.of(nodes, edges);
+        boolean[] visited = new boolean[nodeCount];
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int seed : seeds) {
+            if (visited[seed]) continue;
+            visited[seed] = true;
+            queue[tail++] = seed;
+            while (head < tail) {
+                int nodeId = queue[head++];
+                for (int i = 0; i < nodes.outDegree(nodeId); i++) {
+                    int neighbourId = edges.targetNodeId(nodes.edgeId(nodeId, i));
+                    if (!visited[neighbourId]) {
+                        visited[neighbourId] = true;
+                        queue[tail++] = neighbourId;
+                    }
+                }
+                for (int i = 0; i < reverseEdges.inDegree(nodeId); i++) {
+                    int neighbourId = reverseEdges.sourceNodeId(nodeId, i);
+                    if (!visited[neighbourId]) {
+                        visited[neighbourId] = true;
+                        queue[tail++] = neighbourId;
+                    }
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Retourne le contenu du fichier sectors.bin du graphe renuméroté : chaque secteur conserve son nombre de nœuds,
+     * et les secteurs se suivent dans l'ordre de la courbe
+     */
+    private static ByteBuffer reorderedSectors(ByteBuffer sectorsBuffer, GraphSectors sectors, Order order) {
+        int sectorCount = sectorsBuffer.capacity() / SECTOR_BYTES;
+        Order curve = order == Order.Z_ORDER ? Order.Z_ORDER : Order.HILBERT;
+        long[] keys = new long[sectorCount];
+        for (int sectorIndex = 0; sectorIndex < sectorCount; sectorIndex++) {
+            keys[sectorIndex] = (sectorCurveIndex(curve, sectorIndex % SECTORS_PER_ROW, sectorIndex / SECTORS_PER_ROW)
+                    << Integer.SIZE) | sectorIndex;
+        }
+        Arrays.sort(keys);
+
+        ByteBuffer newSectors = ByteBuffer.allocate(sectorsBuffer.capacity());
+        int startNodeId = 0;
+        for (long key : keys) {
+            int sectorIndex = (int) key;
+            int x = sectorIndex % SECTORS_PER_ROW;
+            int y = sectorIndex / SECTORS_PER_ROW;
+            int count = sectors.endNodeId(x, y) - sectors.startNodeId(x, y);
+            newSectors.putInt(sectorIndex * SECTOR_BYTES, startNodeId);
+            newSectors.putShort(sectorIndex * SECTOR_BYTES + OFFSET_SECTOR_COUNT, (short) count);
+            startNodeId += count;
+        }
+        return newSectors;
+    }
+
+    /**
+     * Retourne l'écart moyen entre les identités des nœuds de départ et d'arrivée des arêtes du graphe
+     * dont les fichiers se trouvent dans le répertoire donné
+     */
+    private static double meanEdgeSpan(Path basePath) throws IOException {
+        GraphNodes nodes = new GraphNodes(GraphBuffer.map(basePath.resolve("nodes.bin")));
+        GraphEdges edges = new GraphEdges(GraphBuffer.map(basePath.resolve("edges.bin")),
+                GraphBuffer.of(IntBuffer.allocate(0)), GraphBuffer.of(ShortBuffer.allocate(0)));
+        long span = 0;
+        long count = 0;
+        for (int nodeId = 0; nodeId < nodes.count(); nodeId++) {
+            for (int i = 0; i < nodes.outDegree(nodeId); i++) {
+                span += Math.abs(edges.targetNodeId(nodes.edgeId(nodeId, i)) - nodeId);
+                count++;
+            }
+        }
+        return count == 0 ? 0 : (double) span / count;
+    }
+}
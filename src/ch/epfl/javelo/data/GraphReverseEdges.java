@@ -0,0 +1,153 @@
+package ch.epfl.javelo.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Représente l'index inverse des arêtes du graphe JaVelo, qui donne pour chaque nœud les arêtes qui y arrivent
+ * ainsi que leur nœud de départ.
+ * Le fichier reverse_edges.bin contient une somme de contrôle des fichiers nodes.bin et edges.bin dont il est dérivé,
+ * puis les nodeCount + 1 positions de début des arêtes entrantes de chaque nœud,
+ * suivies, pour chaque arête entrante, de son identité et de l'identité de son nœud de départ.
+ *
+ * @param offsets la mémoire tampon contenant, pour chaque nœud, la position de sa première arête entrante,
+ *                suivie de la position de fin de la dernière
+ * @param edges   la mémoire tampon contenant, pour chaque arête entrante, son identité et son nœud de départ
+ * @author Georges Moussalli (316630)
+ */
+public record GraphReverseEdges(IntBuffer offsets, IntBuffer edges) {
+
+    public static final String FILE_NAME = "reverse_edges.bin";
+
+    private static final int OFFSET_CHECKSUM = 0;
+    private static final int OFFSET_OFFSETS = OFFSET_CHECKSUM + Long.BYTES;
+
+    private static final int OFFSET_EDGE_ID = 0;
+    private static final int OFFSET_SOURCE_NODE_ID = OFFSET_EDGE_ID + 1;
+    private static final int EDGE_INTS = OFFSET_SOURCE_NODE_ID + 1;
+
+    /**
+     * Retourne l'index inverse des arêtes données, calculé en mémoire en deux passes sur les nœuds
+     *
+     * @param nodes nœuds du graphe
+     * @param edges arêtes du graphe
+     * @return l'index inverse des arêtes
+     */
+    public static GraphReverseEdges of(GraphNodes nodes, GraphEdges edges) {
+        int nodeCount = nodes.count();
+        int[] offsets = new int[nodeCount + 1];
+        int edgeCount = 0;
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < nodes.outDegree(nodeId); i++) {
+                offsets[edges.targetNodeId(nodes.edgeId(nodeId, i)) + 1]++;
+                edgeCount++;
+            }
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            offsets[nodeId + 1] += offsets[nodeId];
+        }
+
+        int[] next = new int[nodeCount];
+        System.arraycopy(offsets, 0, next, 0, nodeCount);
+        int[] reverse = new int[edgeCount * EDGE_INTS];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < nodes.outDegree(nodeId); i++) {
+                int edgeId = nodes.edgeId(nodeId, i);
+                int position = next[edges.targetNodeId(edgeId)]++ * EDGE_INTS;
+                reverse[position + OFFSET_EDGE_ID] = edgeId;
+                reverse[position + OFFSET_SOURCE_NODE_ID] = nodeId;
+            }
+        }
+        return new GraphReverseEdges(IntBuffer.wrap(offsets), IntBuffer.wrap(reverse));
+    }
+
+    /**
+     * Retourne l'index inverse des arêtes du graphe se trouvant dans le répertoire donné, projeté en mémoire
+     * depuis le fichier reverse_edges.bin ; si celui-ci n'existe pas ou ne correspond plus au graphe,
+     * l'index est calculé puis écrit dans le répertoire, dans la mesure du possible
+     *
+     * @param basePath chemin d'accès du répertoire contenant le graphe
+     * @param nodes    nœuds du graphe chargés depuis ce répertoire
+     * @param edges    arêtes du graphe chargées depuis ce répertoire
+     * @return l'index inverse des arêtes
+     * @throws IOException en cas d'erreur d'entrée/sortie lors de la lecture des fichiers du graphe
+     */
+    public static GraphReverseEdges loadOrCompute(Path basePath, GraphNodes nodes, GraphEdges edges)
+            throws IOException {
+        Path path = basePath.resolve(FILE_NAME);
+        int nodeCount = nodes.count();
+        long fileBytes = OFFSET_OFFSETS + fileInts(nodeCount, edges.count()) * Integer.BYTES;
+        // un index de plus de 2 Go ne tient pas dans une mémoire tampon : il est recalculé à chaque chargement
+        if (fileBytes > Integer.MAX_VALUE) return of(nodes, edges);
+        long checksum = BinaryFiles.checksum(basePath.resolve("nodes.bin"), basePath.resolve("edges.bin"));
+
+        if (Files.exists(path) && Files.size(path) == fileBytes) {
+            ByteBuffer buffer = BinaryFiles.map(path);
+            if (buffer.getLong(OFFSET_CHECKSUM) == checksum) {
+                IntBuffer ints = buffer.slice(OFFSET_OFFSETS, buffer.capacity() - OFFSET_OFFSETS).asIntBuffer();
+                return new GraphReverseEdges(ints.slice(0, nodeCount + 1),
+                        ints.slice(nodeCount + 1, ints.capacity() - nodeCount - 1));
+            }
+        }
+
+        GraphReverseEdges reverseEdges = of(nodes, edges);
+        ByteBuffer bytes = ByteBuffer.allocate((int) fileBytes);
+        bytes.putLong(OFFSET_CHECKSUM, checksum);
+        bytes.slice(OFFSET_OFFSETS, bytes.capacity() - OFFSET_OFFSETS).asIntBuffer()
+                .put(reverseEdges.offsets().duplicate().rewind())
+                .put(reverseEdges.edges().duplicate().rewind());
+        try {
+            BinaryFiles.write(path, bytes);
+        } catch (IOException e) {
+            // Répertoire en lecture seule : l'index reste en mémoire et sera recalculé au prochain chargement
+        }
+        return reverseEdges;
+    }
+
+    /**
+     * Retourne le nombre d'entiers du fichier reverse_edges.bin, somme de contrôle exclue, d'un graphe comptant les nombres de nœuds
+     * et d'arêtes donnés
+     *
+     * @param nodeCount nombre de nœuds
+     * @param edgeCount nombre d'arêtes
+     * @return le nombre d'entiers du fichier
+     */
+    public static long fileInts(int nodeCount, int edgeCount) {
+        return nodeCount + 1 + (long) edgeCount * EDGE_INTS;
+    }
+
+    /**
+     * Retourne le nombre d'arêtes arrivant au nœud d'identité donnée
+     *
+     * @param nodeId identité du noeud
+     * @return le nombre d'arêtes arrivant au nœud
+     */
+    public int inDegree(int nodeId) {
+        return offsets.get(nodeId + 1) - offsets.get(nodeId);
+    }
+
+    /**
+     * Retourne l'identité de la edgeIndex-ième arête arrivant au nœud d'identité nodeId
+     *
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête parmi celles arrivant au nœud
+     * @return l'identité de l'arête
+     */
+    public int edgeId(int nodeId, int edgeIndex) {
+        return edges.get((offsets.get(nodeId) + edgeIndex) * EDGE_INTS + OFFSET_EDGE_ID);
+    }
+
+    /**
+     * Retourne l'identité du nœud de départ de la edgeIndex-ième arête arrivant au nœud d'identité nodeId
+     *
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête parmi celles arrivant au nœud
+     * @return l'identité du nœud de départ de l'arête
+     */
+    public int sourceNodeId(int nodeId, int edgeIndex) {
+        return edges.get((offsets.get(nodeId) + edgeIndex) * EDGE_INTS + OFFSET_SOURCE_NODE_ID);
+    }
+}
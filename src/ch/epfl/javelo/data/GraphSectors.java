@@ -12,17 +12,27 @@ import static java.lang.Short.toUnsignedInt;
 
 /**
  * Représente le tableau contenant les 16384 secteurs de JaVelo
- * @buffer la mémoire tampon contenant la valeur des attributs de la totalité des secteurs
+ * @buffer la zone de mémoire contenant la valeur des attributs de la totalité des secteurs
  * @author Georges Moussalli (316630)
  */
 
-public record GraphSectors(ByteBuffer buffer) {
+public record GraphSectors(GraphBuffer buffer) {
     private static final int OFFSET_ID = Integer.BYTES + Short.BYTES;
     private static final int OFFSET_NB = OFFSET_ID - Short.BYTES;
-    private static final double NB_SECTOR_PER_ROW = 128.0;
+    public static final int SECTORS_PER_ROW = 128;
+    private static final double NB_SECTOR_PER_ROW = SECTORS_PER_ROW;
     private static final double WIDTH_SECTOR = WIDTH / NB_SECTOR_PER_ROW;
     private static final double HEIGHT_SECTOR = HEIGHT / NB_SECTOR_PER_ROW;
 
+    /**
+     * Construit le tableau des secteurs dont les attributs se trouvent dans la mémoire tampon donnée
+     *
+     * @param buffer la mémoire tampon contenant la valeur des attributs de la totalité des secteurs
+     */
+    public GraphSectors(ByteBuffer buffer) {
+        this(GraphBuffer.of(buffer));
+    }
+
     /**
      * Un enregistrement imbriqué nommé Sector, représentant un secteur
      */
@@ -39,30 +49,71 @@ public record GraphSectors(ByteBuffer buffer) {
      */
     public List<Sector> sectorsInArea(PointCh center, double distance) {
 
-        int xDown = (int) ((center.e() - distance - MIN_E) / WIDTH_SECTOR);
-        int xUp = (int) ((center.e() + distance - MIN_E) / WIDTH_SECTOR);
-        int yDown = (int) ((center.n() - distance - MIN_N) / HEIGHT_SECTOR);
-        int yUp = (int) ((center.n() + distance - MIN_N) / HEIGHT_SECTOR);
-
-        xDown = Math2.clamp(0, xDown, 127);
-        xUp = Math2.clamp(0, xUp, 127);
-        yDown = Math2.clamp(0, yDown, 127);
-        yUp = Math2.clamp(0, yUp, 127);
-
+        int xDown = sectorX(center.e() - distance);
+        int xUp = sectorX(center.e() + distance);
+        int yDown = sectorY(center.n() - distance);
+        int yUp = sectorY(center.n() + distance);
 
         ArrayList<Sector> intersection = new ArrayList<>();
 
         for (int x = xDown; x <= xUp; x++) {
             for (int y = yDown; y <= yUp; y++) {
-                int index = x + ((int) (NB_SECTOR_PER_ROW)) * y;
-                intersection.add(new Sector
-                        (buffer.getInt(index * OFFSET_ID),
-                                buffer.getInt(index * OFFSET_ID) + toUnsignedInt(buffer.getShort(OFFSET_ID * index + OFFSET_NB))));
+                intersection.add(new Sector(startNodeId(x, y), endNodeId(x, y)));
             }
         }
         return intersection;
     }
 
+    /**
+     * Retourne l'index de la colonne de secteurs contenant la coordonnée E donnée,
+     * ramené entre 0 et 127 si la coordonnée est hors de la Suisse
+     *
+     * @param e coordonnée E
+     * @return l'index de la colonne de secteurs
+     */
+    public static int sectorX(double e) {
+        return Math2.clamp(0, (int) ((e - MIN_E) / WIDTH_SECTOR), SECTORS_PER_ROW - 1);
+    }
+
+    /**
+     * Retourne l'index de la ligne de secteurs contenant la coordonnée N donnée,
+     * ramené entre 0 et 127 si la coordonnée est hors de la Suisse
+     *
+     * @param n coordonnée N
+     * @return l'index de la ligne de secteurs
+     */
+    public static int sectorY(double n) {
+        return Math2.clamp(0, (int) ((n - MIN_N) / HEIGHT_SECTOR), SECTORS_PER_ROW - 1);
+    }
+
+    /**
+     * Retourne l'identité du premier nœud du secteur de colonne et de ligne données
+     *
+     * @param x index de la colonne du secteur
+     * @param y index de la ligne du secteur
+     * @return l'identité du premier nœud du secteur
+     */
+    public int startNodeId(int x, int y) {
+        return buffer.getInt((long) sectorIndex(x, y) * OFFSET_ID);
+    }
+
+    /**
+     * Retourne l'identité du nœud suivant le dernier nœud du secteur de colonne et de ligne données
+     *
+     * @param x index de la colonne du secteur
+     * @param y index de la ligne du secteur
+     * @return l'identité du nœud suivant le dernier nœud du secteur
+     */
+    public int endNodeId(int x, int y) {
+        int index = sectorIndex(x, y);
+        return buffer.getInt((long) index * OFFSET_ID)
+                + toUnsignedInt(buffer.getShort((long) OFFSET_ID * index + OFFSET_NB));
+    }
+
+    private static int sectorIndex(int x, int y) {
+        return x + SECTORS_PER_ROW * y;
+    }
+
 }
 
 
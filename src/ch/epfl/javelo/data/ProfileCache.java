@@ -0,0 +1,123 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Représente un cache concurrent et borné des profils décompressés des arêtes, indexé par identité de profil.
+ * Les échantillons y sont conservés dans le sens de la voie OSM, si bien qu'une arête et son inverse,
+ * qui partagent le même profil, partagent aussi le même tableau.
+ * <p>
+ * Le cache est à correspondance directe : chaque identité de profil n'a qu'une case possible, et un nouveau profil
+ * remplace celui qui l'occupait. Ni la lecture ni l'ajout ne prennent de verrou ; deux fils demandant
+ * simultanément le même profil absent peuvent donc le décompresser tous deux, sans autre conséquence.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class ProfileCache {
+
+    /**
+     * Nombre de cases par défaut
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    // nombre estimé d'octets occupés par une entrée et l'en-tête de son tableau, en plus des échantillons
+    private static final long ENTRY_OVERHEAD_BYTES = 48;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Construit un cache vide ayant au moins le nombre de cases donné, arrondi à une puissance de deux
+     *
+     * @param capacity nombre minimal de cases
+     * @throws IllegalArgumentException si le nombre de cases n'est pas strictement positif ou dépasse 2^30
+     */
+    public ProfileCache(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && capacity <= 1 << 30);
+        int slotCount = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        slots = new AtomicReferenceArray<>(slotCount);
+        mask = slotCount - 1;
+    }
+
+    /**
+     * Retourne les échantillons, dans le sens de la voie OSM, du profil de l'arête d'identité donnée,
+     * qui sont décompressés et ajoutés au cache s'ils ne s'y trouvent pas ; le tableau retourné ne doit pas
+     * être modifié. L'arête doit posséder un profil
+     *
+     * @param edges  arêtes du graphe
+     * @param edgeId identité de l'arête
+     * @return les échantillons du profil de l'arête, dans le sens de la voie OSM
+     */
+    float[] osmProfileSamples(GraphEdges edges, int edgeId) {
+        int profileId = edges.profileId(edgeId);
+        int slot = slot(profileId);
+        Entry entry = slots.get(slot);
+        if (entry != null && entry.profileId == profileId) {
+            hits.increment();
+            return entry.samples;
+        }
+
+        misses.increment();
+        Entry added = new Entry(profileId, edges.osmProfileSamples(edgeId));
+        Entry replaced = slots.getAndSet(slot, added);
+        if (replaced == null) {
+            size.incrementAndGet();
+        } else {
+            bytes.addAndGet(-replaced.bytes());
+            if (replaced.profileId != profileId) evictions.increment();
+        }
+        bytes.addAndGet(added.bytes());
+        return added.samples;
+    }
+
+    /**
+     * Retourne les statistiques du cache
+     *
+     * @return les statistiques du cache
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size.get(), bytes.get());
+    }
+
+    private int slot(int profileId) {
+        int hash = profileId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private record Entry(int profileId, float[] samples) {
+        long bytes() {
+            return ENTRY_OVERHEAD_BYTES + (long) samples.length * Float.BYTES;
+        }
+    }
+
+    /**
+     * Représente les statistiques d'un cache de profils
+     *
+     * @param hits      nombre de lectures ayant trouvé le profil
+     * @param misses    nombre de lectures n'ayant pas trouvé le profil, qui a donc été décompressé
+     * @param evictions nombre de profils remplacés par un autre
+     * @param size      nombre de profils du cache
+     * @param bytes     nombre estimé d'octets occupés par les profils du cache
+     */
+    public record Stats(long hits, long misses, long evictions, int size, long bytes) {
+
+        /**
+         * Retourne la proportion des lectures ayant trouvé le profil, ou 0 s'il n'y en a eu aucune
+         *
+         * @return le taux de succès du cache
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
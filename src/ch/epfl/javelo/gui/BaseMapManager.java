@@ -7,8 +7,8 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Point2D;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
 import javafx.scene.layout.Pane;
-import java.io.IOException;
 import ch.epfl.javelo.projection.PointCh;
 import ch.epfl.javelo.projection.PointWebMercator;
 
@@ -20,6 +20,7 @@ import ch.epfl.javelo.projection.PointWebMercator;
  */
 public final class BaseMapManager {
     private final static int TILE_LENGTH = 256;
+    private final static int MAX_PLACEHOLDER_DEPTH = 4;
 
     private final Pane pane;
     private final TileManager tileManager;
@@ -27,6 +28,7 @@ public final class BaseMapManager {
     private final GraphicsContext graphics;
     private final Canvas canvas;
     private final ObjectProperty<Point2D> mousePosition;
+    private final TilePrefetcher prefetcher;
     private boolean redrawNeeded;
 
     /**
@@ -41,6 +43,7 @@ public final class BaseMapManager {
 
         this.mapView = mapView;
         this.tileManager = tileManager;
+        this.prefetcher = new TilePrefetcher(tileManager);
 
         mousePosition = new SimpleObjectProperty<>();
 
@@ -106,6 +109,10 @@ public final class BaseMapManager {
         canvas.widthProperty().addListener(o -> redrawOnNextPulse());
         canvas.heightProperty().addListener(o -> redrawOnNextPulse());
         mapView.addListener(o -> redrawOnNextPulse());
+
+        // préchargement des tuiles entourant la portion affichée
+        mapView.addListener(o -> prefetcher.prefetchAround(mapView.get(), canvas.getWidth(), canvas.getHeight()));
+        tileManager.addTileListener(tileId -> Platform.runLater(this::redrawOnNextPulse));
     }
 
 
@@ -147,17 +154,42 @@ public final class BaseMapManager {
 
             for (int y = firstTile.y(); y <= firstTile.y() + numberOfTilesPerColumn; y++) {
 
-                TileManager.TileId currentTile = new TileManager.TileId(mapView.get().zoomLevel(), x, y);
-                try {
-                    graphics.drawImage(
-                            tileManager.imageForTileAt(currentTile),
-                            TILE_LENGTH * x - topLeftX,
-                            TILE_LENGTH * y - topLeftY
-                    );
-                } catch (IOException ioException) {
-                    // on ne dessine rien
+                if (x < 0 || y < 0 || !TileManager.TileId.isValid(firstTile.zoomLevel(), x, y)) continue;
+
+                TileManager.TileId currentTile = new TileManager.TileId(firstTile.zoomLevel(), x, y);
+                double tileX = TILE_LENGTH * x - topLeftX;
+                double tileY = TILE_LENGTH * y - topLeftY;
+                Image image = tileManager.imageIfCached(currentTile);
+                if (image != null) {
+                    graphics.drawImage(image, tileX, tileY);
+                } else {
+                    // la tuile est chargée en arrière-plan, et la carte redessinée à son arrivée
+                    tileManager.imageForTileAtAsync(currentTile);
+                    graphics.clearRect(tileX, tileY, TILE_LENGTH, TILE_LENGTH);
+                    drawPlaceholder(currentTile, tileX, tileY);
                 }
             }
         }
     }
+
+    /**
+     * Dessine à la position donnée la portion agrandie de la plus proche tuile parente (de niveau de zoom inférieur)
+     * de la tuile donnée qui se trouve en mémoire, s'il y en a une
+     */
+    private void drawPlaceholder(TileManager.TileId tileId, double tileX, double tileY) {
+        int maxDepth = Math.min(MAX_PLACEHOLDER_DEPTH, tileId.zoomLevel());
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            Image parent = tileManager.peekImage(new TileManager.TileId(
+                    tileId.zoomLevel() - depth, tileId.x() >> depth, tileId.y() >> depth));
+            if (parent != null) {
+                double sourceLength = (double) TILE_LENGTH / (1 << depth);
+                int mask = (1 << depth) - 1;
+                graphics.drawImage(parent,
+                        (tileId.x() & mask) * sourceLength, (tileId.y() & mask) * sourceLength,
+                        sourceLength, sourceLength,
+                        tileX, tileY, TILE_LENGTH, TILE_LENGTH);
+                return;
+            }
+        }
+    }
 }
@@ -0,0 +1,168 @@
+package ch.epfl.javelo.gui;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+
+/**
+ * Représente un stockage de tuiles sous forme d'un fichier par tuile, de chemin d'accès zoom/x/y.png
+ * dans un répertoire donné, dont la taille totale peut être limitée par un quota.
+ * <p>
+ * Lorsque le quota est fini, le répertoire est parcouru lors de la première écriture afin de connaître la taille
+ * des tuiles et l'instant de leur dernière modification, qui tient lieu d'instant de dernier accès ;
+ * lorsqu'il est dépassé, les tuiles sont évincées selon la politique donnée jusqu'à ce que la taille totale
+ * redescende à 90 % du quota, afin de ne pas évincer à chaque écriture.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class DirectoryTileStore implements TileStore {
+
+    private static final double LOW_WATER_MARK = 0.9;
+    private static final String TILE_EXTENSION = ".png";
+
+    private final Path directory;
+    private final long quotaBytes;
+    private final EvictionPolicy policy;
+    private volatile TileUsage.Index usages;
+
+    /**
+     * Construit un stockage sans quota dans le répertoire donné
+     *
+     * @param directory chemin d'accès au répertoire
+     */
+    public DirectoryTileStore(Path directory) {
+        this(directory, Long.MAX_VALUE, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Construit un stockage dans le répertoire donné, limité au quota donné
+     *
+     * @param directory  chemin d'accès au répertoire
+     * @param quotaBytes nombre maximal d'octets occupés par les tuiles
+     * @param policy     politique d'éviction
+     * @throws IllegalArgumentException si le quota n'est pas strictement positif
+     */
+    public DirectoryTileStore(Path directory, long quotaBytes, EvictionPolicy policy) {
+        Preconditions.checkArgument(quotaBytes > 0);
+        this.directory = directory;
+        this.quotaBytes = quotaBytes;
+        this.policy = policy;
+    }
+
+    @Override
+    public Path path() {
+        return directory;
+    }
+
+    @Override
+    public boolean contains(TileManager.TileId tileId) {
+        return Files.exists(tilePath(tileId));
+    }
+
+    @Override
+    public byte[] read(TileManager.TileId tileId) throws IOException {
+        try {
+            byte[] tile = Files.readAllBytes(tilePath(tileId));
+            TileUsage.Index index = usages;
+            if (index != null) index.recordAccess(tileId);
+            return tile;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void write(TileManager.TileId tileId, byte[] tile) throws IOException {
+        Path finalPath = tilePath(tileId);
+        Files.createDirectories(finalPath.getParent());
+        // le fichier est écrit sous un nom temporaire propre à cette écriture, afin de ne jamais lire une tuile
+        // partiellement écrite, ni mélanger deux écritures simultanées de la même tuile
+        Path partialPath = Files.createTempFile(finalPath.getParent(), finalPath.getFileName().toString(), ".part");
+        try {
+            Files.write(partialPath, tile);
+            Files.move(partialPath, finalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(partialPath);
+            throw e;
+        }
+
+        if (quotaBytes == Long.MAX_VALUE) return;
+        TileUsage.Index index = usages();
+        index.add(tileId, tile.length, System.currentTimeMillis());
+        if (index.totalBytes() > quotaBytes) evict(index);
+    }
+
+    @Override
+    public long sizeBytes() throws IOException {
+        return usages().totalBytes();
+    }
+
+    private synchronized void evict(TileUsage.Index index) throws IOException {
+        if (index.totalBytes() <= quotaBytes) return;
+        for (TileManager.TileId victim : index.victims(policy, (long) (quotaBytes * LOW_WATER_MARK))) {
+            Files.deleteIfExists(tilePath(victim));
+            index.remove(victim);
+        }
+    }
+
+    private TileUsage.Index usages() throws IOException {
+        TileUsage.Index index = usages;
+        if (index != null) return index;
+        synchronized (this) {
+            if (usages == null) usages = scan();
+            return usages;
+        }
+    }
+
+    private TileUsage.Index scan() throws IOException {
+        TileUsage.Index index = new TileUsage.Index();
+        if (!Files.isDirectory(directory)) return index;
+        // les écritures simultanées créent et renomment des fichiers temporaires pendant le parcours,
+        // si bien que les fichiers disparus entre leur énumération et leur lecture sont ignorés
+        Files.walkFileTree(directory, Set.of(), 3, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (!file.getFileName().toString().endsWith(TILE_EXTENSION)) return FileVisitResult.CONTINUE;
+                TileManager.TileId tileId = tileId(directory.relativize(file));
+                if (tileId != null) index.add(tileId, attributes.size(), attributes.lastModifiedTime().toMillis());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (e instanceof NoSuchFileException) return FileVisitResult.CONTINUE;
+                throw e;
+            }
+        });
+        return index;
+    }
+
+    private Path tilePath(TileManager.TileId tileId) {
+        return directory.resolve(tileId.zoomLevel() + "/" + tileId.x() + "/" + tileId.y() + TILE_EXTENSION);
+    }
+
+    /**
+     * Retourne l'identité de la tuile dont le chemin relatif au répertoire est donné, ou null s'il n'est pas de la
+     * forme zoom/x/y.png
+     */
+    private static TileManager.TileId tileId(Path relativePath) {
+        if (relativePath.getNameCount() != 3) return null;
+        try {
+            String fileName = relativePath.getFileName().toString();
+            return new TileManager.TileId(
+                    Integer.parseInt(relativePath.getName(0).toString()),
+                    Integer.parseInt(relativePath.getName(1).toString()),
+                    Integer.parseInt(fileName.substring(0, fileName.length() - TILE_EXTENSION.length())));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -14,7 +14,10 @@ import java.util.function.Consumer;
 import ch.epfl.javelo.data.Graph;
 import ch.epfl.javelo.routing.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.geometry.Orientation;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -45,8 +48,15 @@ public final class JaVelo extends Application {
     private static final String TILE_CACHE_GERMAN = "german-cache";
     private static final String TILE_CACHE_CYCLOSM ="cyclosm-cache";
     private static final String TILE_CACHE_HUMANITARIAN ="humanitarian-cache";
+    private static final long TILE_CACHE_QUOTA_BYTES = 1L << 30;
+    private static final double OFFLINE_TILES_BUFFER = 300;
+    private static final int OFFLINE_TILES_MIN_ZOOM = 12;
+    private static final int OFFLINE_TILES_MAX_ZOOM = 16;
     private static String cache;
     private static String server;
+    // vrai ssi la politique d'utilisation du serveur de tuiles choisi autorise le téléchargement en masse ; ce n'est
+    // le cas d'aucun des serveurs de la communauté OpenStreetMap proposés ci-dessous
+    private static boolean bulkDownloadAllowed;
     private static final String GPX_FILE = "javelo.gpx";
 
 
@@ -94,8 +104,11 @@ public final class JaVelo extends Application {
 
         Graph graph = Graph.loadFrom(Path.of(DATA_DIRECTORY));
         Path cache = Path.of(cacheName);
-        TileManager tileManager = new TileManager(cache, serverName);
-        RouteComputer routeComputer = new RouteComputer(graph, fc);
+        TileStore tileStore = new DirectoryTileStore(cache, TILE_CACHE_QUOTA_BYTES, TileStore.EvictionPolicy.LRU);
+        TileManager tileManager =
+                new TileManager(tileStore, serverName, TileManager.DEFAULT_MEMORY_CACHE_BYTES);
+        RouteComputer routeComputer =
+                new RouteComputer(graph, PrecomputedCostFunction.loadOrCompute(graph, fc, Path.of(DATA_DIRECTORY)));
         RouteBean bean = new RouteBean(routeComputer);
         bean.setHighlightedPosition(1000);
 
@@ -145,6 +158,35 @@ public final class JaVelo extends Application {
         });
         menu.getItems().add(menuItem);
 
+        if (bulkDownloadAllowed) {
+            MenuItem offlineTilesItem = new MenuItem("Download route tiles");
+            BooleanProperty prewarming = new SimpleBooleanProperty();
+            offlineTilesItem.disableProperty().bind(bean.routeProperty().isNull().or(prewarming));
+            offlineTilesItem.setOnAction(a -> {
+                int tileCount = RouteTilePrewarmer.corridorTiles(bean.getRoute().points(), OFFLINE_TILES_BUFFER,
+                        OFFLINE_TILES_MIN_ZOOM, OFFLINE_TILES_MAX_ZOOM).size();
+                Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION,
+                        "Télécharger jusqu'à " + tileCount + " tuiles autour de l'itinéraire ?",
+                        ButtonType.OK, ButtonType.CANCEL);
+                if (confirmation.showAndWait().filter(b -> b == ButtonType.OK).isEmpty()) return;
+
+                prewarming.set(true);
+                RouteTilePrewarmer.start(tileManager, bean.getRoute(), OFFLINE_TILES_BUFFER,
+                                OFFLINE_TILES_MIN_ZOOM, OFFLINE_TILES_MAX_ZOOM,
+                                progress -> Platform.runLater(() -> offlineTilesItem.setText("Download route tiles ("
+                                        + (progress.done() + progress.failed()) + "/" + progress.total() + ")")))
+                        .completion()
+                        .thenAccept(progress -> Platform.runLater(() -> {
+                            prewarming.set(false);
+                            offlineTilesItem.setText("Download route tiles");
+                            if (progress.failed() > 0) {
+                                errorConsumer.accept("Impossible de télécharger " + progress.failed() + " tuiles !");
+                            }
+                        }));
+            });
+            menu.getItems().add(offlineTilesItem);
+        }
+
         menuBar.getMenus().add(menu);
 
         BorderPane mainPane = new BorderPane();
@@ -195,6 +237,7 @@ public final class JaVelo extends Application {
         osm.setOnAction(a -> {
             cache = TILE_CACHE_OSM;
             server = TILE_SERVER_HOST_OSM;
+            bulkDownloadAllowed = false;
             try {
                 bikeChoice(stage);
             } catch (IOException e) {
@@ -206,6 +249,7 @@ public final class JaVelo extends Application {
         german.setOnAction(a -> {
             cache = TILE_CACHE_GERMAN;
             server = TILE_SERVER_HOST_GERMAN;
+            bulkDownloadAllowed = false;
             try {
                 bikeChoice(stage);
             } catch (IOException e) {
@@ -216,6 +260,7 @@ public final class JaVelo extends Application {
         cyclosm.setOnAction(a -> {
             cache = TILE_CACHE_CYCLOSM;
             server = TILE_SERVER_HOST_CYCLOSM;
+            bulkDownloadAllowed = false;
             try {
                 bikeChoice(stage);
             } catch (IOException e) {
@@ -226,6 +271,7 @@ public final class JaVelo extends Application {
         humanitarian.setOnAction(a -> {
             cache = TILE_CACHE_HUMANITARIAN;
             server = TILE_SERVER_HOST_HUMANITARIAN;
+            bulkDownloadAllowed = false;
             try {
                 bikeChoice(stage);
             } catch (IOException e) {
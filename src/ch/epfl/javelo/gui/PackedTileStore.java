@@ -0,0 +1,331 @@
+package ch.epfl.javelo.gui;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Représente un stockage de tuiles dans un unique fichier, auquel les tuiles sont ajoutées les unes après les autres,
+ * accompagné d'un fichier d'index (de même nom, suffixé par .idx) donnant, pour chaque tuile ajoutée,
+ * son identité (zoom, x et y, 3 int), sa position (long) et sa taille (int) dans le fichier des tuiles.
+ * Les deux fichiers commencent par un même numéro de génération (long), changé à chaque compactage.
+ * <p>
+ * Une tuile réécrite est simplement ajoutée à nouveau, l'entrée la plus récente de l'index l'emportant.
+ * Les lectures se font au travers d'une projection en mémoire du fichier des tuiles (tant qu'il ne dépasse pas 2 Gio).
+ * Lorsque la taille du fichier dépasse le quota, il est compacté : seules les tuiles non évincées selon la politique
+ * donnée, occupant au plus 90 % du quota, sont recopiées dans un nouveau fichier qui remplace l'ancien.
+ * À l'ouverture, les entrées de l'index désignant des octets absents du fichier des tuiles (suite à une interruption
+ * pendant une écriture) sont ignorées, et les deux fichiers tronqués en conséquence ; si les numéros de génération
+ * des deux fichiers diffèrent (suite à une interruption pendant un compactage), le stockage est vidé.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class PackedTileStore implements TileStore, Closeable {
+
+    private static final double LOW_WATER_MARK = 0.9;
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final String COMPACTION_EXTENSION = ".compact";
+
+    private static final int OFFSET_GENERATION = 0;
+    private static final int HEADER_BYTES = OFFSET_GENERATION + Long.BYTES;
+
+    private static final int OFFSET_ZOOM_LEVEL = 0;
+    private static final int OFFSET_X = OFFSET_ZOOM_LEVEL + Integer.BYTES;
+    private static final int OFFSET_Y = OFFSET_X + Integer.BYTES;
+    private static final int OFFSET_POSITION = OFFSET_Y + Integer.BYTES;
+    private static final int OFFSET_LENGTH = OFFSET_POSITION + Long.BYTES;
+    private static final int INDEX_ENTRY_BYTES = OFFSET_LENGTH + Integer.BYTES;
+
+    private final Path packPath;
+    private final Path indexPath;
+    private final long quotaBytes;
+    private final EvictionPolicy policy;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object mappingLock = new Object();
+
+    private final Map<TileManager.TileId, Location> locations = new ConcurrentHashMap<>();
+    private TileUsage.Index usages = new TileUsage.Index();
+    private FileChannel pack;
+    private FileChannel index;
+    private long packBytes;
+    private volatile MappedByteBuffer mapped;
+
+    /**
+     * Ouvre (en le créant si nécessaire) le stockage contenu dans le fichier donné, sans quota
+     *
+     * @param packPath chemin d'accès au fichier des tuiles
+     * @return le stockage
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static PackedTileStore open(Path packPath) throws IOException {
+        return open(packPath, Long.MAX_VALUE, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Ouvre (en le créant si nécessaire) le stockage contenu dans le fichier donné, limité au quota donné
+     *
+     * @param packPath   chemin d'accès au fichier des tuiles
+     * @param quotaBytes nombre maximal d'octets du fichier des tuiles
+     * @param policy     politique d'éviction
+     * @return le stockage
+     * @throws IllegalArgumentException si le quota n'est pas strictement positif
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     */
+    public static PackedTileStore open(Path packPath, long quotaBytes, EvictionPolicy policy) throws IOException {
+        Preconditions.checkArgument(quotaBytes > 0);
+        PackedTileStore store = new PackedTileStore(packPath, quotaBytes, policy);
+        store.load();
+        return store;
+    }
+
+    private PackedTileStore(Path packPath, long quotaBytes, EvictionPolicy policy) {
+        this.packPath = packPath;
+        this.indexPath = packPath.resolveSibling(packPath.getFileName() + INDEX_EXTENSION);
+        this.quotaBytes = quotaBytes;
+        this.policy = policy;
+    }
+
+    @Override
+    public Path path() {
+        return packPath;
+    }
+
+    @Override
+    public boolean contains(TileManager.TileId tileId) {
+        return locations.containsKey(tileId);
+    }
+
+    @Override
+    public byte[] read(TileManager.TileId tileId) throws IOException {
+        lock.readLock().lock();
+        try {
+            Location location = locations.get(tileId);
+            if (location == null) return null;
+            byte[] tile = new byte[location.length];
+            long end = location.position + location.length;
+            MappedByteBuffer buffer = mapping(end);
+            if (buffer != null) {
+                buffer.get((int) location.position, tile);
+            } else {
+                ByteBuffer target = ByteBuffer.wrap(tile);
+                while (target.hasRemaining()) {
+                    pack.read(target, location.position + target.position());
+                }
+            }
+            usages.recordAccess(tileId);
+            return tile;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void write(TileManager.TileId tileId, byte[] tile) throws IOException {
+        lock.writeLock().lock();
+        try {
+            append(tileId, tile, pack, index, packBytes);
+            locations.put(tileId, new Location(packBytes, tile.length));
+            usages.add(tileId, tile.length, System.currentTimeMillis());
+            packBytes += tile.length;
+            if (packBytes > quotaBytes) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long sizeBytes() {
+        lock.readLock().lock();
+        try {
+            return packBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ferme les fichiers du stockage
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            mapped = null;
+            pack.close();
+            index.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        pack = FileChannel.open(packPath, CREATE, READ, WRITE);
+        index = FileChannel.open(indexPath, CREATE, READ, WRITE);
+        long packSize = pack.size();
+        long generation = readGeneration(pack);
+        if (generation == 0 || generation != readGeneration(index)) {
+            generation = newGeneration();
+            pack.truncate(0);
+            index.truncate(0);
+            writeHeader(pack, generation);
+            writeHeader(index, generation);
+            packBytes = HEADER_BYTES;
+            return;
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate(
+                (int) ((index.size() - HEADER_BYTES) / INDEX_ENTRY_BYTES * INDEX_ENTRY_BYTES));
+        while (entries.hasRemaining()) {
+            if (index.read(entries, HEADER_BYTES + entries.position()) < 0) break;
+        }
+
+        packBytes = HEADER_BYTES;
+        long indexBytes = HEADER_BYTES;
+        long now = System.currentTimeMillis();
+        for (int entry = 0; entry + INDEX_ENTRY_BYTES <= entries.position(); entry += INDEX_ENTRY_BYTES) {
+            long position = entries.getLong(entry + OFFSET_POSITION);
+            int length = entries.getInt(entry + OFFSET_LENGTH);
+            if (position + length > packSize) break;
+            TileManager.TileId tileId = new TileManager.TileId(entries.getInt(entry + OFFSET_ZOOM_LEVEL),
+                    entries.getInt(entry + OFFSET_X), entries.getInt(entry + OFFSET_Y));
+            locations.put(tileId, new Location(position, length));
+            usages.add(tileId, length, now);
+            packBytes = Math.max(packBytes, position + length);
+            indexBytes += INDEX_ENTRY_BYTES;
+        }
+        index.truncate(indexBytes);
+        pack.truncate(packBytes);
+    }
+
+    private static long readGeneration(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) return 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) return 0;
+        }
+        return header.getLong(OFFSET_GENERATION);
+    }
+
+    private static void writeHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(OFFSET_GENERATION, generation);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private static long newGeneration() {
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == 0);
+        return generation;
+    }
+
+    private static void append(TileManager.TileId tileId, byte[] tile, FileChannel pack, FileChannel index,
+                               long position) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(tile);
+        while (data.hasRemaining()) {
+            pack.write(data, position + data.position());
+        }
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES)
+                .putInt(OFFSET_ZOOM_LEVEL, tileId.zoomLevel())
+                .putInt(OFFSET_X, tileId.x())
+                .putInt(OFFSET_Y, tileId.y())
+                .putLong(OFFSET_POSITION, position)
+                .putInt(OFFSET_LENGTH, tile.length);
+        // l'entrée d'index n'est écrite qu'après la tuile, si bien qu'elle ne désigne jamais des octets absents
+        long indexPosition = index.size();
+        while (entry.hasRemaining()) {
+            index.write(entry, indexPosition + entry.position());
+        }
+    }
+
+    /**
+     * Recopie dans de nouveaux fichiers les tuiles non évincées, puis remplace les anciens par ceux-ci ;
+     * doit être appelée en détenant le verrou d'écriture
+     */
+    private void compact() throws IOException {
+        Set<TileManager.TileId> victims =
+                new HashSet<>(usages.victims(policy, (long) (quotaBytes * LOW_WATER_MARK)));
+        Path newPackPath = packPath.resolveSibling(packPath.getFileName() + COMPACTION_EXTENSION);
+        Path newIndexPath = indexPath.resolveSibling(indexPath.getFileName() + COMPACTION_EXTENSION);
+        Map<TileManager.TileId, Location> newLocations = new ConcurrentHashMap<>();
+        TileUsage.Index newUsages = new TileUsage.Index();
+        long newPackBytes = HEADER_BYTES;
+        long generation = newGeneration();
+
+        try (FileChannel newPack = FileChannel.open(newPackPath, CREATE, TRUNCATE_EXISTING, WRITE);
+             FileChannel newIndex = FileChannel.open(newIndexPath, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            writeHeader(newPack, generation);
+            writeHeader(newIndex, generation);
+            for (TileManager.TileId tileId : usages.tileIds()) {
+                if (victims.contains(tileId)) continue;
+                Location location = locations.get(tileId);
+                byte[] tile = new byte[location.length];
+                ByteBuffer target = ByteBuffer.wrap(tile);
+                while (target.hasRemaining()) {
+                    pack.read(target, location.position + target.position());
+                }
+                append(tileId, tile, newPack, newIndex, newPackBytes);
+                newLocations.put(tileId, new Location(newPackBytes, tile.length));
+                newUsages.add(tileId, tile.length, System.currentTimeMillis());
+                newPackBytes += tile.length;
+            }
+            newPack.force(false);
+            newIndex.force(false);
+        }
+
+        // une interruption entre les deux remplacements laisse des fichiers de générations différentes,
+        // que load détecte
+        mapped = null;
+        pack.close();
+        index.close();
+        Files.move(newIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(newPackPath, packPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pack = FileChannel.open(packPath, READ, WRITE);
+        index = FileChannel.open(indexPath, READ, WRITE);
+        locations.clear();
+        locations.putAll(newLocations);
+        usages = newUsages;
+        packBytes = newPackBytes;
+    }
+
+    /**
+     * Retourne une projection en mémoire du fichier des tuiles couvrant au moins ses end premiers octets,
+     * ou null si celui-ci est trop grand pour être projeté ; doit être appelée en détenant le verrou de lecture
+     */
+    private MappedByteBuffer mapping(long end) throws IOException {
+        if (end > Integer.MAX_VALUE) return null;
+        MappedByteBuffer buffer = mapped;
+        if (buffer != null && buffer.capacity() >= end) return buffer;
+        synchronized (mappingLock) {
+            buffer = mapped;
+            if (buffer == null || buffer.capacity() < end) {
+                buffer = pack.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(packBytes, Integer.MAX_VALUE));
+                mapped = buffer;
+            }
+            return buffer;
+        }
+    }
+
+    private record Location(long position, int length) {
+    }
+}
@@ -3,11 +3,15 @@ package ch.epfl.javelo.gui;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import ch.epfl.javelo.routing.ElevationProfile;
 import ch.epfl.javelo.routing.ElevationProfileComputer;
 import ch.epfl.javelo.routing.MultiRoute;
 import ch.epfl.javelo.routing.Route;
 import ch.epfl.javelo.routing.RouteComputer;
+import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
@@ -21,6 +25,8 @@ import javafx.util.Pair;
 /**
  *  La classe RouteBean du sous-paquetage gui, publique et finale, est un bean JavaFX
  *  regroupant les propriétés relatives aux points de passage et à l'itinéraire correspondant.
+ *  Les segments de l'itinéraire absents du cache sont calculés en parallèle, hors du fil JavaFX ;
+ *  l'itinéraire est mis à jour lorsque tous sont terminés, à moins que les points de passage n'aient changé entre-temps.
  *
  * @author Georges Moussalli (316630)
  */
@@ -28,6 +34,7 @@ public final class RouteBean {
     public final static int INIT_CAPACITY = 100;
     public final static float FACTOR = 0.75F;
     public final static int MAX_SAMPLE_DISTANCE = 5;
+    public final static int MAX_SEGMENT_THREADS = 4;
 
     private final RouteComputer routeComputer;
     private final ObservableList<Waypoint> waypoints;
@@ -36,6 +43,10 @@ public final class RouteBean {
     private final ObjectProperty<ElevationProfile> elevationProfile;
     private static final LinkedHashMap<Pair<Integer, Integer>, Route> cacheMemory =
             new LinkedHashMap<>(INIT_CAPACITY, FACTOR, true);
+    private static final ExecutorService executor = newSegmentExecutor();
+    private final List<CompletableFuture<Route>> pendingSegments = new ArrayList<>();
+    // lu par les fils de calcul des segments, pour ne pas commencer les recherches devenues inutiles
+    private volatile long currentComputation;
 
 
     /**
@@ -49,48 +60,97 @@ public final class RouteBean {
         elevationProfile = new SimpleObjectProperty<>(null);
         waypoints = FXCollections.observableArrayList();
 
-        waypoints.addListener((ListChangeListener<Waypoint>)(w -> {
-            computeRoute();
-            computeElevationProfile();
-        }));
+        waypoints.addListener((ListChangeListener<Waypoint>)(w -> computeRoute()));
     }
 
 
     private void computeRoute() {
+        // Les calculs encore en attente pour l'ancienne liste de points de passage ne commenceront pas ;
+        // ceux qui ont déjà commencé se terminent, mais leur résultat est ignoré
+        pendingSegments.forEach(f -> f.cancel(false));
+        pendingSegments.clear();
+        long computation = ++currentComputation;
+
         if (waypoints.size() < 2) {
             route.set(null);
-        } else {
-            List<Route> segments = new ArrayList<>();
+            computeElevationProfile();
+            return;
+        }
 
-            for (int i = 0; i < waypoints.size() - 1; i++) {
+        List<Pair<Integer, Integer>> nodePairs = new ArrayList<>();
+        for (int i = 0; i < waypoints.size() - 1; i++) {
+            int startNodeId = waypoints.get(i).nodeId();
+            int endNodeId = waypoints.get(i + 1).nodeId();
+            if (startNodeId != endNodeId) nodePairs.add(new Pair<>(startNodeId, endNodeId));
+        }
 
-                int startNodeId = waypoints.get(i).nodeId();
-                int endNodeId = waypoints.get(i + 1).nodeId();
-                if (startNodeId == endNodeId) {
-                    continue;
-                }
-                Pair<Integer, Integer> nodePair = new Pair<>(startNodeId, endNodeId);
-
-                if (cacheMemory.containsKey(nodePair)) {
-                    segments.add(cacheMemory.get(nodePair));
-                } else {
-                    Route singleRoute = routeComputer.bestRouteBetween(
-                            startNodeId,
-                            endNodeId
-                    );
-                    if (singleRoute == null) {
-                        route.set(null);
-                        return;
-                    }
-                    if (cacheMemory.size() == INIT_CAPACITY) {
-                        cacheMemory.remove(cacheMemory.keySet().iterator().next());
-                    }
-                    cacheMemory.put(nodePair, singleRoute);
-                    segments.add(singleRoute);
+        List<CompletableFuture<Route>> segments = new ArrayList<>();
+        for (Pair<Integer, Integer> nodePair : nodePairs) {
+            Route cached = cacheMemory.get(nodePair);
+            if (cached != null) {
+                segments.add(CompletableFuture.completedFuture(cached));
+            } else {
+                CompletableFuture<Route> segment = CompletableFuture.supplyAsync(() -> computation == currentComputation
+                        ? routeComputer.bestRouteBetween(nodePair.getKey(), nodePair.getValue())
+                        : null, executor);
+                pendingSegments.add(segment);
+                segments.add(segment);
+            }
+        }
+
+        if (pendingSegments.isEmpty()) {
+            setRoute(nodePairs, segments);
+        } else {
+            // L'ancien itinéraire reste affiché jusqu'à ce que le nouveau soit prêt
+            CompletableFuture.allOf(segments.toArray(CompletableFuture[]::new)).whenComplete((v, e) ->
+                    Platform.runLater(() -> {
+                        if (computation != currentComputation) return;
+                        pendingSegments.clear();
+                        if (e == null) {
+                            setRoute(nodePairs, segments);
+                        } else {
+                            route.set(null);
+                            computeElevationProfile();
+                        }
+                    }));
+        }
+    }
+
+    /**
+     * Assemble l'itinéraire à partir des segments donnés, tous terminés, et les mémorise dans le cache
+     */
+    private void setRoute(List<Pair<Integer, Integer>> nodePairs, List<CompletableFuture<Route>> segments) {
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            Route singleRoute = segments.get(i).join();
+            if (singleRoute == null) {
+                route.set(null);
+                computeElevationProfile();
+                return;
+            }
+            if (!cacheMemory.containsKey(nodePairs.get(i))) {
+                if (cacheMemory.size() == INIT_CAPACITY) {
+                    cacheMemory.remove(cacheMemory.keySet().iterator().next());
                 }
+                cacheMemory.put(nodePairs.get(i), singleRoute);
             }
-            route.set(new MultiRoute(segments));
+            routes.add(singleRoute);
         }
+        route.set(routes.isEmpty() ? null : new MultiRoute(routes));
+        computeElevationProfile();
+    }
+
+    /**
+     * Retourne l'exécuteur, borné au nombre de processeurs disponibles, sur lequel les segments sont calculés ;
+     * ses fils d'exécution sont des démons afin de ne pas empêcher l'application de se terminer
+     */
+    private static ExecutorService newSegmentExecutor() {
+        int threads = Math.max(1, Math.min(MAX_SEGMENT_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "route-segment");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
 
@@ -0,0 +1,119 @@
+package ch.epfl.javelo.gui;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.PointWebMercator;
+
+import java.util.List;
+
+/**
+ * Représente la géométrie d'un itinéraire telle qu'affichée sur la carte : ses points sont projetés une fois pour
+ * toutes en coordonnées Web Mercator, puis, pour chaque niveau de zoom demandé, la ligne est simplifiée au moyen de
+ * l'algorithme de Douglas-Peucker dans l'espace des pixels de ce niveau, et le résultat conservé.
+ * La tolérance de simplification étant inférieure au pixel, la ligne simplifiée est visuellement identique à l'originale.
+ *
+ * @author Georges Moussalli (316630)
+ */
+final class RouteGeometry {
+
+    private static final int TILE_LENGTH = 256;
+    private static final int MAX_ZOOM_LEVEL = 19;
+    private static final double TOLERANCE = 0.5;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[][] coordinatesByZoomLevel = new double[MAX_ZOOM_LEVEL + 1][];
+
+    /**
+     * Construit la géométrie de la ligne passant par les points donnés
+     *
+     * @param points points de l'itinéraire
+     */
+    RouteGeometry(List<PointCh> points) {
+        xs = new double[points.size()];
+        ys = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            PointWebMercator point = PointWebMercator.ofPointCh(points.get(i));
+            xs[i] = point.x();
+            ys[i] = point.y();
+        }
+    }
+
+    /**
+     * Retourne les coordonnées, en pixels au niveau de zoom donné, des points de la ligne simplifiée pour ce niveau,
+     * alternativement x et y ; le tableau retourné ne doit pas être modifié
+     *
+     * @param zoomLevel niveau de zoom
+     * @return les coordonnées des points de la ligne simplifiée
+     * @throws IllegalArgumentException si le niveau de zoom n'est pas compris entre 0 et 19
+     */
+    double[] coordinates(int zoomLevel) {
+        Preconditions.checkArgument(0 <= zoomLevel && zoomLevel <= MAX_ZOOM_LEVEL);
+        if (coordinatesByZoomLevel[zoomLevel] == null) {
+            coordinatesByZoomLevel[zoomLevel] = simplified((double) TILE_LENGTH * (1 << zoomLevel));
+        }
+        return coordinatesByZoomLevel[zoomLevel];
+    }
+
+    private double[] simplified(double scale) {
+        int count = xs.length;
+        if (count <= 2) return scaled(scale, null, count);
+
+        // algorithme de Douglas-Peucker, itératif afin de ne pas dépendre de la profondeur de la pile
+        double tolerance = TOLERANCE / scale;
+        double squaredTolerance = tolerance * tolerance;
+        boolean[] kept = new boolean[count];
+        kept[0] = kept[count - 1] = true;
+        int keptCount = 2;
+        int[] stack = new int[2 * count];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int farthest = -1;
+            double farthestSquaredDistance = squaredTolerance;
+            for (int i = first + 1; i < last; i++) {
+                double squaredDistance = squaredDistanceToSegment(i, first, last);
+                if (squaredDistance > farthestSquaredDistance) {
+                    farthest = i;
+                    farthestSquaredDistance = squaredDistance;
+                }
+            }
+            if (farthest >= 0) {
+                kept[farthest] = true;
+                keptCount++;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        return scaled(scale, kept, keptCount);
+    }
+
+    private double[] scaled(double scale, boolean[] kept, int keptCount) {
+        double[] coordinates = new double[2 * keptCount];
+        int j = 0;
+        for (int i = 0; i < xs.length; i++) {
+            if (kept == null || kept[i]) {
+                coordinates[j++] = xs[i] * scale;
+                coordinates[j++] = ys[i] * scale;
+            }
+        }
+        return coordinates;
+    }
+
+    private double squaredDistanceToSegment(int point, int first, int last) {
+        double dx = xs[last] - xs[first];
+        double dy = ys[last] - ys[first];
+        double px = xs[point] - xs[first];
+        double py = ys[point] - ys[first];
+        double squaredLength = dx * dx + dy * dy;
+        double t = squaredLength == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / squaredLength));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+}
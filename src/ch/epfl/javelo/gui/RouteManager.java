@@ -1,7 +1,5 @@
 package ch.epfl.javelo.gui;
 
-import java.util.ArrayList;
-import java.util.List;
 import ch.epfl.javelo.projection.PointCh;
 import ch.epfl.javelo.projection.PointWebMercator;
 import ch.epfl.javelo.routing.Route;
@@ -25,6 +23,8 @@ public final class RouteManager {
     private final Pane pane;
     private final Polyline polyline;
     private final Circle disk;
+    private Route geometryRoute;
+    private RouteGeometry geometry;
 
     /**
      *
@@ -90,15 +90,18 @@ public final class RouteManager {
 
     private void buildRoute(Route route) {
         if (route != null) {
-            List<PointCh> points = route.points();
-            List<Double> coordinates = new ArrayList<>();
-            for (PointCh point : points) {
-                PointWebMercator data = PointWebMercator.ofPointCh(point);
-                coordinates.add(mapView.get().x() + mapView.get().viewX(data));
-                coordinates.add(mapView.get().y() + mapView.get().viewY(data));
+            // la géométrie n'est calculée qu'une fois par itinéraire, et simplifiée une fois par niveau de zoom
+            if (route != geometryRoute) {
+                geometry = new RouteGeometry(route.points());
+                geometryRoute = route;
+            }
+            double[] coordinates = geometry.coordinates(mapView.get().zoomLevel());
+            Double[] points = new Double[coordinates.length];
+            for (int i = 0; i < coordinates.length; i++) {
+                points[i] = coordinates[i];
             }
             placeRoute(mapView.get());
-            polyline.getPoints().setAll(coordinates);
+            polyline.getPoints().setAll(points);
         }
     }
 
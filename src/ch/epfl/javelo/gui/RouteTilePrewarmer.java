@@ -0,0 +1,221 @@
+package ch.epfl.javelo.gui;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.projection.Ch1903;
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.WebMercator;
+import ch.epfl.javelo.routing.Route;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Représente le préchargement, dans le cache disque d'un gestionnaire de tuiles, de toutes les tuiles situées
+ * à moins d'une distance donnée d'un itinéraire, pour une plage de niveaux de zoom, afin de pouvoir l'afficher
+ * sans connexion.
+ * <p>
+ * Les tuiles sont téléchargées en parallèle, un nombre borné à la fois, par les fils de préchargement du
+ * gestionnaire, si bien que les tuiles affichées ne les attendent pas. Les tuiles se trouvant déjà dans le cache disque
+ * étant ignorées, un préchargement interrompu (ou ayant échoué pour certaines tuiles) reprend là où il s'était
+ * arrêté lorsqu'il est relancé.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class RouteTilePrewarmer {
+
+    /**
+     * Nombre maximal par défaut de tuiles téléchargées simultanément
+     */
+    public static final int DEFAULT_MAX_CONCURRENT = 3;
+    private static final int MAX_ZOOM_LEVEL = 19;
+    private static final double TILE_HALF_DIAGONAL = Math.sqrt(2) / 2;
+
+    private final TileManager tileManager;
+    private final List<TileManager.TileId> tiles;
+    private final int maxConcurrent;
+    private final Consumer<Progress> listener;
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong downloadedBytes = new AtomicLong();
+    private final CompletableFuture<Progress> completion = new CompletableFuture<>();
+    private volatile boolean cancelled;
+
+    private RouteTilePrewarmer(TileManager tileManager, List<TileManager.TileId> tiles, int maxConcurrent,
+                               Consumer<Progress> listener) {
+        this.tileManager = tileManager;
+        this.tiles = tiles;
+        this.maxConcurrent = maxConcurrent;
+        this.listener = listener;
+    }
+
+    /**
+     * Lance, dans un fil séparé, le préchargement des tuiles situées à moins de bufferMeters mètres de l'itinéraire
+     * donné, pour les niveaux de zoom allant de minZoomLevel à maxZoomLevel (inclus), du plus petit au plus grand
+     *
+     * @param tileManager  gestionnaire de tuiles dont le cache disque est rempli
+     * @param route        itinéraire
+     * @param bufferMeters distance maximale, en mètres, entre l'itinéraire et les tuiles préchargées
+     * @param minZoomLevel plus petit niveau de zoom préchargé
+     * @param maxZoomLevel plus grand niveau de zoom préchargé
+     * @param listener     écouteur averti, depuis un fil quelconque, de l'avancement après chaque tuile
+     * @return le préchargement lancé
+     * @throws IllegalArgumentException si la distance est négative, ou si les niveaux de zoom ne sont pas compris
+     *                                  entre 0 et 19 ou ne forment pas une plage
+     */
+    public static RouteTilePrewarmer start(TileManager tileManager, Route route, double bufferMeters,
+                                           int minZoomLevel, int maxZoomLevel, Consumer<Progress> listener) {
+        List<TileManager.TileId> tiles = corridorTiles(route.points(), bufferMeters, minZoomLevel, maxZoomLevel);
+        RouteTilePrewarmer prewarmer = new RouteTilePrewarmer(tileManager, tiles, DEFAULT_MAX_CONCURRENT, listener);
+        Thread thread = new Thread(prewarmer::run, "tile-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+        return prewarmer;
+    }
+
+    /**
+     * Retourne les tuiles situées à moins de bufferMeters mètres de la ligne brisée passant par les points donnés,
+     * niveau de zoom par niveau de zoom, puis dans l'ordre du parcours de la ligne ; une tuile est retenue dès que
+     * son centre est à moins de bufferMeters mètres plus une demi-diagonale de tuile de la ligne, si bien que
+     * quelques tuiles superflues peuvent être retenues, mais aucune tuile nécessaire n'est omise
+     *
+     * @param points       points de la ligne brisée
+     * @param bufferMeters distance maximale, en mètres, entre la ligne et les tuiles
+     * @param minZoomLevel plus petit niveau de zoom
+     * @param maxZoomLevel plus grand niveau de zoom
+     * @return les tuiles entourant la ligne
+     * @throws IllegalArgumentException si la distance est négative, ou si les niveaux de zoom ne sont pas compris
+     *                                  entre 0 et 19 ou ne forment pas une plage
+     */
+    public static List<TileManager.TileId> corridorTiles(List<PointCh> points, double bufferMeters,
+                                                         int minZoomLevel, int maxZoomLevel) {
+        Preconditions.checkArgument(bufferMeters >= 0
+                && 0 <= minZoomLevel && minZoomLevel <= maxZoomLevel && maxZoomLevel <= MAX_ZOOM_LEVEL);
+
+        // coordonnées Web Mercator des points, et distance tampon exprimée dans ces coordonnées au voisinage de chacun
+        int count = points.size();
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double[] buffers = new double[count];
+        for (int i = 0; i < count; i++) {
+            PointCh point = points.get(i);
+            xs[i] = WebMercator.x(Ch1903.lon(point.e(), point.n()));
+            ys[i] = WebMercator.y(Ch1903.lat(point.e(), point.n()));
+            double bufferX = WebMercator.x(Ch1903.lon(point.e() + bufferMeters, point.n()));
+            double bufferY = WebMercator.y(Ch1903.lat(point.e() + bufferMeters, point.n()));
+            buffers[i] = Math.hypot(bufferX - xs[i], bufferY - ys[i]);
+        }
+
+        List<TileManager.TileId> tiles = new ArrayList<>();
+        for (int zoomLevel = minZoomLevel; zoomLevel <= maxZoomLevel; zoomLevel++) {
+            Set<TileManager.TileId> zoomTiles = new LinkedHashSet<>();
+            int tilesPerSide = 1 << zoomLevel;
+            for (int i = 0; i < count; i++) {
+                int j = Math.min(i + 1, count - 1);
+                double ax = xs[i] * tilesPerSide, ay = ys[i] * tilesPerSide;
+                double bx = xs[j] * tilesPerSide, by = ys[j] * tilesPerSide;
+                double radius = buffers[i] * tilesPerSide + TILE_HALF_DIAGONAL;
+
+                int minX = Math.max(0, (int) Math.floor(Math.min(ax, bx) - radius));
+                int maxX = Math.min(tilesPerSide - 1, (int) Math.floor(Math.max(ax, bx) + radius));
+                int minY = Math.max(0, (int) Math.floor(Math.min(ay, by) - radius));
+                int maxY = Math.min(tilesPerSide - 1, (int) Math.floor(Math.max(ay, by) + radius));
+                for (int x = minX; x <= maxX; x++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        if (squaredDistanceToSegment(x + 0.5, y + 0.5, ax, ay, bx, by) <= radius * radius) {
+                            zoomTiles.add(new TileManager.TileId(zoomLevel, x, y));
+                        }
+                    }
+                }
+            }
+            tiles.addAll(zoomTiles);
+        }
+        return tiles;
+    }
+
+    /**
+     * Interrompt le préchargement ; les tuiles en cours de téléchargement sont achevées
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Retourne l'avancement actuel du préchargement
+     *
+     * @return l'avancement du préchargement
+     */
+    public Progress progress() {
+        return new Progress(tiles.size(), done.get(), failed.get(), downloadedBytes.get());
+    }
+
+    /**
+     * Retourne un futur contenant l'avancement final du préchargement, qui s'achève lorsque toutes les tuiles
+     * ont été traitées ou que le préchargement a été interrompu
+     *
+     * @return le futur contenant l'avancement final
+     */
+    public CompletableFuture<Progress> completion() {
+        return completion;
+    }
+
+    private void run() {
+        Semaphore permits = new Semaphore(maxConcurrent);
+        for (TileManager.TileId tileId : tiles) {
+            if (cancelled) break;
+            if (tileManager.store().contains(tileId)) {
+                done.incrementAndGet();
+                listener.accept(progress());
+                continue;
+            }
+            permits.acquireUninterruptibly();
+            tileManager.storeTileAsync(tileId).whenComplete((bytes, e) -> {
+                if (e == null) {
+                    downloadedBytes.addAndGet(bytes);
+                    done.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+                listener.accept(progress());
+                permits.release();
+            });
+        }
+        permits.acquireUninterruptibly(maxConcurrent);
+        completion.complete(progress());
+    }
+
+    private static double squaredDistanceToSegment(double px, double py,
+                                                   double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        double ex = ax + t * dx - px, ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Représente l'avancement d'un préchargement
+     *
+     * @param total           nombre total de tuiles à précharger
+     * @param done            nombre de tuiles se trouvant désormais dans le cache disque
+     * @param failed          nombre de tuiles dont le téléchargement a échoué
+     * @param downloadedBytes nombre d'octets téléchargés
+     */
+    public record Progress(int total, int done, int failed, long downloadedBytes) {
+
+        /**
+         * Retourne vrai ssi toutes les tuiles ont été traitées
+         *
+         * @return vrai ssi le préchargement est terminé
+         */
+        public boolean isFinished() {
+            return done + failed == total;
+        }
+    }
+}
@@ -2,82 +2,280 @@ package ch.epfl.javelo.gui;
 
 import ch.epfl.javelo.Preconditions;
 import javafx.scene.image.Image;
-import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
-
-import static java.nio.file.Files.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 
 /**
- * Représente un gestionnaire de tuiles OSM
+ * Représente un gestionnaire de tuiles OSM, qui charge les tuiles de manière asynchrone
  *
  * @author Georges Moussalli (316630)
  */
 public final class TileManager {
 
-    private final static int INIT_CAPACITY = 100;
-    private final static float FACTOR = 0.75F;
-    private final Path path;
-    private final String server;
+    /**
+     * Nombre maximal estimé d'octets des images du cache mémoire par défaut
+     */
+    public static final long DEFAULT_MEMORY_CACHE_BYTES = 64L << 20;
+    private static final int BYTES_PER_PIXEL = 4;
+    private final TileStore store;
     private static final String TILE_CACHE_CYCLOSM  ="cyclosm-cache";
-    private static final LinkedHashMap<TileId, Image> cacheMemory =
-            new LinkedHashMap<>(INIT_CAPACITY, FACTOR, true);
+    private final TileMemoryCache<TileId, Image> memoryCache;
+    private static final int DOWNLOAD_THREADS = 4;
+    private static final int BACKGROUND_THREADS = 2;
+    private static final int DECODE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private final Downloader downloader;
+    // les tuiles affichées et les préchargements ont chacun leurs fils, pour que ceux-ci ne retardent jamais celles-là
+    private final ExecutorService downloadPool;
+    private final ExecutorService backgroundPool;
+    private final ExecutorService decodePool;
+    private final ConcurrentHashMap<TileId, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+    // téléchargements en cours, partagés par les chargements d'images et les préchargements dans le cache disque
+    private final ConcurrentHashMap<TileId, CompletableFuture<byte[]>> downloads = new ConcurrentHashMap<>();
+    private final List<Consumer<TileId>> listeners = new CopyOnWriteArrayList<>();
 
     /**
-     * Constructeur de tuiles
+     * Constructeur de tuiles, dont le cache mémoire est borné par DEFAULT_MEMORY_CACHE_BYTES
      * @param path le chemin d'accès au répertoire contenant le cache disque
      * @param server le nom du serveur de tuile
      */
     public TileManager(Path path, String server) {
-        this.path = path;
-        this.server = server;
+        this(path, server, DEFAULT_MEMORY_CACHE_BYTES);
+    }
+
+    /**
+     * Constructeur de tuiles, dont le cache disque est un répertoire sans quota
+     * @param path le chemin d'accès au répertoire contenant le cache disque
+     * @param server le nom du serveur de tuile
+     * @param memoryCacheBytes le nombre maximal estimé d'octets des images du cache mémoire
+     * @throws IllegalArgumentException si ce nombre n'est pas strictement positif
+     */
+    public TileManager(Path path, String server, long memoryCacheBytes) {
+        this(new DirectoryTileStore(path), server, memoryCacheBytes);
+    }
+
+    /**
+     * Constructeur de tuiles. Chaque gestionnaire, et donc chaque source de tuiles, possède son propre cache mémoire
+     * @param store le cache disque
+     * @param server le nom du serveur de tuile
+     * @param memoryCacheBytes le nombre maximal estimé d'octets des images du cache mémoire
+     * @throws IllegalArgumentException si ce nombre n'est pas strictement positif
+     */
+    public TileManager(TileStore store, String server, long memoryCacheBytes) {
+        this(store, server, memoryCacheBytes, tileId -> fetch(getUrl(store, server, tileId)));
+    }
+
+    /**
+     * Constructeur de tuiles dont le contenu est obtenu par le téléchargeur donné plutôt que depuis le serveur
+     */
+    TileManager(TileStore store, String server, long memoryCacheBytes, Downloader downloader) {
+        this.store = store;
+        this.downloader = downloader;
+        this.memoryCache = new TileMemoryCache<>(memoryCacheBytes,
+                image -> (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL);
+        this.downloadPool = newPool(DOWNLOAD_THREADS, "tile-download");
+        this.backgroundPool = newPool(BACKGROUND_THREADS, "tile-background");
+        this.decodePool = newPool(DECODE_THREADS, "tile-decode");
     }
 
     /**
-     * Prend en argument l'identité d'une tuile et retourne son image
+     * Prend en argument l'identité d'une tuile et retourne son image, en attendant qu'elle soit chargée
      * @param tileId Identité de la tuile
      * @return retourne son image
      * @throws IOException en cas d'erreur d'entrée ou de sortie
      */
     public Image imageForTileAt(TileId tileId) throws IOException {
+        try {
+            return imageForTileAtAsync(tileId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) throw u.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Retourne l'image de la tuile donnée si elle se trouve dans le cache mémoire, null sinon ;
+     * cette méthode n'effectue aucune entrée/sortie et peut donc être appelée depuis le fil JavaFX
+     * @param tileId Identité de la tuile
+     * @return l'image de la tuile, ou null si elle n'est pas en mémoire
+     */
+    public Image imageIfCached(TileId tileId) {
+        return memoryCache.get(tileId);
+    }
+
+    /**
+     * Retourne l'image de la tuile donnée si elle se trouve dans le cache mémoire, null sinon, comme imageIfCached,
+     * mais sans que cette consultation soit comptée dans les statistiques du cache ni influence son éviction
+     * @param tileId Identité de la tuile
+     * @return l'image de la tuile, ou null si elle n'est pas en mémoire
+     */
+    public Image peekImage(TileId tileId) {
+        return memoryCache.peek(tileId);
+    }
+
+    /**
+     * Retourne un futur contenant l'image de la tuile donnée. Si elle n'est pas en mémoire, la tuile est
+     * lue depuis le cache disque ou, si elle ne s'y trouve pas, téléchargée par un groupe de fils borné
+     * et stockée dans le cache disque, puis décodée par un autre groupe de fils ;
+     * les demandes simultanées d'une même tuile partagent le même futur, et les écouteurs sont avertis
+     * lorsque l'image est disponible. En cas d'erreur d'entrée/sortie, le futur échoue avec une UncheckedIOException
+     * @param tileId Identité de la tuile
+     * @return un futur contenant l'image de la tuile
+     * @throws IllegalArgumentException si l'identité de la tuile n'est pas valide
+     */
+    public CompletableFuture<Image> imageForTileAtAsync(TileId tileId) {
+        Preconditions.checkArgument(TileId.isValid(tileId.zoomLevel, tileId.x, tileId.y));
+
+        Image cached = imageIfCached(tileId);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<Image> image = new CompletableFuture<>();
+        CompletableFuture<Image> inProgress = inFlight.putIfAbsent(tileId, image);
+        if (inProgress != null) return inProgress;
+
+        CompletableFuture.supplyAsync(() -> readStored(tileId), decodePool)
+                .thenCompose(stored -> stored != null
+                        ? CompletableFuture.completedFuture(stored)
+                        : downloadAsync(tileId, new CompletableFuture<>(), downloadPool))
+                .thenApplyAsync(tile -> decode(tileId, tile), decodePool)
+                .whenComplete((decoded, e) -> {
+                    inFlight.remove(tileId, image);
+                    if (e != null) {
+                        image.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                    } else {
+                        image.complete(decoded);
+                        listeners.forEach(l -> l.accept(tileId));
+                    }
+                });
+        return image;
+    }
+
+    /**
+     * Retourne un futur qui s'achève une fois que la tuile donnée se trouve dans le cache disque ; la tuile est
+     * téléchargée si elle ne s'y trouve pas, mais n'est pas décodée. La consultation du cache disque et le
+     * téléchargement sont faits par un groupe de fils distinct de celui des tuiles affichées, qui ne les attendent donc
+     * jamais.
+     * Si la tuile est déjà en cours de téléchargement, pour être affichée ou préchargée, ce téléchargement est attendu
+     * plutôt que d'en lancer un second. Le futur contient le nombre d'octets téléchargés, nul si la tuile était déjà
+     * stockée ou téléchargée par une autre demande
+     * @param tileId Identité de la tuile
+     * @return un futur contenant le nombre d'octets téléchargés
+     * @throws IllegalArgumentException si l'identité de la tuile n'est pas valide
+     */
+    public CompletableFuture<Integer> storeTileAsync(TileId tileId) {
         Preconditions.checkArgument(TileId.isValid(tileId.zoomLevel, tileId.x, tileId.y));
+        CompletableFuture<byte[]> inProgress = downloads.get(tileId);
+        if (inProgress != null) return inProgress.thenApply(tile -> 0);
+
+        return CompletableFuture.supplyAsync(() -> store.contains(tileId), backgroundPool).thenCompose(stored -> {
+            if (stored) return CompletableFuture.completedFuture(0);
+            CompletableFuture<byte[]> tile = new CompletableFuture<>();
+            CompletableFuture<byte[]> download = downloadAsync(tileId, tile, backgroundPool);
+            return download.thenApply(bytes -> download == tile ? bytes.length : 0);
+        });
+    }
+
+    /**
+     * Ajoute un écouteur averti, depuis un fil quelconque, chaque fois que l'image d'une tuile devient disponible
+     * @param listener l'écouteur, qui reçoit l'identité de la tuile chargée
+     */
+    public void addTileListener(Consumer<TileId> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Retourne les statistiques du cache mémoire de ce gestionnaire
+     * @return les statistiques du cache mémoire
+     */
+    public TileMemoryCache.Stats memoryCacheStats() {
+        return memoryCache.stats();
+    }
+
+    /**
+     * Retourne le cache disque de ce gestionnaire
+     * @return le cache disque
+     */
+    public TileStore store() {
+        return store;
+    }
 
-        if (cacheMemory.containsKey(tileId)) {
-            return cacheMemory.get(tileId);
+    private byte[] readStored(TileId tileId) {
+        try {
+            return store.read(tileId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        Path finalPath = path.resolve(tileId.zoomLevel + "/" + tileId.x + "/" + tileId.y + ".png");
-        Files.createDirectories(path);
+    /**
+     * Télécharge la tuile donnée par le groupe de fils donné, puis complète le futur donné avec son contenu,
+     * et retourne ce futur ; si la tuile est déjà en cours de téléchargement, retourne le futur de ce téléchargement,
+     * sans utiliser le futur donné
+     */
+    private CompletableFuture<byte[]> downloadAsync(TileId tileId, CompletableFuture<byte[]> tile,
+                                                    ExecutorService pool) {
+        CompletableFuture<byte[]> inProgress = downloads.putIfAbsent(tileId, tile);
+        if (inProgress != null) return inProgress;
 
-        if (!exists(finalPath)) {
-            URL url = getUrl(tileId);
-            URLConnection connection = url.openConnection();
-            connection.setRequestProperty("User-Agent", "JaVelo");
-            Files.createDirectories(finalPath.getParent());
-            try (InputStream tile = connection.getInputStream()) {
-                tile.transferTo(newOutputStream(finalPath));
+        CompletableFuture.supplyAsync(() -> download(tileId), pool).whenComplete((bytes, e) -> {
+            downloads.remove(tileId, tile);
+            if (e != null) {
+                tile.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+            } else {
+                tile.complete(bytes);
             }
+        });
+        return tile;
+    }
+
+    private byte[] download(TileId tileId) {
+        try {
+            byte[] tile = downloader.download(tileId);
+            store.write(tileId, tile);
+            return tile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        try (InputStream tile = new FileInputStream(finalPath.toFile())) {
-            if (cacheMemory.size() == INIT_CAPACITY) {
-                cacheMemory.remove(cacheMemory.keySet().iterator().next());
-            }
-            Image image = new Image(tile);
-            cacheMemory.put(tileId, image);
-            return image;
+    private static byte[] fetch(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setRequestProperty("User-Agent", "JaVelo");
+        try (InputStream in = connection.getInputStream()) {
+            return in.readAllBytes();
         }
     }
 
-    private URL getUrl(TileId tileId) throws MalformedURLException {
-        if(path == Path.of(TILE_CACHE_CYCLOSM)) return new URL("https://" + server + "/"
+    private Image decode(TileId tileId, byte[] tile) {
+        Image image = new Image(new ByteArrayInputStream(tile));
+        memoryCache.put(tileId, image);
+        return image;
+    }
+
+    private static ExecutorService newPool(int threads, String name) {
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static URL getUrl(TileStore store, String server, TileId tileId) throws MalformedURLException {
+        if(store.path() == Path.of(TILE_CACHE_CYCLOSM)) return new URL("https://" + server + "/"
                 + tileId.zoomLevel + "/" + tileId.x + "/" + tileId.y + "/cyclosm.png");
         else
         return new URL("https://" + server + "/"
@@ -85,6 +283,14 @@ public final class TileManager {
     }
 
 
+    /**
+     * Représente l'obtention du contenu d'une tuile, depuis le serveur de tuiles
+     */
+    @FunctionalInterface
+    interface Downloader {
+        byte[] download(TileId tileId) throws IOException;
+    }
+
     /**
      * L'enregistrement TileId, imbriqué dans la classe TileManager
      * représente l'identité d'une tuile OSM
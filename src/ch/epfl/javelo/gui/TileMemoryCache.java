@@ -0,0 +1,325 @@
+package ch.epfl.javelo.gui;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Représente un cache mémoire concurrent, borné par le nombre estimé d'octets de ses valeurs,
+ * dont la politique d'éviction est de type W-TinyLFU : les nouvelles entrées passent par une petite fenêtre LRU,
+ * puis ne sont admises dans la partie principale (segmentée en une partie probatoire et une partie protégée)
+ * que si elles ont été plus fréquemment demandées que l'entrée qu'elles en évinceraient ; les fréquences
+ * sont estimées par un « count-min sketch » dont les compteurs sont périodiquement divisés par deux.
+ * <p>
+ * Les lectures ne prennent pas de verrou pour accéder à la valeur ; la mise à jour de la politique
+ * qu'elles entraînent est abandonnée si le verrou est déjà pris, ce qui n'affecte que la précision de l'éviction.
+ *
+ * @param <K> type des clefs
+ * @param <V> type des valeurs
+ * @author Georges Moussalli (316630)
+ */
+public final class TileMemoryCache<K, V> {
+
+    private static final double WINDOW_FRACTION = 0.01;
+    private static final double PROTECTED_FRACTION = 0.80;
+
+    private final long maximumBytes;
+    private final long windowMaximumBytes;
+    private final long protectedMaximumBytes;
+    private final ToLongFunction<? super V> weigher;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedEntries = new AccessOrder<>();
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Construit un cache vide
+     *
+     * @param maximumBytes nombre maximal estimé d'octets des valeurs du cache
+     * @param weigher      fonction estimant le nombre d'octets occupés par une valeur
+     * @throws IllegalArgumentException si le nombre maximal d'octets n'est pas strictement positif
+     */
+    public TileMemoryCache(long maximumBytes, ToLongFunction<? super V> weigher) {
+        Preconditions.checkArgument(maximumBytes > 0);
+        this.maximumBytes = maximumBytes;
+        this.windowMaximumBytes = Math.max(1, (long) (maximumBytes * WINDOW_FRACTION));
+        this.protectedMaximumBytes = (long) ((maximumBytes - windowMaximumBytes) * PROTECTED_FRACTION);
+        this.weigher = weigher;
+    }
+
+    /**
+     * Retourne la valeur associée à la clef donnée, ou null s'il n'y en a pas
+     *
+     * @param key clef
+     * @return la valeur associée à la clef, ou null
+     */
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            if (lock.tryLock()) {
+                try {
+                    sketch.increment(key);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return null;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                sketch.increment(key);
+                onAccess(entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return entry.value;
+    }
+
+    /**
+     * Retourne la valeur associée à la clef donnée, ou null s'il n'y en a pas, sans que cette lecture
+     * soit comptée dans les statistiques ni prise en compte par la politique d'éviction ;
+     * destinée aux consultations qui ne sont pas des demandes de la valeur, p. ex. la recherche d'un substitut
+     *
+     * @param key clef
+     * @return la valeur associée à la clef, ou null
+     */
+    public V peek(K key) {
+        Entry<K, V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Associe la valeur donnée à la clef donnée, puis évince des entrées tant que le nombre estimé d'octets
+     * du cache dépasse son maximum ; la valeur ajoutée peut elle-même être évincée
+     *
+     * @param key   clef
+     * @param value valeur
+     */
+    public void put(K key, V value) {
+        long bytes = weigher.applyAsLong(value);
+        lock.lock();
+        try {
+            sketch.increment(key);
+            Entry<K, V> entry = entries.get(key);
+            if (entry != null) {
+                entry.value = value;
+                entry.order.bytes += bytes - entry.bytes;
+                entry.bytes = bytes;
+                onAccess(entry);
+            } else {
+                entry = new Entry<>(key, value, bytes);
+                entries.put(key, entry);
+                window.addLast(entry);
+                sketch.ensureCapacity(entries.size());
+            }
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retourne les statistiques du cache
+     *
+     * @return les statistiques du cache
+     */
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(),
+                    window.bytes + probation.bytes + protectedEntries.bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onAccess(Entry<K, V> entry) {
+        // l'entrée a pu être évincée entre sa lecture et la prise du verrou
+        if (entry.order == null) return;
+        if (entry.order == probation) {
+            probation.remove(entry);
+            protectedEntries.addLast(entry);
+            while (protectedEntries.bytes > protectedMaximumBytes && protectedEntries.first() != entry) {
+                Entry<K, V> demoted = protectedEntries.first();
+                protectedEntries.remove(demoted);
+                probation.addLast(demoted);
+            }
+        } else {
+            entry.order.moveToLast(entry);
+        }
+    }
+
+    private void evict() {
+        while (window.bytes > windowMaximumBytes) {
+            Entry<K, V> entry = window.first();
+            window.remove(entry);
+            probation.addLast(entry);
+        }
+        while (window.bytes + probation.bytes + protectedEntries.bytes > maximumBytes) {
+            Entry<K, V> victim = probation.first();
+            if (victim == null) victim = protectedEntries.first();
+            if (victim == null) victim = window.first();
+
+            // le candidat, dernier arrivé de la fenêtre, n'est admis que s'il est plus fréquent que la victime
+            Entry<K, V> candidate = probation.last();
+            if (candidate != null && candidate != victim
+                    && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                victim = candidate;
+            }
+            victim.order.remove(victim);
+            entries.remove(victim.key);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Représente les statistiques d'un cache mémoire
+     *
+     * @param hits      nombre de lectures ayant trouvé une valeur
+     * @param misses    nombre de lectures n'ayant pas trouvé de valeur
+     * @param evictions nombre d'entrées évincées
+     * @param size      nombre d'entrées du cache
+     * @param bytes     nombre estimé d'octets des valeurs du cache
+     */
+    public record Stats(long hits, long misses, long evictions, int size, long bytes) {
+
+        /**
+         * Retourne la proportion des lectures ayant trouvé une valeur, ou 0 s'il n'y en a eu aucune
+         *
+         * @return le taux de succès du cache
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private volatile V value;
+        private long bytes;
+        private AccessOrder<K, V> order;
+        private Entry<K, V> previous;
+        private Entry<K, V> next;
+
+        private Entry(K key, V value, long bytes) {
+            this.key = key;
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Liste doublement chaînée d'entrées, de la moins récemment utilisée à la plus récemment utilisée,
+     * tenant le compte de leur nombre estimé d'octets
+     */
+    private static final class AccessOrder<K, V> {
+        private Entry<K, V> first;
+        private Entry<K, V> last;
+        private long bytes;
+
+        private Entry<K, V> first() {
+            return first;
+        }
+
+        private Entry<K, V> last() {
+            return last;
+        }
+
+        private void addLast(Entry<K, V> entry) {
+            entry.order = this;
+            entry.previous = last;
+            entry.next = null;
+            if (last == null) first = entry;
+            else last.next = entry;
+            last = entry;
+            bytes += entry.bytes;
+        }
+
+        private void remove(Entry<K, V> entry) {
+            if (entry.previous == null) first = entry.next;
+            else entry.previous.next = entry.next;
+            if (entry.next == null) last = entry.previous;
+            else entry.next.previous = entry.previous;
+            entry.previous = entry.next = null;
+            entry.order = null;
+            bytes -= entry.bytes;
+        }
+
+        private void moveToLast(Entry<K, V> entry) {
+            if (entry == last) return;
+            remove(entry);
+            addLast(entry);
+        }
+    }
+
+    /**
+     * « Count-min sketch » à compteurs saturant à 15, estimant la fréquence récente des clefs ;
+     * tous les compteurs sont divisés par deux après un nombre d'incréments proportionnel à leur nombre
+     */
+    private static final class FrequencySketch {
+        private static final int HASHES = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int MIN_SIZE = 64;
+        private static final int SAMPLE_FACTOR = 10;
+
+        private byte[] counters = new byte[MIN_SIZE];
+        private int increments;
+
+        private void ensureCapacity(int entryCount) {
+            int size = Integer.highestOneBit(Math.max(MIN_SIZE, entryCount) * 2 - 1) * 2;
+            if (size > counters.length) {
+                counters = new byte[size];
+                increments = 0;
+            }
+        }
+
+        private int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < HASHES; i++) {
+                frequency = Math.min(frequency, counters[index(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean incremented = false;
+            for (int i = 0; i < HASHES; i++) {
+                int index = index(hash, i);
+                if (counters[index] < MAX_COUNT) {
+                    counters[index]++;
+                    incremented = true;
+                }
+            }
+            if (incremented && ++increments >= SAMPLE_FACTOR * counters.length) {
+                for (int i = 0; i < counters.length; i++) counters[i] >>= 1;
+                increments /= 2;
+            }
+        }
+
+        private int index(int hash, int i) {
+            int h = (hash + i * 0x9E3779B9) * 0x85EBCA6B;
+            return (h ^ (h >>> 16)) & (counters.length - 1);
+        }
+
+        private static int spread(int hash) {
+            hash *= 0xC2B2AE35;
+            return hash ^ (hash >>> 15);
+        }
+    }
+}
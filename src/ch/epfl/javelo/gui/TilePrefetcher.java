@@ -0,0 +1,200 @@
+package ch.epfl.javelo.gui;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Représente un préchargeur de tuiles, qui, chaque fois que la portion de carte affichée change, place dans le cache
+ * disque du gestionnaire de tuiles les tuiles d'un anneau entourant cette portion ainsi que celles des niveaux de zoom
+ * voisins, afin que le glissement et le changement de zoom n'attendent pas de téléchargement.
+ * <p>
+ * Le préchargement est de faible priorité : il passe par les fils de préchargement du gestionnaire de tuiles,
+ * distincts de ceux des tuiles affichées, n'en occupe qu'un nombre borné, et son débit est limité. Les tuiles pas encore demandées
+ * sont abandonnées dès que la portion affichée change ; celles en cours de téléchargement sont achevées.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class TilePrefetcher {
+
+    private static final int TILE_LENGTH = 256;
+    private static final int MIN_ZOOM_LEVEL = 8;
+    private static final int MAX_ZOOM_LEVEL = 19;
+
+    /**
+     * Largeur par défaut, en tuiles, de l'anneau préchargé autour de la portion affichée
+     */
+    public static final int DEFAULT_RING_WIDTH = 2;
+    /**
+     * Nombre maximal par défaut de tuiles préchargées simultanément
+     */
+    public static final int DEFAULT_MAX_CONCURRENT = 2;
+    /**
+     * Débit maximal par défaut du préchargement, en octets par seconde
+     */
+    public static final long DEFAULT_MAX_BYTES_PER_SECOND = 512 * 1024;
+
+    private final TileManager tileManager;
+    private final int ringWidth;
+    private final int maxConcurrent;
+    private final long maxBytesPerSecond;
+    private final ScheduledExecutorService scheduler;
+
+    private final Deque<TileManager.TileId> pending = new ArrayDeque<>();
+    private int running;
+    private double availableBytes;
+    private long lastRefillNanos;
+    private boolean dispatchScheduled;
+
+    /**
+     * Construit un préchargeur avec les paramètres par défaut
+     *
+     * @param tileManager gestionnaire de tuiles dont le cache disque est rempli
+     */
+    public TilePrefetcher(TileManager tileManager) {
+        this(tileManager, DEFAULT_RING_WIDTH, DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_BYTES_PER_SECOND);
+    }
+
+    /**
+     * Construit un préchargeur
+     *
+     * @param tileManager       gestionnaire de tuiles dont le cache disque est rempli
+     * @param ringWidth         largeur, en tuiles, de l'anneau préchargé autour de la portion affichée
+     * @param maxConcurrent     nombre maximal de tuiles préchargées simultanément
+     * @param maxBytesPerSecond débit maximal du préchargement, en octets par seconde
+     * @throws IllegalArgumentException si la largeur de l'anneau est négative, ou si le nombre de tuiles simultanées
+     *                                  ou le débit ne sont pas strictement positifs
+     */
+    public TilePrefetcher(TileManager tileManager, int ringWidth, int maxConcurrent, long maxBytesPerSecond) {
+        Preconditions.checkArgument(ringWidth >= 0 && maxConcurrent > 0 && maxBytesPerSecond > 0);
+        this.tileManager = tileManager;
+        this.ringWidth = ringWidth;
+        this.maxConcurrent = maxConcurrent;
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        this.availableBytes = maxBytesPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tile-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Remplace les tuiles en attente de préchargement par celles entourant la portion de carte donnée :
+     * l'anneau au même niveau de zoom, de la plus proche à la plus lointaine, puis la portion et son anneau
+     * au niveau de zoom inférieur, puis la portion au niveau de zoom supérieur
+     *
+     * @param mapView paramètres de la portion de carte affichée
+     * @param width   largeur de la portion affichée, en pixels
+     * @param height  hauteur de la portion affichée, en pixels
+     */
+    public void prefetchAround(MapViewParameters mapView, double width, double height) {
+        List<TileManager.TileId> tiles = tilesAround(mapView, width, height, ringWidth);
+        synchronized (this) {
+            pending.clear();
+            pending.addAll(tiles);
+        }
+        scheduler.execute(this::dispatch);
+    }
+
+    /**
+     * Abandonne les tuiles en attente de préchargement
+     */
+    public synchronized void cancel() {
+        pending.clear();
+    }
+
+    /**
+     * Retourne le nombre de tuiles en attente de préchargement
+     *
+     * @return le nombre de tuiles en attente
+     */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Retourne les tuiles à précharger autour de la portion donnée, dans l'ordre décrit par prefetchAround
+     */
+    static List<TileManager.TileId> tilesAround(MapViewParameters mapView, double width, double height,
+                                                int ringWidth) {
+        int zoomLevel = mapView.zoomLevel();
+        int minX = (int) Math.floor(mapView.x() / TILE_LENGTH);
+        int minY = (int) Math.floor(mapView.y() / TILE_LENGTH);
+        int maxX = (int) Math.floor((mapView.x() + width) / TILE_LENGTH);
+        int maxY = (int) Math.floor((mapView.y() + height) / TILE_LENGTH);
+
+        List<TileManager.TileId> tiles = new ArrayList<>();
+        List<TileManager.TileId> ring = new ArrayList<>();
+        addTiles(ring, zoomLevel, minX - ringWidth, minY - ringWidth, maxX + ringWidth, maxY + ringWidth);
+        ring.removeIf(t -> t.x() >= minX && t.x() <= maxX && t.y() >= minY && t.y() <= maxY);
+        // les tuiles sont triées par distance, en tuiles, à la portion affichée
+        ring.sort(Comparator.comparingInt(t -> Math.max(
+                Math.max(minX - t.x(), t.x() - maxX), Math.max(minY - t.y(), t.y() - maxY))));
+        tiles.addAll(ring);
+
+        if (zoomLevel > MIN_ZOOM_LEVEL) {
+            addTiles(tiles, zoomLevel - 1, (minX - ringWidth) >> 1, (minY - ringWidth) >> 1,
+                    (maxX + ringWidth) >> 1, (maxY + ringWidth) >> 1);
+        }
+        if (zoomLevel < MAX_ZOOM_LEVEL) {
+            addTiles(tiles, zoomLevel + 1, 2 * minX, 2 * minY, 2 * maxX + 1, 2 * maxY + 1);
+        }
+        return tiles;
+    }
+
+    private static void addTiles(List<TileManager.TileId> tiles, int zoomLevel,
+                                 int minX, int minY, int maxX, int maxY) {
+        for (int x = Math.max(0, minX); x <= maxX; x++) {
+            for (int y = Math.max(0, minY); y <= maxY; y++) {
+                if (TileManager.TileId.isValid(zoomLevel, x, y)) tiles.add(new TileManager.TileId(zoomLevel, x, y));
+            }
+        }
+    }
+
+    /**
+     * Lance le préchargement des tuiles en attente tant que le nombre de tuiles simultanées et le débit le permettent ;
+     * lorsque le débit est épuisé, un nouvel appel est planifié pour le moment où il sera reconstitué
+     */
+    private synchronized void dispatch() {
+        refill();
+        while (running < maxConcurrent && !pending.isEmpty()) {
+            if (availableBytes <= 0) {
+                if (!dispatchScheduled) {
+                    dispatchScheduled = true;
+                    long delayNanos = (long) (-availableBytes / maxBytesPerSecond * 1e9) + 1;
+                    scheduler.schedule(this::scheduledDispatch, delayNanos, TimeUnit.NANOSECONDS);
+                }
+                return;
+            }
+            running++;
+            tileManager.storeTileAsync(pending.poll()).whenComplete((bytes, e) -> {
+                synchronized (this) {
+                    running--;
+                    if (bytes != null) availableBytes -= bytes;
+                }
+                scheduler.execute(this::dispatch);
+            });
+        }
+    }
+
+    private synchronized void scheduledDispatch() {
+        dispatchScheduled = false;
+        dispatch();
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        availableBytes = Math.min(maxBytesPerSecond,
+                availableBytes + (now - lastRefillNanos) / 1e9 * maxBytesPerSecond);
+        lastRefillNanos = now;
+    }
+}
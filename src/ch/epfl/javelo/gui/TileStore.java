@@ -0,0 +1,79 @@
+package ch.epfl.javelo.gui;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+/**
+ * Représente le stockage sur disque des tuiles (encodées en PNG) d'une source de tuiles, utilisé par TileManager
+ *
+ * @author Georges Moussalli (316630)
+ */
+public interface TileStore {
+
+    /**
+     * Retourne le chemin d'accès au répertoire ou au fichier contenant les tuiles
+     *
+     * @return le chemin d'accès du stockage
+     */
+    Path path();
+
+    /**
+     * Retourne vrai ssi la tuile d'identité donnée se trouve dans le stockage
+     *
+     * @param tileId identité de la tuile
+     * @return vrai ssi la tuile est stockée
+     */
+    boolean contains(TileManager.TileId tileId);
+
+    /**
+     * Retourne le contenu de la tuile d'identité donnée, ou null si elle ne se trouve pas dans le stockage
+     *
+     * @param tileId identité de la tuile
+     * @return le contenu de la tuile, ou null
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    byte[] read(TileManager.TileId tileId) throws IOException;
+
+    /**
+     * Stocke le contenu donné pour la tuile d'identité donnée, en remplaçant celui qui s'y trouvait éventuellement,
+     * puis évince des tuiles si le quota du stockage est dépassé
+     *
+     * @param tileId identité de la tuile
+     * @param tile   contenu de la tuile
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    void write(TileManager.TileId tileId, byte[] tile) throws IOException;
+
+    /**
+     * Retourne le nombre d'octets occupés par les tuiles du stockage
+     *
+     * @return le nombre d'octets occupés
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    long sizeBytes() throws IOException;
+
+    /**
+     * Politique déterminant quelles tuiles sont évincées lorsque le quota d'un stockage est dépassé
+     */
+    enum EvictionPolicy {
+        /**
+         * Évince en premier les tuiles les moins récemment utilisées
+         */
+        LRU(Comparator.comparingLong(TileUsage.Snapshot::lastAccess)),
+        /**
+         * Évince en premier les tuiles les moins fréquemment utilisées, puis les moins récemment utilisées
+         */
+        LFU(Comparator.comparingInt(TileUsage.Snapshot::accesses).thenComparingLong(TileUsage.Snapshot::lastAccess));
+
+        private final Comparator<TileUsage.Snapshot> evictionOrder;
+
+        EvictionPolicy(Comparator<TileUsage.Snapshot> evictionOrder) {
+            this.evictionOrder = evictionOrder;
+        }
+
+        Comparator<TileUsage.Snapshot> evictionOrder() {
+            return evictionOrder;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ch.epfl.javelo.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Représente l'utilisation d'une tuile d'un stockage sur disque : sa taille, l'instant de son dernier accès
+ * et son nombre d'accès depuis l'ouverture du stockage
+ *
+ * @author Georges Moussalli (316630)
+ */
+final class TileUsage {
+
+    private final long bytes;
+    private volatile long lastAccess;
+    private volatile int accesses;
+
+    private TileUsage(long bytes, long lastAccess) {
+        this.bytes = bytes;
+        this.lastAccess = lastAccess;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    int accesses() {
+        return accesses;
+    }
+
+    /**
+     * Représente l'utilisation d'une tuile à un instant donné, qui ne change plus ensuite
+     * et peut donc être triée alors que des lectures de tuiles sont en cours
+     *
+     * @param tileId     identité de la tuile
+     * @param bytes      taille de la tuile, en octets
+     * @param lastAccess instant du dernier accès à la tuile
+     * @param accesses   nombre d'accès à la tuile
+     */
+    record Snapshot(TileManager.TileId tileId, long bytes, long lastAccess, int accesses) {
+    }
+
+    /**
+     * Représente l'ensemble des utilisations des tuiles d'un stockage, ainsi que leur taille totale
+     */
+    static final class Index {
+        private final Map<TileManager.TileId, TileUsage> usages = new ConcurrentHashMap<>();
+        private final AtomicLong totalBytes = new AtomicLong();
+
+        /**
+         * Ajoute (ou remplace) la tuile donnée, de taille et d'instant de dernier accès donnés
+         */
+        void add(TileManager.TileId tileId, long bytes, long lastAccess) {
+            TileUsage previous = usages.put(tileId, new TileUsage(bytes, lastAccess));
+            totalBytes.addAndGet(previous == null ? bytes : bytes - previous.bytes);
+        }
+
+        /**
+         * Enregistre un accès à la tuile donnée, si elle se trouve dans l'index
+         */
+        void recordAccess(TileManager.TileId tileId) {
+            TileUsage usage = usages.get(tileId);
+            if (usage != null) {
+                // les mises à jour concurrentes peuvent se perdre, ce qui n'affecte que la précision de l'éviction
+                usage.lastAccess = System.currentTimeMillis();
+                usage.accesses = usage.accesses + 1;
+            }
+        }
+
+        void remove(TileManager.TileId tileId) {
+            TileUsage usage = usages.remove(tileId);
+            if (usage != null) totalBytes.addAndGet(-usage.bytes);
+        }
+
+        long totalBytes() {
+            return totalBytes.get();
+        }
+
+        /**
+         * Retourne, dans l'ordre d'éviction de la politique donnée, les tuiles à évincer pour que la taille totale
+         * des tuiles restantes ne dépasse pas le nombre d'octets donné
+         */
+        List<TileManager.TileId> victims(TileStore.EvictionPolicy policy, long targetBytes) {
+            // les utilisations sont copiées, recordAccess pouvant les modifier pendant le tri
+            List<Snapshot> snapshots = new ArrayList<>(usages.size());
+            usages.forEach((tileId, usage) ->
+                    snapshots.add(new Snapshot(tileId, usage.bytes, usage.lastAccess, usage.accesses)));
+            snapshots.sort(policy.evictionOrder());
+            List<TileManager.TileId> victims = new ArrayList<>();
+            long bytes = totalBytes();
+            for (int i = 0; i < snapshots.size() && bytes > targetBytes; i++) {
+                victims.add(snapshots.get(i).tileId());
+                bytes -= snapshots.get(i).bytes();
+            }
+            return victims;
+        }
+
+        /**
+         * Retourne les identités des tuiles de l'index
+         */
+        Iterable<TileManager.TileId> tileIds() {
+            return usages.keySet();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.AttributeSet;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Fonction de coût dont le facteur se décompose en une partie ne dépendant que des attributs OSM de l'arête
+ * et de son sens (le facteur « sur le plat »), et une partie dépendant de sa pente moyenne.
+ * Seule la première est propre à chaque profil ; comme de nombreuses arêtes partagent le même ensemble d'attributs,
+ * elle peut être calculée une fois par ensemble (voir memoized).
+ *
+ * @author Georges Moussalli (316630)
+ */
+public interface AttributeCostFunction extends CostFunction {
+
+    /**
+     * Retourne le graphe dont la fonction de coût évalue les arêtes
+     *
+     * @return le graphe
+     */
+    Graph graph();
+
+    /**
+     * Retourne le facteur de coût, sur le plat, d'une arête portant les attributs donnés et parcourue dans le sens donné ;
+     * ce facteur doit être supérieur ou égal à 1, ou infini si l'arête est interdite
+     *
+     * @param edgeAttributes attributs OSM de l'arête
+     * @param isInverted     vrai ssi l'arête va dans le sens contraire de la voie OSM dont elle provient
+     * @return le facteur de coût sur le plat
+     */
+    double flatCostFactor(AttributeSet edgeAttributes, boolean isInverted);
+
+    /**
+     * Retourne vrai ssi le facteur de coût d'une arête portant les attributs donnés dépend de sa pente,
+     * ce qui est le cas par défaut
+     *
+     * @param edgeAttributes attributs OSM de l'arête
+     * @return vrai ssi le facteur de coût sur le plat doit être corrigé en fonction de la pente
+     */
+    default boolean dependsOnSlope(AttributeSet edgeAttributes) {
+        return true;
+    }
+
+    /**
+     * Retourne le facteur de coût d'une arête de facteur sur le plat et de pente montante moyenne donnés ;
+     * par défaut, le facteur sur le plat est majoré par paliers de pente
+     *
+     * @param flatCostFactor facteur de coût sur le plat
+     * @param averageUpSlope dénivelé positif de l'arête divisé par sa longueur
+     * @return le facteur de coût de l'arête
+     */
+    default double slopeCostFactor(double flatCostFactor, double averageUpSlope) {
+        if (averageUpSlope < 0.01) return flatCostFactor;
+        else if (averageUpSlope < 0.03) return flatCostFactor * 1.2;
+        else if (averageUpSlope < 0.05) return flatCostFactor * 1.4;
+        else if (averageUpSlope < 0.10) return flatCostFactor * 1.8;
+        else return flatCostFactor * 2.6;
+    }
+
+    @Override
+    default double costFactor(int nodeId, int edgeId) {
+        AttributeSet edgeAttributes = graph().edgeAttributes(edgeId);
+        double flatCostFactor = flatCostFactor(edgeAttributes, graph().edgeIsInverted(edgeId));
+        if (!dependsOnSlope(edgeAttributes)) return flatCostFactor;
+        return slopeCostFactor(flatCostFactor, graph().edgeElevationGain(edgeId) / graph().edgeLength(edgeId));
+    }
+
+    /**
+     * Retourne une fonction de coût identique au récepteur, dont la partie dépendant des attributs
+     * est calculée une fois pour toutes pour chacun des ensembles d'attributs du graphe et dans chacun des deux sens
+     *
+     * @return la fonction de coût mémoïsée
+     */
+    default CostFunction memoized() {
+        return new MemoizedCostFunction(this);
+    }
+}
@@ -0,0 +1,217 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+
+import static ch.epfl.javelo.data.BinaryFiles.mapChecked;
+
+/**
+ * Représente la hiérarchie de contraction (Contraction Hierarchies) du graphe JaVelo pour une fonction de coût donnée,
+ * c.-à-d. le rang de chaque nœud ainsi que les arêtes (originales ou raccourcis) permettant une recherche
+ * bidirectionnelle n'explorant que des nœuds de rang croissant.
+ * Les fichiers ch_&lt;profil&gt;_*.bin commencent par la somme de contrôle des fichiers du graphe
+ * dont ils sont dérivés.
+ *
+ * @param ranks       la mémoire tampon contenant le rang de chacun des nœuds du graphe
+ * @param edgesBuffer la mémoire tampon contenant la totalité des arêtes de la hiérarchie
+ * @param upward      la mémoire tampon contenant, pour chaque nœud, les arêtes sortantes menant à un nœud de rang supérieur
+ * @param downward    la mémoire tampon contenant, pour chaque nœud, les arêtes entrantes provenant d'un nœud de rang supérieur
+ * @author Georges Moussalli (316630)
+ */
+public record ContractionHierarchy(IntBuffer ranks, ByteBuffer edgesBuffer, IntBuffer upward, IntBuffer downward) {
+
+    public static final int OFFSET_FROM = 0;
+    public static final int OFFSET_TO = OFFSET_FROM + Integer.BYTES;
+    public static final int OFFSET_WEIGHT = OFFSET_TO + Integer.BYTES;
+    public static final int OFFSET_FIRST = OFFSET_WEIGHT + Float.BYTES;
+    public static final int OFFSET_SECOND = OFFSET_FIRST + Integer.BYTES;
+    public static final int EDGE_BYTES = OFFSET_SECOND + Integer.BYTES;
+    public static final int NO_CHILD = -1;
+
+    /**
+     * Retourne la hiérarchie de contraction du profil donné, obtenue à partir des fichiers se trouvant
+     * dans le répertoire dont le chemin d'accès est basePath ; chacun de ces fichiers commence par la somme de contrôle
+     * des fichiers du graphe dont il est dérivé, qui doit correspondre à celle des fichiers actuels du graphe
+     *
+     * @param basePath chemin d'accès du répertoire contenant le graphe
+     * @param profile  nom du profil (voir CostFunction.name)
+     * @return la hiérarchie de contraction du profil donné
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des fichiers attendu n'existe pas,
+     *                     ou s'il a été calculé pour un autre graphe (reconstruit ou renuméroté depuis)
+     */
+    public static ContractionHierarchy loadFrom(Path basePath, String profile) throws IOException {
+        return loadFrom(basePath, profile, PrecomputedCostFunction.costChecksum(basePath));
+    }
+
+    static ContractionHierarchy loadFrom(Path basePath, String profile, long checksum) throws IOException {
+        return new ContractionHierarchy(
+                mapChecked(ranksPath(basePath, profile), checksum).asIntBuffer(),
+                mapChecked(edgesPath(basePath, profile), checksum),
+                mapChecked(upwardPath(basePath, profile), checksum).asIntBuffer(),
+                mapChecked(downwardPath(basePath, profile), checksum).asIntBuffer());
+    }
+
+    /**
+     * Retourne vrai ssi les fichiers de la hiérarchie du profil donné existent dans le répertoire donné
+     *
+     * @param basePath chemin d'accès du répertoire contenant le graphe
+     * @param profile  nom du profil
+     * @return vrai ssi les fichiers de la hiérarchie existent
+     */
+    public static boolean existsIn(Path basePath, String profile) {
+        return ranksPath(basePath, profile).toFile().exists()
+                && edgesPath(basePath, profile).toFile().exists()
+                && upwardPath(basePath, profile).toFile().exists()
+                && downwardPath(basePath, profile).toFile().exists();
+    }
+
+    static Path ranksPath(Path basePath, String profile) {
+        return basePath.resolve("ch_" + profile + "_ranks.bin");
+    }
+
+    static Path edgesPath(Path basePath, String profile) {
+        return basePath.resolve("ch_" + profile + "_edges.bin");
+    }
+
+    static Path upwardPath(Path basePath, String profile) {
+        return basePath.resolve("ch_" + profile + "_upward.bin");
+    }
+
+    static Path downwardPath(Path basePath, String profile) {
+        return basePath.resolve("ch_" + profile + "_downward.bin");
+    }
+
+    /**
+     * Retourne le nombre de nœuds de la hiérarchie
+     *
+     * @return le nombre de nœuds de la hiérarchie
+     */
+    public int nodeCount() {
+        return ranks.capacity();
+    }
+
+    /**
+     * Retourne le nombre d'arêtes (originales et raccourcis) de la hiérarchie
+     *
+     * @return le nombre d'arêtes de la hiérarchie
+     */
+    public int edgeCount() {
+        return edgesBuffer.capacity() / EDGE_BYTES;
+    }
+
+    /**
+     * Retourne le rang du nœud d'identité donnée, c.-à-d. sa position dans l'ordre de contraction
+     *
+     * @param nodeId identité du noeud
+     * @return le rang du nœud d'identité donnée
+     */
+    public int rank(int nodeId) {
+        return ranks.get(nodeId);
+    }
+
+    /**
+     * Retourne l'identité du nœud de départ de l'arête de la hiérarchie d'identité donnée
+     *
+     * @param chEdgeId identité de l'arête de la hiérarchie
+     * @return l'identité du nœud de départ de l'arête
+     */
+    public int edgeFromNodeId(int chEdgeId) {
+        return edgesBuffer.getInt(chEdgeId * EDGE_BYTES + OFFSET_FROM);
+    }
+
+    /**
+     * Retourne l'identité du nœud d'arrivée de l'arête de la hiérarchie d'identité donnée
+     *
+     * @param chEdgeId identité de l'arête de la hiérarchie
+     * @return l'identité du nœud d'arrivée de l'arête
+     */
+    public int edgeToNodeId(int chEdgeId) {
+        return edgesBuffer.getInt(chEdgeId * EDGE_BYTES + OFFSET_TO);
+    }
+
+    /**
+     * Retourne le coût de l'arête de la hiérarchie d'identité donnée
+     *
+     * @param chEdgeId identité de l'arête de la hiérarchie
+     * @return le coût (longueur pondérée par la fonction de coût) de l'arête
+     */
+    public float edgeWeight(int chEdgeId) {
+        return edgesBuffer.getFloat(chEdgeId * EDGE_BYTES + OFFSET_WEIGHT);
+    }
+
+    /**
+     * Retourne vrai ssi l'arête de la hiérarchie d'identité donnée est un raccourci
+     *
+     * @param chEdgeId identité de l'arête de la hiérarchie
+     * @return vrai ssi l'arête est un raccourci, faux si elle correspond à une arête du graphe
+     */
+    public boolean isShortcut(int chEdgeId) {
+        return edgesBuffer.getInt(chEdgeId * EDGE_BYTES + OFFSET_SECOND) != NO_CHILD;
+    }
+
+    /**
+     * Retourne l'identité de l'arête du graphe correspondant à l'arête de la hiérarchie donnée si celle-ci
+     * n'est pas un raccourci, ou l'identité de la première arête de la hiérarchie qu'il remplace sinon
+     *
+     * @param chEdgeId identité de l'arête de la hiérarchie
+     * @return l'identité de l'arête du graphe, ou celle de la première moitié du raccourci
+     */
+    public int edgeFirst(int chEdgeId) {
+        return edgesBuffer.getInt(chEdgeId * EDGE_BYTES + OFFSET_FIRST);
+    }
+
+    /**
+     * Retourne l'identité de la seconde arête de la hiérarchie remplacée par le raccourci donné,
+     * ou NO_CHILD si l'arête n'est pas un raccourci
+     *
+     * @param chEdgeId identité de l'arête de la hiérarchie
+     * @return l'identité de la seconde moitié du raccourci, ou NO_CHILD
+     */
+    public int edgeSecond(int chEdgeId) {
+        return edgesBuffer.getInt(chEdgeId * EDGE_BYTES + OFFSET_SECOND);
+    }
+
+    /**
+     * Retourne le nombre d'arêtes sortant du nœud donné vers un nœud de rang supérieur
+     *
+     * @param nodeId identité du noeud
+     * @return le nombre d'arêtes montantes sortant du nœud
+     */
+    public int upwardDegree(int nodeId) {
+        return upward.get(nodeId + 1) - upward.get(nodeId);
+    }
+
+    /**
+     * Retourne l'identité de la edgeIndex-ième arête sortant du nœud donné vers un nœud de rang supérieur
+     *
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête
+     * @return l'identité de l'arête de la hiérarchie
+     */
+    public int upwardEdgeId(int nodeId, int edgeIndex) {
+        return upward.get(nodeCount() + 1 + upward.get(nodeId) + edgeIndex);
+    }
+
+    /**
+     * Retourne le nombre d'arêtes entrant dans le nœud donné depuis un nœud de rang supérieur
+     *
+     * @param nodeId identité du noeud
+     * @return le nombre d'arêtes descendantes entrant dans le nœud
+     */
+    public int downwardDegree(int nodeId) {
+        return downward.get(nodeId + 1) - downward.get(nodeId);
+    }
+
+    /**
+     * Retourne l'identité de la edgeIndex-ième arête entrant dans le nœud donné depuis un nœud de rang supérieur
+     *
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête
+     * @return l'identité de l'arête de la hiérarchie
+     */
+    public int downwardEdgeId(int nodeId, int edgeIndex) {
+        return downward.get(nodeCount() + 1 + downward.get(nodeId) + edgeIndex);
+    }
+}
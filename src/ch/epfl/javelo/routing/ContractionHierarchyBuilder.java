@@ -0,0 +1,372 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static ch.epfl.javelo.data.BinaryFiles.asBytes;
+import static ch.epfl.javelo.data.BinaryFiles.writeChecked;
+
+/**
+ * Prétraitement hors ligne calculant la hiérarchie de contraction du graphe JaVelo pour une fonction de coût donnée.
+ * Les nœuds sont contractés par ordre de « différence d'arêtes » croissante (avec mise à jour paresseuse des priorités),
+ * et un raccourci n'est ajouté que si aucun chemin témoin (witness) de coût inférieur n'est trouvé par une recherche
+ * locale bornée.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class ContractionHierarchyBuilder {
+
+    private static final int WITNESS_SETTLED_LIMIT = 500;
+    private static final int INITIAL_EDGE_CAPACITY = 1 << 16;
+    private static final int INITIAL_LIST_CAPACITY = 4;
+
+    private record WeightedNode(int nodeId, float distance) implements Comparable<WeightedNode> {
+        @Override
+        public int compareTo(WeightedNode that) {
+            return Float.compare(this.distance, that.distance);
+        }
+    }
+
+    private final int nodeCount;
+
+    private int edgeCount;
+    private int[] from = new int[INITIAL_EDGE_CAPACITY];
+    private int[] to = new int[INITIAL_EDGE_CAPACITY];
+    private float[] weight = new float[INITIAL_EDGE_CAPACITY];
+    private int[] first = new int[INITIAL_EDGE_CAPACITY];
+    private int[] second = new int[INITIAL_EDGE_CAPACITY];
+
+    private final int[][] outEdges;
+    private final int[] outSizes;
+    private final int[][] inEdges;
+    private final int[] inSizes;
+
+    private final boolean[] contracted;
+    private final int[] deletedNeighbours;
+    private final int[] ranks;
+
+    private final float[] witnessDistance;
+    private final int[] witnessStamp;
+    private int stamp;
+
+    private ContractionHierarchyBuilder(Graph graph, CostFunction costFunction) {
+        nodeCount = graph.nodeCount();
+        outEdges = new int[nodeCount][];
+        outSizes = new int[nodeCount];
+        inEdges = new int[nodeCount][];
+        inSizes = new int[nodeCount];
+        contracted = new boolean[nodeCount];
+        deletedNeighbours = new int[nodeCount];
+        ranks = new int[nodeCount];
+        witnessDistance = new float[nodeCount];
+        witnessStamp = new int[nodeCount];
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int targetId = graph.edgeTargetNodeId(edgeId);
+                double costFactor = costFunction.costFactor(nodeId, edgeId);
+                if (targetId == nodeId || costFactor == Double.POSITIVE_INFINITY) continue;
+                addOrImproveEdge(nodeId, targetId, (float) (graph.edgeLength(edgeId) * costFactor),
+                        edgeId, ContractionHierarchy.NO_CHILD);
+            }
+        }
+    }
+
+    /**
+     * Calcule la hiérarchie de contraction du graphe donné pour la fonction de coût donnée
+     *
+     * @param graph        graphe à contracter
+     * @param costFunction fonction de coût donnant le poids des arêtes
+     * @return la hiérarchie de contraction, stockée en mémoire
+     */
+    public static ContractionHierarchy build(Graph graph, CostFunction costFunction) {
+        ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder(graph, costFunction);
+        builder.contractAll();
+        return builder.toHierarchy();
+    }
+
+    /**
+     * Retourne la hiérarchie de contraction du graphe se trouvant dans le répertoire donné pour la fonction de coût
+     * donnée, projetée en mémoire depuis les fichiers ch_&lt;profil&gt;_*.bin de ce répertoire s'ils correspondent
+     * aux fichiers du graphe ; sinon, elle est calculée puis écrite dans ces fichiers, dans la mesure du possible
+     *
+     * @param graph        graphe chargé depuis le répertoire donné
+     * @param costFunction fonction de coût donnant le poids des arêtes
+     * @param basePath     chemin d'accès du répertoire contenant le graphe
+     * @return la hiérarchie de contraction
+     * @throws IOException en cas d'erreur d'entrée/sortie lors de la lecture des fichiers du graphe
+     */
+    public static ContractionHierarchy loadOrBuild(Graph graph, CostFunction costFunction, Path basePath)
+            throws IOException {
+        long checksum = PrecomputedCostFunction.costChecksum(basePath);
+        try {
+            return ContractionHierarchy.loadFrom(basePath, costFunction.name(), checksum);
+        } catch (IOException e) {
+            // Fichiers absents, ou calculés pour un autre graphe : la hiérarchie est recalculée
+        }
+
+        ContractionHierarchy hierarchy = build(graph, costFunction);
+        try {
+            write(hierarchy, basePath, costFunction.name(), checksum);
+        } catch (IOException e) {
+            // Répertoire en lecture seule : la hiérarchie reste en mémoire et sera recalculée au prochain chargement
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Écrit la hiérarchie donnée dans le répertoire donné, à côté des fichiers du graphe dont elle a été calculée,
+     * sous le nom du profil donné ; chaque fichier commence par la somme de contrôle de ceux du graphe
+     *
+     * @param hierarchy hiérarchie à écrire
+     * @param basePath  chemin d'accès du répertoire contenant le graphe
+     * @param profile   nom du profil (voir CostFunction.name)
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void write(ContractionHierarchy hierarchy, Path basePath, String profile) throws IOException {
+        write(hierarchy, basePath, profile, PrecomputedCostFunction.costChecksum(basePath));
+    }
+
+    private static void write(ContractionHierarchy hierarchy, Path basePath, String profile, long checksum)
+            throws IOException {
+        writeChecked(ContractionHierarchy.ranksPath(basePath, profile), checksum, asBytes(hierarchy.ranks()));
+        writeChecked(ContractionHierarchy.edgesPath(basePath, profile), checksum,
+                hierarchy.edgesBuffer().duplicate().rewind());
+        writeChecked(ContractionHierarchy.upwardPath(basePath, profile), checksum, asBytes(hierarchy.upward()));
+        writeChecked(ContractionHierarchy.downwardPath(basePath, profile), checksum, asBytes(hierarchy.downward()));
+    }
+
+    /**
+     * Calcule et écrit la hiérarchie de contraction de chacun des profils de JaVelo
+     *
+     * @param args le chemin d'accès du répertoire contenant le graphe (par défaut « lausanne »)
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "lausanne");
+        Graph graph = Graph.loadFrom(basePath);
+        for (CostFunction costFunction : List.of(new CityBikeCF(graph), new SportBikeCF(graph),
+                new VttBikeCF(graph), new HikingBikeCF(graph))) {
+            long start = System.nanoTime();
+            ContractionHierarchy hierarchy = build(graph, costFunction);
+            write(hierarchy, basePath, costFunction.name());
+            System.out.printf("%s : %d arêtes (dont %d raccourcis) en %.1f s%n",
+                    costFunction.name(), hierarchy.edgeCount(), shortcutCount(hierarchy),
+                    (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private static int shortcutCount(ContractionHierarchy hierarchy) {
+        int count = 0;
+        for (int i = 0; i < hierarchy.edgeCount(); i++) {
+            if (hierarchy.isShortcut(i)) count++;
+        }
+        return count;
+    }
+
+    private void contractAll() {
+        PriorityQueue<WeightedNode> queue = new PriorityQueue<>();
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            queue.add(new WeightedNode(nodeId, priority(nodeId)));
+        }
+
+        int rank = 0;
+        while (!queue.isEmpty()) {
+            WeightedNode node = queue.remove();
+            int priority = priority(node.nodeId);
+            if (!queue.isEmpty() && priority > queue.peek().distance) {
+                queue.add(new WeightedNode(node.nodeId, priority));
+                continue;
+            }
+            contract(node.nodeId, true);
+            contracted[node.nodeId] = true;
+            ranks[node.nodeId] = rank++;
+
+            for (int i = 0; i < inSizes[node.nodeId]; i++) {
+                deletedNeighbours[from[inEdges[node.nodeId][i]]]++;
+            }
+            for (int i = 0; i < outSizes[node.nodeId]; i++) {
+                deletedNeighbours[to[outEdges[node.nodeId][i]]]++;
+            }
+        }
+    }
+
+    private int priority(int nodeId) {
+        int degree = 0;
+        for (int i = 0; i < inSizes[nodeId]; i++) {
+            if (!contracted[from[inEdges[nodeId][i]]]) degree++;
+        }
+        for (int i = 0; i < outSizes[nodeId]; i++) {
+            if (!contracted[to[outEdges[nodeId][i]]]) degree++;
+        }
+        return contract(nodeId, false) - degree + deletedNeighbours[nodeId];
+    }
+
+    /**
+     * Contracte (ou simule la contraction si apply est faux) le nœud donné et retourne le nombre de raccourcis nécessaires
+     */
+    private int contract(int nodeId, boolean apply) {
+        int shortcuts = 0;
+        for (int i = 0; i < inSizes[nodeId]; i++) {
+            int inEdge = inEdges[nodeId][i];
+            int sourceId = from[inEdge];
+            if (contracted[sourceId]) continue;
+
+            float maxOut = Float.NEGATIVE_INFINITY;
+            for (int j = 0; j < outSizes[nodeId]; j++) {
+                int outEdge = outEdges[nodeId][j];
+                if (contracted[to[outEdge]] || to[outEdge] == sourceId) continue;
+                maxOut = Math.max(maxOut, weight[outEdge]);
+            }
+            if (maxOut == Float.NEGATIVE_INFINITY) continue;
+
+            witnessSearch(sourceId, nodeId, weight[inEdge] + maxOut);
+
+            for (int j = 0; j < outSizes[nodeId]; j++) {
+                int outEdge = outEdges[nodeId][j];
+                int targetId = to[outEdge];
+                if (contracted[targetId] || targetId == sourceId) continue;
+                float viaNode = weight[inEdge] + weight[outEdge];
+                if (witnessDistance(targetId) > viaNode) {
+                    shortcuts++;
+                    if (apply) addOrImproveEdge(sourceId, targetId, viaNode, inEdge, outEdge);
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    private void witnessSearch(int sourceId, int ignoredId, float maxDistance) {
+        stamp++;
+        PriorityQueue<WeightedNode> queue = new PriorityQueue<>();
+        setWitnessDistance(sourceId, 0);
+        queue.add(new WeightedNode(sourceId, 0));
+
+        int settled = 0;
+        while (!queue.isEmpty() && settled < WITNESS_SETTLED_LIMIT) {
+            WeightedNode node = queue.remove();
+            if (node.distance > witnessDistance(node.nodeId)) continue;
+            if (node.distance > maxDistance) break;
+            settled++;
+
+            for (int i = 0; i < outSizes[node.nodeId]; i++) {
+                int edge = outEdges[node.nodeId][i];
+                int targetId = to[edge];
+                if (targetId == ignoredId || contracted[targetId]) continue;
+                float distance = node.distance + weight[edge];
+                if (distance < witnessDistance(targetId)) {
+                    setWitnessDistance(targetId, distance);
+                    queue.add(new WeightedNode(targetId, distance));
+                }
+            }
+        }
+    }
+
+    private float witnessDistance(int nodeId) {
+        return witnessStamp[nodeId] == stamp ? witnessDistance[nodeId] : Float.POSITIVE_INFINITY;
+    }
+
+    private void setWitnessDistance(int nodeId, float distance) {
+        witnessStamp[nodeId] = stamp;
+        witnessDistance[nodeId] = distance;
+    }
+
+    private void addOrImproveEdge(int fromId, int toId, float edgeWeight, int firstChild, int secondChild) {
+        for (int i = 0; i < outSizes[fromId]; i++) {
+            int edge = outEdges[fromId][i];
+            if (to[edge] == toId) {
+                if (edgeWeight < weight[edge]) {
+                    weight[edge] = edgeWeight;
+                    first[edge] = firstChild;
+                    second[edge] = secondChild;
+                }
+                return;
+            }
+        }
+
+        if (edgeCount == from.length) {
+            int capacity = 2 * edgeCount;
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+        }
+        int edge = edgeCount++;
+        from[edge] = fromId;
+        to[edge] = toId;
+        weight[edge] = edgeWeight;
+        first[edge] = firstChild;
+        second[edge] = secondChild;
+
+        append(outEdges, outSizes, fromId, edge);
+        append(inEdges, inSizes, toId, edge);
+    }
+
+    private static void append(int[][] lists, int[] sizes, int nodeId, int value) {
+        if (lists[nodeId] == null) {
+            lists[nodeId] = new int[INITIAL_LIST_CAPACITY];
+        } else if (sizes[nodeId] == lists[nodeId].length) {
+            lists[nodeId] = Arrays.copyOf(lists[nodeId], 2 * sizes[nodeId]);
+        }
+        lists[nodeId][sizes[nodeId]++] = value;
+    }
+
+    private ContractionHierarchy toHierarchy() {
+        ByteBuffer ranksBuffer = ByteBuffer.allocate(nodeCount * Integer.BYTES);
+        ranksBuffer.asIntBuffer().put(ranks);
+
+        ByteBuffer edgesBuffer = ByteBuffer.allocate(edgeCount * ContractionHierarchy.EDGE_BYTES);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            edgesBuffer.putInt(from[edge])
+                    .putInt(to[edge])
+                    .putFloat(weight[edge])
+                    .putInt(first[edge])
+                    .putInt(second[edge]);
+        }
+
+        int[] upwardOwner = new int[edgeCount];
+        int[] downwardOwner = new int[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            boolean isUpward = ranks[from[edge]] < ranks[to[edge]];
+            upwardOwner[edge] = isUpward ? from[edge] : -1;
+            downwardOwner[edge] = isUpward ? -1 : to[edge];
+        }
+
+        return new ContractionHierarchy(ranksBuffer.asIntBuffer(), edgesBuffer.rewind(),
+                adjacencyIndex(upwardOwner), adjacencyIndex(downwardOwner));
+    }
+
+    /**
+     * Construit l'index d'adjacence (nodeCount + 1 positions suivies des identités d'arêtes) regroupant
+     * chaque arête sous le nœud qui la possède, les arêtes sans propriétaire (-1) étant ignorées
+     */
+    private IntBuffer adjacencyIndex(int[] owner) {
+        int[] offsets = new int[nodeCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (owner[edge] >= 0) offsets[owner[edge] + 1]++;
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            offsets[nodeId + 1] += offsets[nodeId];
+        }
+
+        int[] index = new int[nodeCount + 1 + offsets[nodeCount]];
+        System.arraycopy(offsets, 0, index, 0, nodeCount + 1);
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (owner[edge] >= 0) index[nodeCount + 1 + next[owner[edge]]++] = edge;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(index.length * Integer.BYTES);
+        buffer.asIntBuffer().put(index);
+        return buffer.asIntBuffer();
+    }
+}
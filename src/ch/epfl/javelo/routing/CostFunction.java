@@ -22,4 +22,14 @@ public interface CostFunction {
      */
     double costFactor(int nodeId, int edgeId);
 
+    /**
+     * Retourne le nom du profil représenté par la fonction de coût, utilisé pour nommer
+     * les fichiers de prétraitement qui lui sont propres (p. ex. la hiérarchie de contraction)
+     *
+     * @return le nom du profil, par défaut le nom simple de la classe en minuscules
+     */
+    default String name() {
+        return getClass().getSimpleName().toLowerCase();
+    }
+
 }
@@ -59,6 +59,19 @@ public record Edge
 
     }
 
+    /**
+     * Retourne la portion de l'arête comprise entre les deux positions données, exprimées en mètres,
+     * qui garde les identités des nœuds de l'arête
+     *
+     * @param startPosition position du début de la portion sur l'arête
+     * @param endPosition   position de la fin de la portion sur l'arête, supérieure à celle du début
+     * @return la portion de l'arête comprise entre les deux positions données
+     */
+    public Edge portion(double startPosition, double endPosition) {
+        return new Edge(fromNodeId, toNodeId, pointAt(startPosition), pointAt(endPosition),
+                endPosition - startPosition, x -> profile.applyAsDouble(startPosition + x));
+    }
+
     /**
      * Retourne l'altitude, en mètres, à la position donnée sur l'arête
      *
@@ -0,0 +1,18 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.projection.PointCh;
+
+/**
+ * Représente le point d'une arête du graphe le plus proche d'un point de référence donné
+ *
+ * @param edgeId              identité de l'arête
+ * @param fromNodeId          identité du nœud de départ de l'arête
+ * @param toNodeId            identité du nœud d'arrivée de l'arête
+ * @param position            position du point le long de l'arête, en mètres depuis son nœud de départ
+ * @param point               point sur l'arête
+ * @param distanceToReference distance, en mètres, entre le point et la référence
+ * @author Georges Moussalli (316630)
+ */
+public record EdgePoint(int edgeId, int fromNodeId, int toNodeId, double position, PointCh point,
+                        double distanceToReference) {
+}
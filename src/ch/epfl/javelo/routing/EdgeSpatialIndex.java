@@ -0,0 +1,135 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphSectors;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.util.function.IntConsumer;
+
+import static ch.epfl.javelo.data.GraphSectors.SECTORS_PER_ROW;
+
+/**
+ * Index spatial des arêtes du graphe, permettant de trouver le point de l'arête la plus proche d'un point donné.
+ * Chaque arête, assimilée au segment reliant ses deux nœuds, est rangée dans toutes les cellules de la grille
+ * des 128 × 128 secteurs de JaVelo que son rectangle englobant intersecte.
+ * L'index est immuable et peut donc être interrogé par plusieurs fils d'exécution à la fois.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class EdgeSpatialIndex {
+
+    private static final int CELL_COUNT = SECTORS_PER_ROW * SECTORS_PER_ROW;
+
+    private final Graph graph;
+    private final int[] sourceNodeIds;
+    private final int[] cellOffsets;
+    private final int[] cellEdgeIds;
+
+    /**
+     * Construit l'index spatial des arêtes du graphe donné
+     *
+     * @param graph graphe
+     */
+    public EdgeSpatialIndex(Graph graph) {
+        this.graph = graph;
+        sourceNodeIds = new int[graph.edgeCount()];
+        cellOffsets = new int[CELL_COUNT + 1];
+
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                sourceNodeIds[edgeId] = nodeId;
+                forEachCell(edgeId, cell -> cellOffsets[cell + 1]++);
+            }
+        }
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            cellOffsets[cell + 1] += cellOffsets[cell];
+        }
+
+        cellEdgeIds = new int[cellOffsets[CELL_COUNT]];
+        int[] next = new int[CELL_COUNT];
+        System.arraycopy(cellOffsets, 0, next, 0, CELL_COUNT);
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                forEachCell(edgeId, cell -> cellEdgeIds[next[cell]++] = edgeId);
+            }
+        }
+    }
+
+    /**
+     * Retourne le point de l'arête la plus proche du point donné, à la distance maximale donnée (en mètres),
+     * ou null si aucune arête ne passe à cette distance
+     *
+     * @param point          point de référence
+     * @param searchDistance distance maximale de recherche
+     * @return le point de l'arête la plus proche, ou null si aucune arête ne se trouve à la distance donnée
+     */
+    public EdgePoint edgePointClosestTo(PointCh point, double searchDistance) {
+        double e = point.e();
+        double n = point.n();
+        int bestEdgeId = -1;
+        double bestRatio = 0;
+        double minimum = searchDistance * searchDistance;
+
+        int xUp = GraphSectors.sectorX(e + searchDistance);
+        int yDown = GraphSectors.sectorY(n - searchDistance);
+        int yUp = GraphSectors.sectorY(n + searchDistance);
+        for (int x = GraphSectors.sectorX(e - searchDistance); x <= xUp; x++) {
+            for (int y = yDown; y <= yUp; y++) {
+                int cell = x + SECTORS_PER_ROW * y;
+                for (int i = cellOffsets[cell]; i < cellOffsets[cell + 1]; i++) {
+                    int edgeId = cellEdgeIds[i];
+                    int fromNodeId = sourceNodeIds[edgeId];
+                    int toNodeId = graph.edgeTargetNodeId(edgeId);
+                    double fromE = graph.nodeE(fromNodeId);
+                    double fromN = graph.nodeN(fromNodeId);
+                    double toE = graph.nodeE(toNodeId);
+                    double toN = graph.nodeN(toNodeId);
+                    double ratio = projectionRatio(fromE, fromN, toE, toN, e, n);
+                    double dE = Math2.interpolate(fromE, toE, ratio) - e;
+                    double dN = Math2.interpolate(fromN, toN, ratio) - n;
+                    double squaredDistance = dE * dE + dN * dN;
+                    if (squaredDistance < minimum || (bestEdgeId == -1 && squaredDistance == minimum)) {
+                        minimum = squaredDistance;
+                        bestEdgeId = edgeId;
+                        bestRatio = ratio;
+                    }
+                }
+            }
+        }
+        if (bestEdgeId == -1) return null;
+
+        int fromNodeId = sourceNodeIds[bestEdgeId];
+        int toNodeId = graph.edgeTargetNodeId(bestEdgeId);
+        PointCh closest = new PointCh(
+                Math2.interpolate(graph.nodeE(fromNodeId), graph.nodeE(toNodeId), bestRatio),
+                Math2.interpolate(graph.nodeN(fromNodeId), graph.nodeN(toNodeId), bestRatio));
+        return new EdgePoint(bestEdgeId, fromNodeId, toNodeId, bestRatio * graph.edgeLength(bestEdgeId), closest,
+                Math.sqrt(minimum));
+    }
+
+    /**
+     * Retourne la fraction du segment allant de from à to à laquelle se trouve la projection du point donné,
+     * ramenée entre 0 et 1
+     */
+    private static double projectionRatio(double fromE, double fromN, double toE, double toN, double e, double n) {
+        double length = Math2.norm(toE - fromE, toN - fromN);
+        if (length == 0) return 0;
+        return Math2.clamp(0, Math2.projectionLength(fromE, fromN, toE, toN, e, n) / length, 1);
+    }
+
+    private void forEachCell(int edgeId, IntConsumer action) {
+        int fromNodeId = sourceNodeIds[edgeId];
+        int toNodeId = graph.edgeTargetNodeId(edgeId);
+        int xUp = GraphSectors.sectorX(Math.max(graph.nodeE(fromNodeId), graph.nodeE(toNodeId)));
+        int yDown = GraphSectors.sectorY(Math.min(graph.nodeN(fromNodeId), graph.nodeN(toNodeId)));
+        int yUp = GraphSectors.sectorY(Math.max(graph.nodeN(fromNodeId), graph.nodeN(toNodeId)));
+        for (int x = GraphSectors.sectorX(Math.min(graph.nodeE(fromNodeId), graph.nodeE(toNodeId))); x <= xUp; x++) {
+            for (int y = yDown; y <= yUp; y++) {
+                action.accept(x + SECTORS_PER_ROW * y);
+            }
+        }
+    }
+}
@@ -5,11 +5,9 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
@@ -24,6 +22,23 @@ import java.util.Locale;
 public class GpxGenerator {
 
 
+    // morceaux constants du document, tels que les écrit la sérialisation indentée du document DOM
+    private static final byte[] HEADER = ascii(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>",
+            "<gpx creator=\"JaVelo\" version=\"1.1\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
+                    + "xsi:schemaLocation=\"http://www.topografix.com/GPX/1/1 "
+                    + "http://www.topografix.com/GPX/1/1/gpx.xsd\" xmlns=\"http://www.topografix.com/GPX/1/1\">",
+            "    <metadata>",
+            "        <name>Route JaVelo</name>",
+            "    </metadata>",
+            "    <rte>",
+            "");
+    private static final byte[] RTEPT_LAT = ascii("        <rtept lat=\"");
+    private static final byte[] RTEPT_LON = ascii("\" lon=\"");
+    private static final byte[] ELE = ascii("\">", "            <ele>");
+    private static final byte[] ELE_END = ascii("</ele>", "        </rtept>", "");
+    private static final byte[] FOOTER = ascii("    </rte>", "</gpx>", "");
+
     private GpxGenerator() {
     }
 
@@ -87,28 +102,54 @@ public class GpxGenerator {
     }
 
     /**
-     * la seconde, nommée p. ex. writeGpx, qui prend en arguments un nom de fichier, un itinéraire
-     * et le profil de cet itinéraire et écrit le document GPX correspondant dans le fichier,
-     * ou lève IOException en cas d'erreur d'entrée/sortie
+     * Prend en arguments un nom de fichier, un itinéraire et le profil de cet itinéraire
+     * et écrit le document GPX correspondant dans le fichier, au moyen de writeGpx(OutputStream, …)
      * @param s nom du fichier
      * @param route itinéraire
      * @param elevationProfile elevation du profil
      * @throws IOException en cas d'erreur d'entrée ou de sortie
      */
     public static void writeGpx (String s, Route route, ElevationProfile elevationProfile) throws IOException {
-        Document doc = createGpx( route, elevationProfile);
-        try( Writer w = Files.newBufferedWriter(Path.of(s))){
-        Transformer transformer = TransformerFactory
-                .newDefaultInstance()
-                .newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.transform(new DOMSource(doc),
-                new StreamResult(w));
-        } catch (TransformerException e) {
-            throw new Error(e);
+        try (OutputStream out = Files.newOutputStream(Path.of(s))) {
+            writeGpx(out, route, elevationProfile);
         }
     }
 
+    /**
+     * Écrit dans le flot donné le document GPX correspondant à l'itinéraire et au profil donnés, octet pour octet
+     * identique à celui que produit la sérialisation du document retourné par createGpx. Le document est écrit
+     * au fur et à mesure, sans être construit en mémoire, et les nombres sont formatés sans passer par String.format ;
+     * le flot n'est pas fermé
+     * @param out flot dans lequel le document est écrit
+     * @param route itinéraire
+     * @param elevationProfile profil de l'itinéraire
+     * @throws IOException en cas d'erreur d'entrée ou de sortie
+     */
+    public static void writeGpx(OutputStream out, Route route, ElevationProfile elevationProfile) throws IOException {
+        AsciiWriter w = new AsciiWriter(out);
+        w.write(HEADER);
+
+        Iterator<Edge> i = route.edges().iterator();
+        int length = 0;
+
+        for (PointCh p : route.points()) {
+            w.write(RTEPT_LAT);
+            w.writeFixed(Math.toDegrees(p.lat()), 5);
+            w.write(RTEPT_LON);
+            w.writeFixed(Math.toDegrees(p.lon()), 5);
+            w.write(ELE);
+            w.writeFixed(elevationProfile.elevationAt(length), 2);
+            w.write(ELE_END);
+
+            // même troncature que createGpx, afin que les altitudes soient identiques
+            if (i.hasNext()) {
+                length += i.next().length();
+            }
+        }
+        w.write(FOOTER);
+        w.flush();
+    }
+
     private static Document newDocument() {
         try {
             return DocumentBuilderFactory
@@ -120,5 +161,84 @@ public class GpxGenerator {
         }
     }
 
+    private static byte[] ascii(String... lines) {
+        return String.join(System.lineSeparator(), lines).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Tampon d'écriture de caractères ASCII dans un flot d'octets, dont la méthode writeFixed formate les nombres
+     * exactement comme String.format(Locale.ROOT, "%.nf", …), sans allouer d'objet dans le cas courant
+     */
+    private static final class AsciiWriter {
+        private static final int BUFFER_SIZE = 1 << 13;
+        private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000};
+        // en deçà, l'erreur commise en multipliant la valeur par une puissance de dix est négligeable devant TIE_MARGIN
+        private static final double MAX_FAST_SCALED_VALUE = 1e10;
+        private static final double TIE_MARGIN = 1e-4;
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int size;
+
+        AsciiWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            if (bytes.length > BUFFER_SIZE - size) {
+                flushBuffer();
+                if (bytes.length > BUFFER_SIZE) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeFixed(double value, int decimals) throws IOException {
+            long scale = POWERS_OF_TEN[decimals];
+            double scaled = value * scale;
+            long units = (long) scaled;
+            double fraction = scaled - units;
+            // les valeurs négatives, trop grandes ou proches d'une égalité sont confiées à String.format
+            if (!(scaled >= 0 && scaled < MAX_FAST_SCALED_VALUE) || Double.doubleToRawLongBits(value) < 0
+                    || Math.abs(fraction - 0.5) < TIE_MARGIN) {
+                write(String.format(Locale.ROOT, "%." + decimals + "f", value).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            if (fraction > 0.5) units++;
+
+            if (BUFFER_SIZE - size < 32) flushBuffer();
+            long integerPart = units / scale;
+            long decimalPart = units % scale;
+            int start = size;
+            do {
+                buffer[size++] = (byte) ('0' + integerPart % 10);
+                integerPart /= 10;
+            } while (integerPart != 0);
+            for (int i = start, j = size - 1; i < j; i++, j--) {
+                byte digit = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = digit;
+            }
+            buffer[size++] = '.';
+            for (int i = decimals - 1; i >= 0; i--) {
+                buffer[size + i] = (byte) ('0' + decimalPart % 10);
+                decimalPart /= 10;
+            }
+            size += decimals;
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, size);
+            size = 0;
+        }
     }
+}
 
@@ -0,0 +1,123 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+
+import static ch.epfl.javelo.data.BinaryFiles.mapChecked;
+
+/**
+ * Représente les tables de distances aux points de repère (landmarks) utilisées par l'heuristique ALT
+ * (A*, landmarks, inégalité triangulaire) pour une fonction de coût donnée.
+ * Les distances d'un même nœud à tous les points de repère sont contiguës en mémoire.
+ * Les fichiers alt_&lt;profil&gt;_*.bin commencent par la somme de contrôle des fichiers du graphe
+ * dont ils sont dérivés.
+ *
+ * @param nodeIds       la mémoire tampon contenant l'identité des nœuds choisis comme points de repère
+ * @param fromLandmarks la mémoire tampon contenant, pour chaque nœud, le coût minimal depuis chaque point de repère
+ * @param toLandmarks   la mémoire tampon contenant, pour chaque nœud, le coût minimal vers chaque point de repère
+ * @author Georges Moussalli (316630)
+ */
+public record Landmarks(IntBuffer nodeIds, FloatBuffer fromLandmarks, FloatBuffer toLandmarks) {
+
+    /**
+     * Retourne les points de repère du profil donné, obtenus à partir des fichiers se trouvant
+     * dans le répertoire dont le chemin d'accès est basePath ; chacun de ces fichiers commence par la somme de contrôle
+     * des fichiers du graphe dont il est dérivé, qui doit correspondre à celle des fichiers actuels du graphe
+     *
+     * @param basePath chemin d'accès du répertoire contenant le graphe
+     * @param profile  nom du profil (voir CostFunction.name)
+     * @return les points de repère du profil donné
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des fichiers attendu n'existe pas,
+     *                     ou s'il a été calculé pour un autre graphe (reconstruit ou renuméroté depuis)
+     */
+    public static Landmarks loadFrom(Path basePath, String profile) throws IOException {
+        return loadFrom(basePath, profile, PrecomputedCostFunction.costChecksum(basePath));
+    }
+
+    static Landmarks loadFrom(Path basePath, String profile, long checksum) throws IOException {
+        return new Landmarks(
+                mapChecked(nodeIdsPath(basePath, profile), checksum).asIntBuffer(),
+                mapChecked(fromPath(basePath, profile), checksum).asFloatBuffer(),
+                mapChecked(toPath(basePath, profile), checksum).asFloatBuffer());
+    }
+
+    static Path nodeIdsPath(Path basePath, String profile) {
+        return basePath.resolve("alt_" + profile + "_landmarks.bin");
+    }
+
+    static Path fromPath(Path basePath, String profile) {
+        return basePath.resolve("alt_" + profile + "_from.bin");
+    }
+
+    static Path toPath(Path basePath, String profile) {
+        return basePath.resolve("alt_" + profile + "_to.bin");
+    }
+
+    /**
+     * Retourne le nombre de points de repère
+     *
+     * @return le nombre de points de repère
+     */
+    public int count() {
+        return nodeIds.capacity();
+    }
+
+    /**
+     * Retourne le nombre de nœuds couverts par les tables
+     *
+     * @return le nombre de nœuds couverts par les tables
+     */
+    public int nodeCount() {
+        return fromLandmarks.capacity() / count();
+    }
+
+    /**
+     * Retourne le coût minimal pour aller du point de repère d'index donné au nœud donné,
+     * ou l'infini positif si ce nœud n'est pas atteignable
+     *
+     * @param landmarkIndex index du point de repère
+     * @param nodeId        identité du noeud
+     * @return le coût minimal du point de repère au nœud
+     */
+    public float distanceFrom(int landmarkIndex, int nodeId) {
+        return fromLandmarks.get(nodeId * count() + landmarkIndex);
+    }
+
+    /**
+     * Retourne le coût minimal pour aller du nœud donné au point de repère d'index donné,
+     * ou l'infini positif si ce point de repère n'est pas atteignable
+     *
+     * @param landmarkIndex index du point de repère
+     * @param nodeId        identité du noeud
+     * @return le coût minimal du nœud au point de repère
+     */
+    public float distanceTo(int landmarkIndex, int nodeId) {
+        return toLandmarks.get(nodeId * count() + landmarkIndex);
+    }
+
+    /**
+     * Retourne une borne inférieure du coût minimal pour aller du nœud nodeId au nœud targetId,
+     * obtenue par inégalité triangulaire sur chacun des points de repère ; cette borne vaut l'infini positif
+     * lorsque les tables prouvent que la cible n'est pas atteignable depuis le nœud
+     *
+     * @param nodeId   identité du noeud de départ
+     * @param targetId identité du noeud d'arrivée
+     * @return une borne inférieure du coût du nœud à la cible
+     */
+    public float lowerBound(int nodeId, int targetId) {
+        int count = count();
+        int nodeBase = nodeId * count;
+        int targetBase = targetId * count;
+        float bound = 0;
+        for (int i = 0; i < count; i++) {
+            // d(L, t) - d(L, v) <= d(v, t) et d(v, L) - d(t, L) <= d(v, t) ; les différences NaN sont ignorées
+            float viaFrom = fromLandmarks.get(targetBase + i) - fromLandmarks.get(nodeBase + i);
+            float viaTo = toLandmarks.get(nodeBase + i) - toLandmarks.get(targetBase + i);
+            if (viaFrom > bound) bound = viaFrom;
+            if (viaTo > bound) bound = viaTo;
+        }
+        return bound;
+    }
+}
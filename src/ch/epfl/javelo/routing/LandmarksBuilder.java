@@ -0,0 +1,239 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static ch.epfl.javelo.data.BinaryFiles.asBytes;
+import static ch.epfl.javelo.data.BinaryFiles.writeChecked;
+
+/**
+ * Prétraitement hors ligne choisissant les points de repère de l'heuristique ALT pour une fonction de coût donnée
+ * et calculant les tables de coûts depuis et vers chacun d'eux.
+ * Les points de repère sont choisis par la méthode du « plus éloigné » : chaque nouveau point de repère est le nœud
+ * atteignable dont le coût depuis le plus proche des points de repère déjà choisis est maximal.
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class LandmarksBuilder {
+
+    public static final int DEFAULT_COUNT = 8;
+
+    private record WeightedNode(int nodeId, float distance) implements Comparable<WeightedNode> {
+        @Override
+        public int compareTo(WeightedNode that) {
+            return Float.compare(this.distance, that.distance);
+        }
+    }
+
+    private final int nodeCount;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final float[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final float[] inWeights;
+
+    private LandmarksBuilder(Graph graph, CostFunction costFunction) {
+        nodeCount = graph.nodeCount();
+        outOffsets = new int[nodeCount + 1];
+        inOffsets = new int[nodeCount + 1];
+
+        int edgeCount = 0;
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            edgeCount += graph.nodeOutDegree(nodeId);
+        }
+        outTargets = new int[edgeCount];
+        outWeights = new float[edgeCount];
+        int[] sources = new int[edgeCount];
+
+        int e = 0;
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            outOffsets[nodeId] = e;
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++, e++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                sources[e] = nodeId;
+                outTargets[e] = graph.edgeTargetNodeId(edgeId);
+                outWeights[e] = (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+                inOffsets[outTargets[e] + 1]++;
+            }
+        }
+        outOffsets[nodeCount] = e;
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            inOffsets[nodeId + 1] += inOffsets[nodeId];
+        }
+        inSources = new int[edgeCount];
+        inWeights = new float[edgeCount];
+        int[] next = Arrays.copyOf(inOffsets, nodeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            int position = next[outTargets[i]]++;
+            inSources[position] = sources[i];
+            inWeights[position] = outWeights[i];
+        }
+    }
+
+    /**
+     * Choisit le nombre donné de points de repère et calcule leurs tables de coûts pour le graphe
+     * et la fonction de coût donnés
+     *
+     * @param graph        graphe
+     * @param costFunction fonction de coût donnant le poids des arêtes
+     * @param count        nombre de points de repère à choisir
+     * @return les points de repère et leurs tables, stockés en mémoire
+     * @throws IllegalArgumentException si le nombre de points de repère n'est pas strictement positif
+     */
+    public static Landmarks build(Graph graph, CostFunction costFunction, int count) {
+        Preconditions.checkArgument(count > 0);
+        return new LandmarksBuilder(graph, costFunction).build(count);
+    }
+
+    /**
+     * Retourne les points de repère du graphe se trouvant dans le répertoire donné pour la fonction de coût donnée,
+     * projetés en mémoire depuis les fichiers alt_&lt;profil&gt;_*.bin de ce répertoire s'ils correspondent
+     * aux fichiers du graphe et au nombre de points de repère donné ; sinon, ils sont choisis et leurs tables
+     * calculées, puis écrites dans ces fichiers, dans la mesure du possible
+     *
+     * @param graph        graphe chargé depuis le répertoire donné
+     * @param costFunction fonction de coût donnant le poids des arêtes
+     * @param count        nombre de points de repère
+     * @param basePath     chemin d'accès du répertoire contenant le graphe
+     * @return les points de repère et leurs tables
+     * @throws IllegalArgumentException si le nombre de points de repère n'est pas strictement positif
+     * @throws IOException              en cas d'erreur d'entrée/sortie lors de la lecture des fichiers du graphe
+     */
+    public static Landmarks loadOrBuild(Graph graph, CostFunction costFunction, int count, Path basePath)
+            throws IOException {
+        Preconditions.checkArgument(count > 0);
+        long checksum = PrecomputedCostFunction.costChecksum(basePath);
+        try {
+            Landmarks landmarks = Landmarks.loadFrom(basePath, costFunction.name(), checksum);
+            if (landmarks.count() == count) return landmarks;
+        } catch (IOException e) {
+            // Fichiers absents, ou calculés pour un autre graphe : les tables sont recalculées
+        }
+
+        Landmarks landmarks = build(graph, costFunction, count);
+        try {
+            write(landmarks, basePath, costFunction.name(), checksum);
+        } catch (IOException e) {
+            // Répertoire en lecture seule : les tables restent en mémoire
+            // et seront recalculées au prochain chargement
+        }
+        return landmarks;
+    }
+
+    /**
+     * Écrit les points de repère donnés dans le répertoire donné, à côté des fichiers du graphe
+     * dont ils ont été calculés, sous le nom du profil donné ; chaque fichier commence par la somme de contrôle
+     * de ceux du graphe
+     *
+     * @param landmarks points de repère à écrire
+     * @param basePath  chemin d'accès du répertoire contenant le graphe
+     * @param profile   nom du profil (voir CostFunction.name)
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void write(Landmarks landmarks, Path basePath, String profile) throws IOException {
+        write(landmarks, basePath, profile, PrecomputedCostFunction.costChecksum(basePath));
+    }
+
+    private static void write(Landmarks landmarks, Path basePath, String profile, long checksum) throws IOException {
+        writeChecked(Landmarks.nodeIdsPath(basePath, profile), checksum, asBytes(landmarks.nodeIds()));
+        writeChecked(Landmarks.fromPath(basePath, profile), checksum, asBytes(landmarks.fromLandmarks()));
+        writeChecked(Landmarks.toPath(basePath, profile), checksum, asBytes(landmarks.toLandmarks()));
+    }
+
+    /**
+     * Choisit les points de repère et écrit leurs tables pour chacun des profils de JaVelo
+     *
+     * @param args le chemin d'accès du répertoire contenant le graphe (par défaut « lausanne »),
+     *             suivi éventuellement du nombre de points de repère (par défaut DEFAULT_COUNT)
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "lausanne");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_COUNT;
+        Graph graph = Graph.loadFrom(basePath);
+        for (CostFunction costFunction : List.of(new CityBikeCF(graph), new SportBikeCF(graph),
+                new VttBikeCF(graph), new HikingBikeCF(graph))) {
+            long start = System.nanoTime();
+            write(build(graph, costFunction, count), basePath, costFunction.name());
+            System.out.printf("%s : %d points de repère en %.1f s%n",
+                    costFunction.name(), count, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private Landmarks build(int count) {
+        int[] landmarks = new int[count];
+        float[] from = new float[nodeCount * count];
+        float[] to = new float[nodeCount * count];
+
+        // Le premier point de repère est le nœud le plus éloigné du nœud de degré maximal, supposé central.
+        int seed = 0;
+        for (int nodeId = 1; nodeId < nodeCount; nodeId++) {
+            if (degree(nodeId) > degree(seed)) seed = nodeId;
+        }
+        float[] closest = dijkstra(seed, true);
+
+        for (int i = 0; i < count; i++) {
+            int landmark = seed;
+            float farthest = -1;
+            for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+                if (closest[nodeId] != Float.POSITIVE_INFINITY && closest[nodeId] > farthest) {
+                    farthest = closest[nodeId];
+                    landmark = nodeId;
+                }
+            }
+            landmarks[i] = landmark;
+
+            float[] forward = dijkstra(landmark, true);
+            float[] backward = dijkstra(landmark, false);
+            for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+                from[nodeId * count + i] = forward[nodeId];
+                to[nodeId * count + i] = backward[nodeId];
+                closest[nodeId] = i == 0 ? forward[nodeId] : Math.min(closest[nodeId], forward[nodeId]);
+            }
+        }
+
+        return new Landmarks(IntBuffer.wrap(landmarks), FloatBuffer.wrap(from), FloatBuffer.wrap(to));
+    }
+
+    private int degree(int nodeId) {
+        return outOffsets[nodeId + 1] - outOffsets[nodeId] + inOffsets[nodeId + 1] - inOffsets[nodeId];
+    }
+
+    /**
+     * Retourne le coût minimal depuis (forward) ou vers (sinon) le nœud donné pour chacun des nœuds du graphe
+     */
+    private float[] dijkstra(int sourceId, boolean forward) {
+        int[] offsets = forward ? outOffsets : inOffsets;
+        int[] neighbours = forward ? outTargets : inSources;
+        float[] weights = forward ? outWeights : inWeights;
+
+        float[] distance = new float[nodeCount];
+        Arrays.fill(distance, Float.POSITIVE_INFINITY);
+        PriorityQueue<WeightedNode> queue = new PriorityQueue<>();
+        distance[sourceId] = 0;
+        queue.add(new WeightedNode(sourceId, 0));
+
+        while (!queue.isEmpty()) {
+            WeightedNode node = queue.remove();
+            if (node.distance > distance[node.nodeId]) continue;
+            for (int i = offsets[node.nodeId]; i < offsets[node.nodeId + 1]; i++) {
+                float d = node.distance + weights[i];
+                if (d < distance[neighbours[i]]) {
+                    distance[neighbours[i]] = d;
+                    queue.add(new WeightedNode(neighbours[i], d));
+                }
+            }
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,51 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.AttributeSet;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Fonction de coût mémoïsant la partie dépendant des attributs d'une fonction de coût à attributs :
+ * le facteur sur le plat est stocké, pour chaque index d'ensemble d'attributs et chaque sens, dans un tableau,
+ * si bien que l'évaluation d'une arête se réduit à une lecture et à la correction de pente
+ *
+ * @author Georges Moussalli (316630)
+ */
+final class MemoizedCostFunction implements CostFunction {
+
+    private final AttributeCostFunction costFunction;
+    private final Graph graph;
+    private final double[] flatCostFactors;
+    private final boolean[] dependsOnSlope;
+
+    /**
+     * Construit la mémoïsation de la fonction de coût donnée, pour tous les ensembles d'attributs de son graphe
+     *
+     * @param costFunction fonction de coût à attributs
+     */
+    MemoizedCostFunction(AttributeCostFunction costFunction) {
+        this.costFunction = costFunction;
+        this.graph = costFunction.graph();
+        int count = graph.attributeSetCount();
+        flatCostFactors = new double[2 * count];
+        dependsOnSlope = new boolean[count];
+        for (int index = 0; index < count; index++) {
+            AttributeSet attributes = graph.attributeSet(index);
+            flatCostFactors[2 * index] = costFunction.flatCostFactor(attributes, false);
+            flatCostFactors[2 * index + 1] = costFunction.flatCostFactor(attributes, true);
+            dependsOnSlope[index] = costFunction.dependsOnSlope(attributes);
+        }
+    }
+
+    @Override
+    public double costFactor(int nodeId, int edgeId) {
+        int index = graph.edgeAttributesIndex(edgeId);
+        double flatCostFactor = flatCostFactors[2 * index + (graph.edgeIsInverted(edgeId) ? 1 : 0)];
+        if (!dependsOnSlope[index]) return flatCostFactor;
+        return costFunction.slopeCostFactor(flatCostFactor, graph.edgeElevationGain(edgeId) / graph.edgeLength(edgeId));
+    }
+
+    @Override
+    public String name() {
+        return costFunction.name();
+    }
+}
@@ -17,7 +17,14 @@ import java.util.List;
 public final class MultiRoute implements Route {
 
     private final List<Route> segments;
-    private final Route lastRoute;
+    private final double length;
+    // positions le long de l'itinéraire du début de chaque segment, suivies de sa longueur
+    private final double[] positions;
+    // index, dans l'itinéraire, du premier segment simple de chaque segment
+    private final int[] firstSegmentIndices;
+    private volatile List<Edge> edges;
+    private volatile List<PointCh> points;
+    private volatile RouteSpatialIndex spatialIndex;
 
     /**
      * Construit un itinéraire multiple composé des segments donnés,
@@ -28,8 +35,19 @@ public final class MultiRoute implements Route {
     public MultiRoute(List<Route> segments) {
         Preconditions.checkArgument(!segments.isEmpty());
         this.segments = List.copyOf(segments);
-        this.lastRoute = segments.get(segments.size()-1);
 
+        int count = this.segments.size();
+        positions = new double[count + 1];
+        firstSegmentIndices = new int[count];
+        for (int i = 0; i < count; i++) {
+            Route segment = this.segments.get(i);
+            positions[i + 1] = positions[i] + segment.length();
+            if (i + 1 < count) {
+                firstSegmentIndices[i + 1] = firstSegmentIndices[i]
+                        + segment.indexOfSegmentAt(segment.length()) + 1;
+            }
+        }
+        length = positions[count];
     }
 
     /**
@@ -40,23 +58,10 @@ public final class MultiRoute implements Route {
      */
     @Override
     public int indexOfSegmentAt(double position) {
-        double length = 0;
-        int iteration = 0;
-        int indexSegment = 0;
-        double clampedDiff = Math2.clamp(0, position, this.length()) - length;
-
-
-        while (clampedDiff > 0) {
-            if (clampedDiff <= segments.get(iteration).length()) {
-                indexSegment += segments.get(iteration).indexOfSegmentAt
-                        (clampedDiff);
-            } else {
-                indexSegment += segments.get(iteration).indexOfSegmentAt(segments.get(iteration).length()) + 1;
-            }
-            clampedDiff -= segments.get(iteration).length();
-            iteration++;
-        }
-        return indexSegment;
+        double clampedPosition = Math2.clamp(0, position, length);
+        int index = segmentIndexAt(clampedPosition);
+        return firstSegmentIndices[index]
+                + segments.get(index).indexOfSegmentAt(clampedPosition - positions[index]);
     }
 
     /**
@@ -66,40 +71,46 @@ public final class MultiRoute implements Route {
      */
     @Override
     public double length() {
-        double length = 0;
-        for (Route r : segments) {
-            length += r.length();
-        }
         return length;
     }
 
     /**
-     * Retourne la totalité des arêtes de l'itinéraire
+     * Retourne la totalité des arêtes de l'itinéraire ; la liste, non modifiable,
+     * est construite lors du premier appel puis réutilisée
      *
      * @return la totalité des arêtes de l'itinéraire
      */
     @Override
     public List<Edge> edges() {
-        ArrayList<Edge> edges = new ArrayList<>();
-        for (Route r : segments) {
-            edges.addAll(r.edges());
+        List<Edge> edges = this.edges;
+        if (edges == null) {
+            List<Edge> allEdges = new ArrayList<>();
+            for (Route r : segments) {
+                allEdges.addAll(r.edges());
+            }
+            this.edges = edges = List.copyOf(allEdges);
         }
         return edges;
     }
 
     /**
-     * Retourne la totalité des points situés aux extrémités des arêtes de l'itinéraire, sans doublons
+     * Retourne la totalité des points situés aux extrémités des arêtes de l'itinéraire, sans doublons ;
+     * la liste, non modifiable, est construite lors du premier appel puis réutilisée
      *
      * @return la totalité des points situés aux extrémités des arêtes de l'itinéraire, sans doublons
      */
     @Override
     public List<PointCh> points() {
-        ArrayList<PointCh> points = new ArrayList<>();
-        for (int i = 0; i < segments.size(); i++) {
-            points.addAll(segments.get(i).points());
-            if (i != segments.size() - 1) {
-                points.remove(points.size() - 1);
+        List<PointCh> points = this.points;
+        if (points == null) {
+            List<PointCh> allPoints = new ArrayList<>();
+            for (int i = 0; i < segments.size(); i++) {
+                allPoints.addAll(segments.get(i).points());
+                if (i != segments.size() - 1) {
+                    allPoints.remove(allPoints.size() - 1);
+                }
             }
+            this.points = points = List.copyOf(allPoints);
         }
         return points;
     }
@@ -112,14 +123,9 @@ public final class MultiRoute implements Route {
      */
     @Override
     public PointCh pointAt(double position) {
-
-        for (Route s : segments){
-            if(position > s.length()){
-                position -= s.length();
-            } else{
-                return s.pointAt(position);
-            }
-        } return lastRoute.pointAt(lastRoute.length());
+        double clampedPosition = Math2.clamp(0, position, length);
+        int index = segmentIndexAt(clampedPosition);
+        return segments.get(index).pointAt(clampedPosition - positions[index]);
     }
 
 
@@ -133,14 +139,9 @@ public final class MultiRoute implements Route {
      */
     @Override
     public double elevationAt(double position) {
-        for(Route s : segments){
-            if(position > s.length()){
-                position -= s.length();
-            } else {
-                return  s.elevationAt(position);
-            }
-        }
-        return lastRoute.elevationAt(lastRoute.length());
+        double clampedPosition = Math2.clamp(0, position, length);
+        int index = segmentIndexAt(clampedPosition);
+        return segments.get(index).elevationAt(clampedPosition - positions[index]);
     }
 
     /**
@@ -151,35 +152,39 @@ public final class MultiRoute implements Route {
      */
     @Override
     public int nodeClosestTo(double position) {
-        for(Route s : segments){
-            if(position > s.length()){
-                position -= s.length();
-            } else {
-                return  s.nodeClosestTo(position);
-            }
+        double clampedPosition = Math2.clamp(0, position, length);
+        int index = segmentIndexAt(clampedPosition);
+        return segments.get(index).nodeClosestTo(clampedPosition - positions[index]);
+    }
+
+    /**
+     * Retourne l'index du premier segment dont la fin se trouve à la position donnée ou au-delà,
+     * la position séparant deux segments étant attribuée au premier d'entre eux ; la recherche est dichotomique
+     */
+    private int segmentIndexAt(double position) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (positions[middle + 1] >= position) high = middle;
+            else low = middle + 1;
         }
-        return lastRoute.nodeClosestTo(lastRoute.length());
+        return low;
     }
 
     /**
-     * Retourne le point de l'itinéraire se trouvant le plus proche du point de référence donné
+     * Retourne le point de l'itinéraire se trouvant le plus proche du point de référence donné ;
+     * l'index spatial de la totalité des arêtes est construit lors du premier appel
      *
      * @param point point de référence dont on cherche le point de l'itineéraire le pljus proche
      * @return le point de l'itinéraire se trouvant le plus proche du point de référence donné
      */
     @Override
     public RoutePoint pointClosestTo(PointCh point) {
-        RoutePoint routePoint = RoutePoint.NONE;
-        double sum = 0;
-
-
-        for (Route r : segments) {
-            routePoint = routePoint.min(r.pointClosestTo(point).withPositionShiftedBy(sum));
-            sum += r.length();
+        RouteSpatialIndex spatialIndex = this.spatialIndex;
+        if (spatialIndex == null) {
+            this.spatialIndex = spatialIndex = RouteSpatialIndex.of(edges());
         }
-
-
-        return routePoint;
+        return spatialIndex.pointClosestTo(point);
     }
 }
-
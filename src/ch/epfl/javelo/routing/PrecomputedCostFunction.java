@@ -0,0 +1,107 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.BinaryFiles;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+/**
+ * Fonction de coût dont les facteurs de coût de toutes les arêtes du graphe ont été calculés une fois pour toutes
+ * à partir d'une autre fonction de coût, de sorte que l'évaluation d'une arête se réduit à la lecture d'une table.
+ * La fonction de coût d'origine ne doit dépendre que de l'arête, et non du nœud dont elle part.
+ *
+ * @param name        nom du profil de la fonction de coût d'origine
+ * @param costFactors la mémoire tampon contenant le facteur de coût de chacune des arêtes du graphe
+ * @author Georges Moussalli (316630)
+ */
+public record PrecomputedCostFunction(String name, FloatBuffer costFactors) implements CostFunction {
+
+    private static final int OFFSET_CHECKSUM = 0;
+    private static final int OFFSET_COST_FACTORS = OFFSET_CHECKSUM + Long.BYTES;
+
+    /**
+     * Retourne la fonction de coût donnée, précalculée pour toutes les arêtes du graphe donné ;
+     * le calcul est réparti entre les processeurs disponibles
+     *
+     * @param graph        graphe
+     * @param costFunction fonction de coût à précalculer
+     * @return la fonction de coût précalculée, stockée en mémoire
+     */
+    public static PrecomputedCostFunction of(Graph graph, CostFunction costFunction) {
+        float[] costFactors = new float[graph.edgeCount()];
+        IntStream.range(0, graph.nodeCount()).parallel().forEach(nodeId -> {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                costFactors[edgeId] = (float) costFunction.costFactor(nodeId, edgeId);
+            }
+        });
+        return new PrecomputedCostFunction(costFunction.name(), FloatBuffer.wrap(costFactors));
+    }
+
+    /**
+     * Retourne la fonction de coût donnée, précalculée pour toutes les arêtes du graphe dont les fichiers se trouvent
+     * dans le répertoire donné. La table est projetée en mémoire depuis le fichier costs_&lt;profil&gt;.bin de ce
+     * répertoire si la somme de contrôle qu'il contient correspond aux fichiers du graphe ; sinon, elle est calculée
+     * puis écrite dans ce fichier, dans la mesure du possible. Une modification du code de la fonction de coût elle-même n'est pas détectée :
+     * le fichier doit alors être supprimé.
+     *
+     * @param graph        graphe chargé depuis le répertoire donné
+     * @param costFunction fonction de coût à précalculer
+     * @param basePath     chemin d'accès du répertoire contenant le graphe
+     * @return la fonction de coût précalculée
+     * @throws IOException en cas d'erreur d'entrée/sortie lors de la lecture des fichiers du graphe
+     */
+    public static PrecomputedCostFunction loadOrCompute(Graph graph, CostFunction costFunction, Path basePath)
+            throws IOException {
+        Path path = costFactorsPath(basePath, costFunction.name());
+        long checksum = costChecksum(basePath);
+        long fileBytes = OFFSET_COST_FACTORS + (long) graph.edgeCount() * Float.BYTES;
+
+        if (Files.exists(path) && Files.size(path) == fileBytes) {
+            ByteBuffer buffer = BinaryFiles.map(path);
+            if (buffer.getLong(OFFSET_CHECKSUM) == checksum) {
+                return new PrecomputedCostFunction(costFunction.name(),
+                        buffer.slice(OFFSET_COST_FACTORS, buffer.capacity() - OFFSET_COST_FACTORS).asFloatBuffer());
+            }
+        }
+
+        PrecomputedCostFunction precomputed = of(graph, costFunction);
+        ByteBuffer bytes = ByteBuffer.allocate((int) fileBytes);
+        bytes.putLong(OFFSET_CHECKSUM, checksum);
+        bytes.slice(OFFSET_COST_FACTORS, bytes.capacity() - OFFSET_COST_FACTORS).asFloatBuffer()
+                .put(precomputed.costFactors().duplicate().rewind());
+        try {
+            BinaryFiles.write(path, bytes);
+        } catch (IOException e) {
+            // Répertoire en lecture seule : la table reste en mémoire et sera recalculée au prochain chargement
+        }
+        return precomputed;
+    }
+
+    /**
+     * Retourne la somme de contrôle des fichiers du graphe se trouvant dans le répertoire donné dont dépendent
+     * les facteurs de coût de ses arêtes, et donc les fichiers précalculés pour une fonction de coût
+     *
+     * @param basePath chemin d'accès du répertoire contenant le graphe
+     * @return la somme de contrôle des fichiers nodes.bin, edges.bin et attributes.bin
+     * @throws IOException en cas d'erreur d'entrée/sortie lors de la lecture des fichiers du graphe
+     */
+    static long costChecksum(Path basePath) throws IOException {
+        return BinaryFiles.checksum(basePath.resolve("nodes.bin"), basePath.resolve("edges.bin"),
+                basePath.resolve("attributes.bin"));
+    }
+
+    static Path costFactorsPath(Path basePath, String profile) {
+        return basePath.resolve("costs_" + profile + ".bin");
+    }
+
+    @Override
+    public double costFactor(int nodeId, int edgeId) {
+        return costFactors.get(edgeId);
+    }
+}
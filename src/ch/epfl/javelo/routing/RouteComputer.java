@@ -13,6 +13,10 @@ public final class RouteComputer {
 
     private final Graph graph;
     private final CostFunction costFunction;
+    private final ContractionHierarchy hierarchy;
+    private final Landmarks landmarks;
+    private final boolean bidirectional;
+    private final SearchWorkspacePool workspaces;
 
     /**
      * Construit un planificateur d'itinéraire pour le graphe et la fonction de coût donnés
@@ -21,8 +25,61 @@ public final class RouteComputer {
      * @param costFunction Fonction de coût donnée
      */
     public RouteComputer(Graph graph, CostFunction costFunction) {
+        this(graph, costFunction, null, null, false,
+                new SearchWorkspacePool(graph.nodeCount(), SearchWorkspacePool.DEFAULT_MAX_IDLE));
+    }
+
+    // les planificateurs dérivés les uns des autres partagent leurs espaces de travail, qui ne dépendent que du graphe
+    private RouteComputer(Graph graph, CostFunction costFunction, ContractionHierarchy hierarchy, Landmarks landmarks,
+                          boolean bidirectional, SearchWorkspacePool workspaces) {
+        Preconditions.checkArgument(hierarchy == null || hierarchy.nodeCount() == graph.nodeCount());
+        Preconditions.checkArgument(landmarks == null || landmarks.nodeCount() == graph.nodeCount());
         this.graph = graph;
         this.costFunction = costFunction;
+        this.hierarchy = hierarchy;
+        this.landmarks = landmarks;
+        this.bidirectional = bidirectional;
+        this.workspaces = workspaces;
+    }
+
+    /**
+     * Retourne un planificateur identique au récepteur, si ce n'est qu'il calcule ses itinéraires
+     * par une recherche bidirectionnelle dans la hiérarchie de contraction donnée,
+     * qui doit avoir été calculée pour le même graphe et la même fonction de coût
+     *
+     * @param hierarchy hiérarchie de contraction du graphe, ou null pour revenir à la recherche A*
+     * @return un planificateur utilisant la hiérarchie de contraction donnée
+     * @throws IllegalArgumentException si la hiérarchie ne compte pas autant de nœuds que le graphe
+     */
+    public RouteComputer withContractionHierarchy(ContractionHierarchy hierarchy) {
+        return new RouteComputer(graph, costFunction, hierarchy, landmarks, bidirectional, workspaces);
+    }
+
+    /**
+     * Retourne un planificateur identique au récepteur, si ce n'est que sa recherche A* est guidée par l'heuristique ALT
+     * calculée à partir des points de repère donnés, qui doivent avoir été calculés pour le même graphe
+     * et la même fonction de coût ; l'heuristique utilisée est le maximum de la borne ALT et de la distance à vol d'oiseau
+     *
+     * @param landmarks points de repère du graphe, ou null pour revenir à la seule distance à vol d'oiseau
+     * @return un planificateur utilisant l'heuristique ALT
+     * @throws IllegalArgumentException si les tables ne couvrent pas autant de nœuds que le graphe
+     */
+    public RouteComputer withLandmarks(Landmarks landmarks) {
+        return new RouteComputer(graph, costFunction, hierarchy, landmarks, bidirectional, workspaces);
+    }
+
+    /**
+     * Retourne un planificateur identique au récepteur, si ce n'est que sa recherche A* est, ou non, bidirectionnelle :
+     * une recherche arrière, suivant les arêtes entrantes du graphe depuis l'arrivée, progresse alors à la rencontre
+     * de la recherche avant, ce qui réduit nettement le nombre de nœuds explorés sur les longs itinéraires.
+     * Les itinéraires obtenus ont le même coût que ceux de la recherche unidirectionnelle.
+     * Ce choix est sans effet si une hiérarchie de contraction est utilisée
+     *
+     * @param bidirectional vrai pour une recherche bidirectionnelle, faux pour revenir à la recherche unidirectionnelle
+     * @return un planificateur effectuant une recherche bidirectionnelle ou non
+     */
+    public RouteComputer withBidirectionalSearch(boolean bidirectional) {
+        return new RouteComputer(graph, costFunction, hierarchy, landmarks, bidirectional, workspaces);
     }
 
     /**
@@ -37,77 +94,385 @@ public final class RouteComputer {
      * Si le nœud de départ et d'arrivée sont identiques, lève IllegalArgumentException
      */
     public SingleRoute bestRouteBetween(int startNodeId, int endNodeId) {
-        record WeightedNode(int nodeId, float distance)
-                implements Comparable<WeightedNode> {
-            @Override
-            public int compareTo(WeightedNode that) {
-                return Float.compare(this.distance, that.distance);
+        Preconditions.checkArgument(startNodeId != endNodeId);
+        if (hierarchy != null || bidirectional) {
+            SearchWorkspace forward = workspaces.acquire();
+            SearchWorkspace backward = workspaces.acquire();
+            try {
+                return hierarchy != null
+                        ? bestRouteInHierarchy(forward, backward, startNodeId, endNodeId)
+                        : bidirectionalBestRoute(forward, backward, startNodeId, endNodeId);
+            } finally {
+                workspaces.release(backward);
+                workspaces.release(forward);
             }
         }
-        Preconditions.checkArgument(startNodeId != endNodeId);
 
+        SearchWorkspace workspace = workspaces.acquire();
+        try {
+            return search(workspace, startNodeId, endNodeId) ? routeTo(workspace, startNodeId, endNodeId) : null;
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    /**
+     * Retourne l'itinéraire de coût total minimal allant du point d'arête start au point d'arête end,
+     * qui commence et se termine par des portions d'arêtes, ou null si aucun itinéraire n'existe
+     * ou si les deux points sont confondus. Chaque point peut être quitté ou atteint par l'arête sur laquelle il se trouve
+     * ou par l'arête jumelle de sens opposé, si elle existe.
+     * La recherche est toujours une recherche A* unidirectionnelle, guidée par les éventuels points de repère
+     *
+     * @param start point de départ, sur une arête du graphe
+     * @param end   point d'arrivée, sur une arête du graphe
+     * @return l'itinéraire de coût total minimal, ou null si aucun itinéraire n'existe
+     */
+    public SingleRoute bestRouteBetween(EdgePoint start, EdgePoint end) {
+        SearchWorkspace workspace = workspaces.acquire();
+        try {
+            return bestRouteBetween(workspace, start, end);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
 
-        float[] distance = new float[graph.nodeCount()];
-        int[] previousNodeId = new int[graph.nodeCount()];
-        PriorityQueue<WeightedNode> en_exploration = new PriorityQueue<>();
+    private SingleRoute bestRouteBetween(SearchWorkspace workspace, EdgePoint start, EdgePoint end) {
+        // Options 0 et 1 : l'arête du point et son arête jumelle, parcourue depuis l'autre extrémité
+        int[] startEdgeIds = {start.edgeId(), twinEdgeId(start)};
+        int[] startSourceIds = {start.fromNodeId(), start.toNodeId()};
+        int[] startTargetIds = {start.toNodeId(), start.fromNodeId()};
+        double[] startPositions = {start.position(), graph.edgeLength(start.edgeId()) - start.position()};
+        int[] endEdgeIds = {end.edgeId(), twinEdgeId(end)};
+        int[] endSourceIds = {end.fromNodeId(), end.toNodeId()};
+        int[] endTargetIds = {end.toNodeId(), end.fromNodeId()};
+        double[] endPositions = {end.position(), graph.edgeLength(end.edgeId()) - end.position()};
 
-        for (int i = 0; i < graph.nodeCount(); i++) {
-            distance[i] = Float.POSITIVE_INFINITY;
+        workspace.reset();
+        float best = Float.POSITIVE_INFINITY;
+        int bestStart = -1;
+        int bestEnd = -1;
 
+        for (int s = 0; s < 2; s++) {
+            int edgeId = startEdgeIds[s];
+            if (edgeId == -1) continue;
+            double costFactor = costFunction.costFactor(startSourceIds[s], edgeId);
+            for (int t = 0; t < 2; t++) {
+                if (endEdgeIds[t] != edgeId || endPositions[t] < startPositions[s]) continue;
+                float direct = (float) ((endPositions[t] - startPositions[s]) * costFactor);
+                if (direct < best) {
+                    best = direct;
+                    bestStart = s;
+                    bestEnd = t;
+                }
+            }
+
+            int arrivalId = startTargetIds[s];
+            float d = (float) ((graph.edgeLength(edgeId) - startPositions[s]) * costFactor);
+            float h = heuristic(arrivalId, end, endEdgeIds, endSourceIds);
+            if (d < workspace.distance(arrivalId) && h != Float.POSITIVE_INFINITY) {
+                workspace.update(arrivalId, d, d + h, -1, edgeId);
+            }
+        }
+
+        while (!workspace.isEmpty() && workspace.peekPriority() < best) {
+            int nodeId = workspace.poll();
+            float nodeDistance = workspace.distance(nodeId);
+
+            for (int t = 0; t < 2; t++) {
+                if (endEdgeIds[t] == -1 || endSourceIds[t] != nodeId) continue;
+                float d = (float) (nodeDistance + endPositions[t] * costFunction.costFactor(nodeId, endEdgeIds[t]));
+                if (d < best) {
+                    best = d;
+                    bestStart = -1;
+                    bestEnd = t;
+                }
+            }
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int arrivalId = graph.edgeTargetNodeId(edgeId);
+                if (workspace.isSettled(arrivalId)) continue;
+
+                float d = (float) (nodeDistance + graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+                if (d < workspace.distance(arrivalId)) {
+                    float h = heuristic(arrivalId, end, endEdgeIds, endSourceIds);
+                    if (h == Float.POSITIVE_INFINITY) continue;
+                    workspace.update(arrivalId, d, d + h, nodeId, edgeId);
+                }
+            }
         }
 
-        distance[startNodeId] = 0;
-        en_exploration.add(new WeightedNode(startNodeId, distance[startNodeId]));
+        if (bestEnd == -1) return null;
+
+        List<Edge> route = new ArrayList<>();
+        if (bestStart != -1) {
+            addPortion(route, startEdgeIds[bestStart], startSourceIds[bestStart], startTargetIds[bestStart],
+                    startPositions[bestStart], endPositions[bestEnd]);
+        } else {
+            int edgeCount = 0;
+            int firstNodeId = endSourceIds[bestEnd];
+            for (; workspace.previous(firstNodeId) != -1; firstNodeId = workspace.previous(firstNodeId)) {
+                edgeCount++;
+            }
+            int s = workspace.previousEdge(firstNodeId) == startEdgeIds[0] ? 0 : 1;
+            addPortion(route, startEdgeIds[s], startSourceIds[s], startTargetIds[s],
+                    startPositions[s], graph.edgeLength(startEdgeIds[s]));
 
-        while (!en_exploration.isEmpty()) {
+            Edge[] edges = new Edge[edgeCount];
+            for (int i = endSourceIds[bestEnd], k = edgeCount - 1; k >= 0; i = workspace.previous(i), k--) {
+                edges[k] = Edge.of(graph, workspace.previousEdge(i), workspace.previous(i), i);
+            }
+            route.addAll(Arrays.asList(edges));
+
+            addPortion(route, endEdgeIds[bestEnd], endSourceIds[bestEnd], endTargetIds[bestEnd],
+                    0, endPositions[bestEnd]);
+        }
+        return route.isEmpty() ? null : new SingleRoute(route);
+    }
+
+    /**
+     * Ajoute à l'itinéraire donné la portion non vide, comprise entre les positions données, de l'arête donnée
+     */
+    private void addPortion(List<Edge> route, int edgeId, int fromNodeId, int toNodeId,
+                            double startPosition, double endPosition) {
+        if (endPosition > startPosition) {
+            route.add(Edge.of(graph, edgeId, fromNodeId, toNodeId).portion(startPosition, endPosition));
+        }
+    }
+
+    /**
+     * Retourne l'identité de l'arête jumelle de celle du point donné, c.-à-d. de l'arête de même longueur
+     * reliant ses nœuds en sens inverse, ou -1 si elle n'existe pas
+     */
+    private int twinEdgeId(EdgePoint point) {
+        for (int i = 0; i < graph.nodeOutDegree(point.toNodeId()); i++) {
+            int edgeId = graph.nodeOutEdgeId(point.toNodeId(), i);
+            if (edgeId != point.edgeId() && graph.edgeTargetNodeId(edgeId) == point.fromNodeId()
+                    && graph.edgeLength(edgeId) == graph.edgeLength(point.edgeId())) {
+                return edgeId;
+            }
+        }
+        return -1;
+    }
 
-            WeightedNode N = en_exploration.remove();
+    /**
+     * Retourne une borne inférieure du coût du nœud donné jusqu'au point d'arrivée donné : la distance à vol d'oiseau,
+     * éventuellement améliorée par la plus petite des bornes ALT jusqu'aux nœuds depuis lesquels il peut être atteint
+     */
+    private float heuristic(int nodeId, EdgePoint end, int[] endEdgeIds, int[] endSourceIds) {
+        float straightLine = (float) Math.sqrt(graph.nodeSquaredDistance(nodeId, end.point().e(), end.point().n()));
+        if (landmarks == null) return straightLine;
+        float bound = Float.POSITIVE_INFINITY;
+        for (int t = 0; t < 2; t++) {
+            if (endEdgeIds[t] != -1) bound = Math.min(bound, landmarks.lowerBound(nodeId, endSourceIds[t]));
+        }
+        return Math.max(straightLine, bound);
+    }
 
-            if (N.nodeId == endNodeId) {
+    /**
+     * Effectue la recherche A* du départ à l'arrivée dans l'espace de travail donné, et retourne vrai
+     * si et seulement si l'arrivée a été atteinte
+     */
+    boolean search(SearchWorkspace workspace, int startNodeId, int endNodeId) {
+        workspace.reset();
+        workspace.update(startNodeId, 0, heuristic(startNodeId, endNodeId), startNodeId);
 
-                int i = N.nodeId;
-                List<Edge> route = new LinkedList<>();
+        while (!workspace.isEmpty()) {
+            int nodeId = workspace.poll();
+            if (nodeId == endNodeId) return true;
 
-                while (i != startNodeId) {
-                    int previous = previousNodeId[i];
-                    int edgeToAdd = 0;
-                    for (int j = 0; j < graph.nodeOutDegree(previous); j++) {
-                        int edge_id = graph.nodeOutEdgeId(previous, j);
-                        if (graph.edgeTargetNodeId(edge_id) == i) {
-                            edgeToAdd = edge_id;
-                        }
-                    }
+            float nodeDistance = workspace.distance(nodeId);
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edge_id = graph.nodeOutEdgeId(nodeId, i);
+                int arrival_id = graph.edgeTargetNodeId(edge_id);
+                if (workspace.isSettled(arrival_id)) continue;
 
-                    route.add(0, Edge.of(graph, edgeToAdd, previousNodeId[i], i));
-                    i = previousNodeId[i];
-                    distance[N.nodeId] = Float.NEGATIVE_INFINITY;
+                float dFloat = (float) (nodeDistance + (graph.edgeLength(edge_id) * costFunction.costFactor(nodeId, edge_id)));
 
+                if (dFloat < workspace.distance(arrival_id)) {
+                    float h = heuristic(arrival_id, endNodeId);
+                    // une borne infinie prouve que l'arrivée n'est pas atteignable depuis ce nœud
+                    if (h == Float.POSITIVE_INFINITY) continue;
+                    workspace.update(arrival_id, dFloat, dFloat + h, nodeId, edge_id);
                 }
-                return new SingleRoute(route);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reconstruit l'itinéraire menant du départ à l'arrivée à partir des arêtes précédentes enregistrées
+     * dans l'espace de travail donné, en remplissant directement un tableau depuis la fin
+     */
+    SingleRoute routeTo(SearchWorkspace workspace, int startNodeId, int endNodeId) {
+        int edgeCount = 0;
+        for (int i = endNodeId; i != startNodeId; i = workspace.previous(i)) {
+            edgeCount++;
+        }
+
+        Edge[] route = new Edge[edgeCount];
+        for (int i = endNodeId, k = edgeCount - 1; i != startNodeId; i = workspace.previous(i), k--) {
+            route[k] = Edge.of(graph, workspace.previousEdge(i), workspace.previous(i), i);
+        }
+        return new SingleRoute(Arrays.asList(route));
+    }
+
+    /**
+     * Retourne une borne inférieure du coût du nœud donné jusqu'à l'arrivée : la distance à vol d'oiseau
+     * (les facteurs de coût étant supérieurs ou égaux à 1), éventuellement améliorée par la borne ALT
+     */
+    private float heuristic(int nodeId, int endNodeId) {
+        float straightLine = (float) Math.sqrt(graph.nodeSquaredDistance(nodeId, endNodeId));
+        return landmarks == null ? straightLine : Math.max(straightLine, landmarks.lowerBound(nodeId, endNodeId));
+    }
+
+    /**
+     * Recherche A* bidirectionnelle à potentiels moyens : le potentiel avant d'un nœud est la demi-différence
+     * entre la borne inférieure de son coût jusqu'à l'arrivée et celle de son coût depuis le départ, le potentiel arrière
+     * son opposé ; les deux sont cohérents, si bien que la recherche s'arrête dès que la somme des priorités minimales
+     * des deux tas atteint le coût du meilleur itinéraire rencontré
+     */
+    private SingleRoute bidirectionalBestRoute(SearchWorkspace forward, SearchWorkspace backward,
+                                               int startNodeId, int endNodeId) {
+        forward.reset();
+        backward.reset();
+        forward.update(startNodeId, 0, potential(startNodeId, startNodeId, endNodeId), -1);
+        backward.update(endNodeId, 0, -potential(endNodeId, startNodeId, endNodeId), -1);
+
+        float best = Float.POSITIVE_INFINITY;
+        int meetingNodeId = -1;
+
+        while (!forward.isEmpty() && !backward.isEmpty()
+                && forward.peekPriority() + backward.peekPriority() < best) {
+            boolean isForward = forward.peekPriority() <= backward.peekPriority();
+            SearchWorkspace workspace = isForward ? forward : backward;
+            SearchWorkspace other = isForward ? backward : forward;
+
+            int nodeId = workspace.poll();
+            float nodeDistance = workspace.distance(nodeId);
+            int degree = isForward ? graph.nodeOutDegree(nodeId) : graph.nodeInDegree(nodeId);
+            for (int i = 0; i < degree; i++) {
+                int edgeId = isForward ? graph.nodeOutEdgeId(nodeId, i) : graph.nodeInEdgeId(nodeId, i);
+                int arrivalId = isForward ? graph.edgeTargetNodeId(edgeId) : graph.nodeInEdgeSourceNodeId(nodeId, i);
+                if (workspace.isSettled(arrivalId)) continue;
 
+                int fromNodeId = isForward ? nodeId : arrivalId;
+                float d = (float) (nodeDistance + graph.edgeLength(edgeId) * costFunction.costFactor(fromNodeId, edgeId));
+                if (d >= workspace.distance(arrivalId)) continue;
+
+                float p = potential(arrivalId, startNodeId, endNodeId);
+                // un potentiel indéfini prouve que le nœud ne peut se trouver sur un itinéraire du départ à l'arrivée
+                if (Float.isNaN(p)) continue;
+                workspace.update(arrivalId, d, d + (isForward ? p : -p), nodeId, edgeId);
+
+                if (d + other.distance(arrivalId) < best) {
+                    best = d + other.distance(arrivalId);
+                    meetingNodeId = arrivalId;
+                }
             }
-            if( distance[N.nodeId] != Float.NEGATIVE_INFINITY) {
+        }
 
-                for (int i = 0; i < graph.nodeOutDegree(N.nodeId); i++) {
-                    int edge_id = graph.nodeOutEdgeId(N.nodeId, i);
-                    int arrival_id = graph.edgeTargetNodeId(edge_id);
+        if (meetingNodeId == -1) return null;
 
-                    double d = distance[N.nodeId] + (graph.edgeLength(edge_id) * costFunction.costFactor(N.nodeId, edge_id));
-                    float dFloat = (float) d;
+        int forwardCount = 0;
+        for (int i = meetingNodeId; i != startNodeId; i = forward.previous(i)) {
+            forwardCount++;
+        }
+        int backwardCount = 0;
+        for (int i = meetingNodeId; i != endNodeId; i = backward.previous(i)) {
+            backwardCount++;
+        }
 
-                    if (dFloat < distance[arrival_id]) {
-                        distance[arrival_id] = dFloat;
-                        previousNodeId[arrival_id] = N.nodeId;
-                        en_exploration.add(new WeightedNode(arrival_id, dFloat + (float) graph.nodePoint(N.nodeId).distanceTo(graph.nodePoint(endNodeId))));
+        Edge[] route = new Edge[forwardCount + backwardCount];
+        for (int i = meetingNodeId, k = forwardCount - 1; i != startNodeId; i = forward.previous(i), k--) {
+            route[k] = Edge.of(graph, forward.previousEdge(i), forward.previous(i), i);
+        }
+        for (int i = meetingNodeId, k = forwardCount; i != endNodeId; i = backward.previous(i), k++) {
+            route[k] = Edge.of(graph, backward.previousEdge(i), i, backward.previous(i));
+        }
+        return new SingleRoute(Arrays.asList(route));
+    }
 
+    /**
+     * Retourne le potentiel avant du nœud donné pour une recherche du départ à l'arrivée donnés,
+     * ou NaN si l'une des bornes inférieures est infinie
+     */
+    private float potential(int nodeId, int startNodeId, int endNodeId) {
+        float toEnd = heuristic(nodeId, endNodeId);
+        float fromStart = heuristic(startNodeId, nodeId);
+        if (toEnd == Float.POSITIVE_INFINITY || fromStart == Float.POSITIVE_INFINITY) return Float.NaN;
+        return (toEnd - fromStart) / 2;
+    }
 
-                    }
+    /**
+     * Recherche bidirectionnelle de Dijkstra dans la hiérarchie de contraction : la recherche avant ne suit que
+     * des arêtes montantes depuis le départ, la recherche arrière que des arêtes descendantes vers l'arrivée
+     */
+    private SingleRoute bestRouteInHierarchy(SearchWorkspace forward, SearchWorkspace backward,
+                                             int startNodeId, int endNodeId) {
+        forward.reset();
+        backward.reset();
+        forward.update(startNodeId, 0, 0, -1);
+        backward.update(endNodeId, 0, 0, -1);
+
+        float best = Float.POSITIVE_INFINITY;
+        int meetingNodeId = -1;
+
+        while (true) {
+            boolean forwardActive = !forward.isEmpty() && forward.peekPriority() < best;
+            boolean backwardActive = !backward.isEmpty() && backward.peekPriority() < best;
+            if (!forwardActive && !backwardActive) break;
+
+            boolean isForward = forwardActive && (!backwardActive || forward.peekPriority() <= backward.peekPriority());
+            SearchWorkspace workspace = isForward ? forward : backward;
+            SearchWorkspace other = isForward ? backward : forward;
+
+            int nodeId = workspace.poll();
+            float nodeDistance = workspace.distance(nodeId);
+            if (nodeDistance + other.distance(nodeId) < best) {
+                best = nodeDistance + other.distance(nodeId);
+                meetingNodeId = nodeId;
+            }
+
+            int degree = isForward ? hierarchy.upwardDegree(nodeId) : hierarchy.downwardDegree(nodeId);
+            for (int i = 0; i < degree; i++) {
+                int chEdgeId = isForward ? hierarchy.upwardEdgeId(nodeId, i) : hierarchy.downwardEdgeId(nodeId, i);
+                int arrivalId = isForward ? hierarchy.edgeToNodeId(chEdgeId) : hierarchy.edgeFromNodeId(chEdgeId);
+                if (workspace.isSettled(arrivalId)) continue;
+                float d = nodeDistance + hierarchy.edgeWeight(chEdgeId);
+                if (d < workspace.distance(arrivalId)) {
+                    workspace.update(arrivalId, d, d, chEdgeId);
                 }
+            }
+        }
 
+        if (meetingNodeId == -1) return null;
 
-            }}
+        List<Integer> chEdges = new ArrayList<>();
+        for (int i = meetingNodeId; i != startNodeId; i = hierarchy.edgeFromNodeId(forward.previous(i))) {
+            chEdges.add(forward.previous(i));
+        }
+        Collections.reverse(chEdges);
+        for (int i = meetingNodeId; i != endNodeId; i = hierarchy.edgeToNodeId(backward.previous(i))) {
+            chEdges.add(backward.previous(i));
+        }
 
-        return null;
+        List<Edge> route = new ArrayList<>();
+        Deque<Integer> toUnpack = new ArrayDeque<>();
+        for (int chEdgeId : chEdges) {
+            toUnpack.push(chEdgeId);
+            while (!toUnpack.isEmpty()) {
+                int current = toUnpack.pop();
+                if (hierarchy.isShortcut(current)) {
+                    toUnpack.push(hierarchy.edgeSecond(current));
+                    toUnpack.push(hierarchy.edgeFirst(current));
+                } else {
+                    route.add(Edge.of(graph, hierarchy.edgeFirst(current),
+                            hierarchy.edgeFromNodeId(current), hierarchy.edgeToNodeId(current)));
+                }
+            }
+        }
+        return new SingleRoute(route);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,199 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.util.List;
+
+/**
+ * Index spatial des arêtes d'un itinéraire, permettant de trouver le point de l'itinéraire le plus proche
+ * d'un point donné sans examiner toutes ses arêtes.
+ * Les arêtes, consécutives et donc voisines, sont groupées par paquets dans l'ordre de l'itinéraire ;
+ * un arbre binaire complet, stocké sous forme de tas, associe à chaque nœud le rectangle englobant
+ * les arêtes des paquets qu'il couvre. La recherche parcourt cet arbre sans pile et n'examine que les paquets
+ * dont le rectangle est plus proche que le meilleur point trouvé jusque-là ; elle n'alloue que son résultat.
+ * L'index est immuable et peut donc être interrogé par plusieurs fils d'exécution à la fois.
+ *
+ * @author Georges Moussalli (316630)
+ */
+final class RouteSpatialIndex {
+
+    private static final int BUCKET_SIZE = 8;
+    // marge ajoutée aux rectangles afin que les erreurs d'arrondi de l'interpolation n'en fassent pas sortir un point
+    private static final double MARGIN = 1e-6;
+
+    private final double[] fromEs;
+    private final double[] fromNs;
+    private final double[] toEs;
+    private final double[] toNs;
+    private final double[] edgeLengths;
+    private final double[] positions;
+
+    private final int leafCount;
+    private final double[] minEs;
+    private final double[] minNs;
+    private final double[] maxEs;
+    private final double[] maxNs;
+
+    /**
+     * Construit l'index des arêtes décrites par les colonnes données, qui ne doivent plus être modifiées
+     *
+     * @param fromEs      coordonnées E des points de départ des arêtes
+     * @param fromNs      coordonnées N des points de départ des arêtes
+     * @param toEs        coordonnées E des points d'arrivée des arêtes
+     * @param toNs        coordonnées N des points d'arrivée des arêtes
+     * @param edgeLengths longueurs des arêtes
+     * @param positions   positions le long de l'itinéraire des points de départ des arêtes
+     */
+    RouteSpatialIndex(double[] fromEs, double[] fromNs, double[] toEs, double[] toNs,
+                      double[] edgeLengths, double[] positions) {
+        this.fromEs = fromEs;
+        this.fromNs = fromNs;
+        this.toEs = toEs;
+        this.toNs = toNs;
+        this.edgeLengths = edgeLengths;
+        this.positions = positions;
+
+        int bucketCount = (edgeLengths.length + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        leafCount = Math.max(1, Integer.highestOneBit(bucketCount - 1) << 1);
+        minEs = new double[2 * leafCount];
+        minNs = new double[2 * leafCount];
+        maxEs = new double[2 * leafCount];
+        maxNs = new double[2 * leafCount];
+
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            int node = leafCount + leaf;
+            minEs[node] = minNs[node] = Double.POSITIVE_INFINITY;
+            maxEs[node] = maxNs[node] = Double.NEGATIVE_INFINITY;
+            int end = Math.min(edgeLengths.length, (leaf + 1) * BUCKET_SIZE);
+            for (int i = leaf * BUCKET_SIZE; i < end; i++) {
+                minEs[node] = Math.min(minEs[node], Math.min(fromEs[i], toEs[i]) - MARGIN);
+                minNs[node] = Math.min(minNs[node], Math.min(fromNs[i], toNs[i]) - MARGIN);
+                maxEs[node] = Math.max(maxEs[node], Math.max(fromEs[i], toEs[i]) + MARGIN);
+                maxNs[node] = Math.max(maxNs[node], Math.max(fromNs[i], toNs[i]) + MARGIN);
+            }
+        }
+        for (int node = leafCount - 1; node >= 1; node--) {
+            minEs[node] = Math.min(minEs[2 * node], minEs[2 * node + 1]);
+            minNs[node] = Math.min(minNs[2 * node], minNs[2 * node + 1]);
+            maxEs[node] = Math.max(maxEs[2 * node], maxEs[2 * node + 1]);
+            maxNs[node] = Math.max(maxNs[2 * node], maxNs[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Retourne l'index des arêtes données, dans l'ordre de la liste, la première commençant à la position 0
+     *
+     * @param edges arêtes de l'itinéraire
+     * @return l'index des arêtes données
+     */
+    static RouteSpatialIndex of(List<Edge> edges) {
+        int count = edges.size();
+        double[] fromEs = new double[count];
+        double[] fromNs = new double[count];
+        double[] toEs = new double[count];
+        double[] toNs = new double[count];
+        double[] edgeLengths = new double[count];
+        double[] positions = new double[count + 1];
+        for (int i = 0; i < count; i++) {
+            Edge edge = edges.get(i);
+            fromEs[i] = edge.fromPoint().e();
+            fromNs[i] = edge.fromPoint().n();
+            toEs[i] = edge.toPoint().e();
+            toNs[i] = edge.toPoint().n();
+            edgeLengths[i] = edge.length();
+            positions[i + 1] = positions[i] + edge.length();
+        }
+        return new RouteSpatialIndex(fromEs, fromNs, toEs, toNs, edgeLengths, positions);
+    }
+
+    /**
+     * Retourne le point de l'itinéraire se trouvant le plus proche du point de référence donné ; en cas d'égalité,
+     * le point de l'arête apparaissant en premier dans l'itinéraire est retenu
+     *
+     * @param point point de référence
+     * @return le point de l'itinéraire le plus proche du point de référence
+     */
+    RoutePoint pointClosestTo(PointCh point) {
+        double e = point.e();
+        double n = point.n();
+
+        // une première descente vers le paquet le plus proche fournit une bonne borne pour l'élagage
+        int node = 1;
+        while (node < leafCount) {
+            node = squaredDistanceToBox(2 * node + 1, e, n) < squaredDistanceToBox(2 * node, e, n)
+                    ? 2 * node + 1
+                    : 2 * node;
+        }
+        int bestIndex = closestInBucket(node - leafCount, e, n, -1, Double.POSITIVE_INFINITY);
+        double bestDistance = bestIndex == -1 ? Double.POSITIVE_INFINITY : distance(bestIndex, e, n);
+
+        // parcours en profondeur sans pile : après un nœud, on passe à son frère droit ou à celui d'un ancêtre
+        node = 1;
+        while (node != 0) {
+            if (squaredDistanceToBox(node, e, n) <= bestDistance * bestDistance) {
+                if (node < leafCount) {
+                    node = 2 * node;
+                    continue;
+                }
+                int index = closestInBucket(node - leafCount, e, n, bestIndex, bestDistance);
+                if (index != bestIndex) {
+                    bestIndex = index;
+                    bestDistance = distance(index, e, n);
+                }
+            }
+            while ((node & 1) == 1) node >>>= 1;
+            if (node != 0) node++;
+        }
+
+        double position = clampedPosition(bestIndex, e, n);
+        double ratio = ratio(bestIndex, position);
+        PointCh closest = new PointCh(Math2.interpolate(fromEs[bestIndex], toEs[bestIndex], ratio),
+                Math2.interpolate(fromNs[bestIndex], toNs[bestIndex], ratio));
+        return new RoutePoint(closest, positions[bestIndex] + position, bestDistance);
+    }
+
+    /**
+     * Retourne l'index de l'arête du paquet donné la plus proche du point de référence si elle est plus proche
+     * que l'arête d'index bestIndex, dont la distance est bestDistance, ou si elle est à la même distance et
+     * la précède ; retourne bestIndex sinon
+     */
+    private int closestInBucket(int bucket, double e, double n, int bestIndex, double bestDistance) {
+        int end = Math.min(edgeLengths.length, (bucket + 1) * BUCKET_SIZE);
+        for (int i = bucket * BUCKET_SIZE; i < end; i++) {
+            double distance = distance(i, e, n);
+            if (distance < bestDistance || (distance == bestDistance && i < bestIndex)) {
+                bestIndex = i;
+                bestDistance = distance;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Retourne la position, sur l'arête d'index donné, du point le plus proche du point de référence
+     */
+    private double clampedPosition(int i, double e, double n) {
+        double position = Math2.projectionLength(fromEs[i], fromNs[i], toEs[i], toNs[i], e, n);
+        return Double.isNaN(position) ? 0 : Math2.clamp(0, position, edgeLengths[i]);
+    }
+
+    /**
+     * Retourne la distance entre le point de référence et le point le plus proche de l'arête d'index donné
+     */
+    private double distance(int i, double e, double n) {
+        double ratio = ratio(i, clampedPosition(i, e, n));
+        return Math2.norm(e - Math2.interpolate(fromEs[i], toEs[i], ratio),
+                n - Math2.interpolate(fromNs[i], toNs[i], ratio));
+    }
+
+    private double ratio(int i, double position) {
+        return edgeLengths[i] == 0 ? 0 : position / edgeLengths[i];
+    }
+
+    private double squaredDistanceToBox(int node, double e, double n) {
+        double dE = Math.max(0, Math.max(minEs[node] - e, e - maxEs[node]));
+        double dN = Math.max(0, Math.max(minNs[node] - n, n - maxNs[node]));
+        return dE * dE + dN * dN;
+    }
+}
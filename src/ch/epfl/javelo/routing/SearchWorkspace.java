@@ -0,0 +1,215 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+/**
+ * Espace de travail réutilisable d'une recherche de plus court chemin (Dijkstra ou A*) dans un graphe de taille donnée.
+ * Les tableaux par nœud ne sont jamais remis à zéro : chaque nœud porte le numéro de la génération (recherche)
+ * au cours de laquelle il a été atteint, de sorte qu'une recherche ne touche que les nœuds qu'elle visite.
+ * Les nœuds en cours d'exploration sont rangés dans un tas 4-aire de primitives permettant la diminution de clef.
+ * Un espace de travail n'est pas utilisable par plusieurs fils d'exécution à la fois.
+ *
+ * @author Georges Moussalli (316630)
+ */
+final class SearchWorkspace {
+
+    private static final int ARITY = 4;
+    private static final int SETTLED = -1;
+
+    private final float[] distance;
+    private final int[] previous;
+    private final int[] previousEdge;
+    private final int[] generationOf;
+    private final int[] heapIndex;
+    private int generation;
+
+    private final int[] heapNodes;
+    private final float[] heapPriorities;
+    private int heapSize;
+
+    /**
+     * Construit un espace de travail pour un graphe comptant le nombre de nœuds donné
+     *
+     * @param nodeCount nombre de nœuds du graphe
+     */
+    SearchWorkspace(int nodeCount) {
+        distance = new float[nodeCount];
+        previous = new int[nodeCount];
+        previousEdge = new int[nodeCount];
+        generationOf = new int[nodeCount];
+        heapIndex = new int[nodeCount];
+        heapNodes = new int[nodeCount];
+        heapPriorities = new float[nodeCount];
+    }
+
+    /**
+     * Prépare l'espace de travail pour une nouvelle recherche, en temps constant
+     */
+    void reset() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(generationOf, 0);
+            generation = 0;
+        }
+        generation++;
+        heapSize = 0;
+    }
+
+    /**
+     * Retourne le coût du meilleur chemin connu jusqu'au nœud donné, ou l'infini positif s'il n'a pas été atteint
+     *
+     * @param nodeId identité du noeud
+     * @return le coût du meilleur chemin connu jusqu'au nœud
+     */
+    float distance(int nodeId) {
+        return generationOf[nodeId] == generation ? distance[nodeId] : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Retourne la valeur associée au nœud donné lors de sa dernière mise à jour (p. ex. son prédécesseur)
+     *
+     * @param nodeId identité du noeud, qui doit avoir été atteint
+     * @return la valeur associée au nœud
+     */
+    int previous(int nodeId) {
+        return previous[nodeId];
+    }
+
+    /**
+     * Retourne l'identité de l'arête par laquelle le meilleur chemin connu atteint le nœud donné
+     *
+     * @param nodeId identité du noeud, qui doit avoir été atteint par update avec une arête
+     * @return l'identité de l'arête menant au nœud
+     */
+    int previousEdge(int nodeId) {
+        return previousEdge[nodeId];
+    }
+
+    /**
+     * Retourne vrai ssi le nœud donné a été retiré du tas au cours de la recherche courante
+     *
+     * @param nodeId identité du noeud
+     * @return vrai ssi le nœud a été définitivement exploré
+     */
+    boolean isSettled(int nodeId) {
+        return generationOf[nodeId] == generation && heapIndex[nodeId] == SETTLED;
+    }
+
+    /**
+     * Enregistre un meilleur chemin jusqu'au nœud donné, et l'insère dans le tas ou y modifie sa priorité
+     *
+     * @param nodeId       identité du noeud
+     * @param nodeDistance coût du chemin jusqu'au nœud
+     * @param priority     priorité du nœud dans le tas
+     * @param previousId   valeur associée au nœud (p. ex. son prédécesseur)
+     */
+    void update(int nodeId, float nodeDistance, float priority, int previousId) {
+        update(nodeId, nodeDistance, priority, previousId, -1);
+    }
+
+    /**
+     * Enregistre un meilleur chemin jusqu'au nœud donné, atteint depuis le nœud previousId par l'arête previousEdgeId,
+     * et l'insère dans le tas ou y modifie sa priorité
+     *
+     * @param nodeId         identité du noeud
+     * @param nodeDistance   coût du chemin jusqu'au nœud
+     * @param priority       priorité du nœud dans le tas
+     * @param previousId     identité du nœud précédent
+     * @param previousEdgeId identité de l'arête menant du nœud précédent au nœud
+     */
+    void update(int nodeId, float nodeDistance, float priority, int previousId, int previousEdgeId) {
+        distance[nodeId] = nodeDistance;
+        previousEdge[nodeId] = previousEdgeId;
+        previous[nodeId] = previousId;
+        if (generationOf[nodeId] != generation) {
+            generationOf[nodeId] = generation;
+            heapNodes[heapSize] = nodeId;
+            heapPriorities[heapSize] = priority;
+            heapIndex[nodeId] = heapSize;
+            siftUp(heapSize++);
+        } else if (heapIndex[nodeId] != SETTLED) {
+            int index = heapIndex[nodeId];
+            float oldPriority = heapPriorities[index];
+            heapPriorities[index] = priority;
+            if (priority < oldPriority) siftUp(index);
+            else siftDown(index);
+        }
+    }
+
+    /**
+     * Retourne vrai ssi le tas est vide
+     *
+     * @return vrai ssi le tas est vide
+     */
+    boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Retourne la priorité minimale du tas, qui ne doit pas être vide
+     *
+     * @return la priorité minimale du tas
+     */
+    float peekPriority() {
+        return heapPriorities[0];
+    }
+
+    /**
+     * Retire du tas le nœud de priorité minimale, qui est dès lors considéré comme exploré, et retourne son identité
+     *
+     * @return l'identité du nœud de priorité minimale
+     */
+    int poll() {
+        int nodeId = heapNodes[0];
+        heapIndex[nodeId] = SETTLED;
+        heapSize--;
+        if (heapSize > 0) {
+            heapNodes[0] = heapNodes[heapSize];
+            heapPriorities[0] = heapPriorities[heapSize];
+            heapIndex[heapNodes[0]] = 0;
+            siftDown(0);
+        }
+        return nodeId;
+    }
+
+    private void siftUp(int index) {
+        int nodeId = heapNodes[index];
+        float priority = heapPriorities[index];
+        while (index > 0) {
+            int parent = (index - 1) / ARITY;
+            if (heapPriorities[parent] <= priority) break;
+            move(parent, index);
+            index = parent;
+        }
+        place(nodeId, priority, index);
+    }
+
+    private void siftDown(int index) {
+        int nodeId = heapNodes[index];
+        float priority = heapPriorities[index];
+        while (true) {
+            int firstChild = ARITY * index + 1;
+            if (firstChild >= heapSize) break;
+            int minChild = firstChild;
+            int lastChild = Math.min(firstChild + ARITY, heapSize);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (heapPriorities[child] < heapPriorities[minChild]) minChild = child;
+            }
+            if (priority <= heapPriorities[minChild]) break;
+            move(minChild, index);
+            index = minChild;
+        }
+        place(nodeId, priority, index);
+    }
+
+    private void move(int from, int to) {
+        heapNodes[to] = heapNodes[from];
+        heapPriorities[to] = heapPriorities[from];
+        heapIndex[heapNodes[to]] = to;
+    }
+
+    private void place(int nodeId, float priority, int index) {
+        heapNodes[index] = nodeId;
+        heapPriorities[index] = priority;
+        heapIndex[nodeId] = index;
+    }
+}
@@ -0,0 +1,79 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+
+/**
+ * Réserve d'espaces de travail de recherche pour un graphe de taille donnée, partagée par un planificateur
+ * et ceux qui en sont dérivés. Chaque recherche emprunte les espaces de travail dont elle a besoin et les rend
+ * lorsqu'elle se termine ; un nouvel espace est alloué si aucun n'est disponible.
+ * Au plus un nombre donné d'espaces inutilisés sont conservés, par des références souples que le ramasse-miettes
+ * peut libérer en cas de manque de mémoire, si bien que la mémoire retenue ne dépend pas du nombre de fils d'exécution
+ * ayant effectué des recherches.
+ *
+ * @author Georges Moussalli (316630)
+ */
+final class SearchWorkspacePool {
+
+    // de quoi effectuer une recherche bidirectionnelle sans allocation
+    static final int DEFAULT_MAX_IDLE = 2;
+
+    private final int nodeCount;
+    private final int maxIdle;
+    private final ArrayDeque<SoftReference<SearchWorkspace>> idle = new ArrayDeque<>();
+
+    /**
+     * Construit une réserve vide d'espaces de travail pour un graphe comptant le nombre de nœuds donné
+     *
+     * @param nodeCount nombre de nœuds du graphe
+     * @param maxIdle   nombre maximal d'espaces de travail inutilisés conservés
+     * @throws IllegalArgumentException si le nombre maximal d'espaces conservés est négatif
+     */
+    SearchWorkspacePool(int nodeCount, int maxIdle) {
+        Preconditions.checkArgument(maxIdle >= 0);
+        this.nodeCount = nodeCount;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Retourne un espace de travail inutilisé de la réserve, ou un nouvel espace si elle n'en contient aucun ;
+     * l'espace retourné doit être préparé (reset) avant chaque recherche
+     *
+     * @return un espace de travail réservé à l'appelant jusqu'à ce qu'il le rende
+     */
+    SearchWorkspace acquire() {
+        synchronized (idle) {
+            while (!idle.isEmpty()) {
+                SearchWorkspace workspace = idle.pop().get();
+                if (workspace != null) return workspace;
+            }
+        }
+        return new SearchWorkspace(nodeCount);
+    }
+
+    /**
+     * Rend à la réserve l'espace de travail donné, qui ne doit plus être utilisé par l'appelant ;
+     * il est abandonné si la réserve contient déjà le nombre maximal d'espaces inutilisés
+     *
+     * @param workspace espace de travail obtenu par acquire
+     */
+    void release(SearchWorkspace workspace) {
+        synchronized (idle) {
+            if (idle.size() < maxIdle) idle.push(new SoftReference<>(workspace));
+        }
+    }
+
+    /**
+     * Retourne le nombre d'espaces de travail inutilisés que la réserve conserve actuellement,
+     * en comptant ceux que le ramasse-miettes a déjà libérés
+     *
+     * @return le nombre d'espaces de travail inutilisés
+     */
+    int idleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+}
@@ -4,8 +4,6 @@ import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.projection.PointCh;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -17,9 +15,19 @@ import java.util.List;
 public final class SingleRoute implements Route {
 
     private final List<Edge> edges;
-    private double length;
+    private final double length;
     private final List<PointCh> points;
-    private final double[] list;
+
+    // colonnes décrivant les arêtes, afin que les accès par position ne parcourent pas la liste des arêtes
+    private final double[] positions;
+    private final double[] edgeLengths;
+    private final int[] fromNodeIds;
+    private final int[] toNodeIds;
+    private final double[] fromEs;
+    private final double[] fromNs;
+    private final double[] toEs;
+    private final double[] toNs;
+    private volatile RouteSpatialIndex spatialIndex;
 
 
     /**
@@ -31,23 +39,35 @@ public final class SingleRoute implements Route {
     public SingleRoute(List<Edge> edges) {
         Preconditions.checkArgument(edges.size() > 0);
         this.edges = List.copyOf(edges);
-        length = 0;
-        List<PointCh> temp = new ArrayList<>();
-
-        for (Edge edge : edges) {
-            temp.add(edge.fromPoint());
-            length += edge.length();
-        }
-        temp.add(edges.get(edges().size() - 1).toPoint());
-        points = List.copyOf(temp);
-
-        list = new double[edges.size() + 1];
-        list[0] = 0;
-        double maxLength = 0;
-        for (int i = 1; i <= edges().size(); i++) {
-            maxLength += edges.get(i - 1).length();
-            list[i] = maxLength;
+        int count = this.edges.size();
+
+        positions = new double[count + 1];
+        edgeLengths = new double[count];
+        fromNodeIds = new int[count];
+        toNodeIds = new int[count];
+        fromEs = new double[count];
+        fromNs = new double[count];
+        toEs = new double[count];
+        toNs = new double[count];
+        PointCh[] temp = new PointCh[count + 1];
+
+        double totalLength = 0;
+        for (int i = 0; i < count; i++) {
+            Edge edge = this.edges.get(i);
+            temp[i] = edge.fromPoint();
+            edgeLengths[i] = edge.length();
+            fromNodeIds[i] = edge.fromNodeId();
+            toNodeIds[i] = edge.toNodeId();
+            fromEs[i] = edge.fromPoint().e();
+            fromNs[i] = edge.fromPoint().n();
+            toEs[i] = edge.toPoint().e();
+            toNs[i] = edge.toPoint().n();
+            totalLength += edge.length();
+            positions[i + 1] = totalLength;
         }
+        temp[count] = this.edges.get(count - 1).toPoint();
+        points = List.of(temp);
+        length = totalLength;
     }
 
     /**
@@ -106,25 +126,12 @@ public final class SingleRoute implements Route {
 
     @Override
     public PointCh pointAt(double position) {
-
-
-        int index = Arrays.binarySearch(list, position);
-
-        if (index == -1) {
-            return edges.get(0).fromPoint();
-        }
-        if (-index - 2 >= edges.size()) {
-            return edges.get(edges.size() - 1).toPoint();
-        }
-
-        if (index <= 0) {
-            if (index <= -2) {
-                index = - index - 2;
-            }
-            return edges.get(index).pointAt(position - list[index]);
-        } else {
-            return edges.get(index - 1).pointAt(edges.get(index - 1).length());
-        }
+        if (position <= 0) return edges.get(0).fromPoint();
+        if (position >= length) return edges.get(edges.size() - 1).toPoint();
+        int index = edgeIndexAt(position);
+        double ratio = (position - positions[index]) / edgeLengths[index];
+        return new PointCh(Math2.interpolate(fromEs[index], toEs[index], ratio),
+                Math2.interpolate(fromNs[index], toNs[index], ratio));
     }
 
 
@@ -139,31 +146,9 @@ public final class SingleRoute implements Route {
 
     @Override
     public double elevationAt(double position) {
-
-        double[] list = new double[edges.size() + 1];
-
-        list[0] = 0;
-        double maxLength = 0;
-
-        for (int i = 1; i <= edges().size(); i++) {
-
-            maxLength += edges.get(i - 1).length();
-            list[i] = maxLength;
-        }
-        int index = Arrays.binarySearch(list, position);
-
-        if (-index - 2 >= edges.size()) {
-            return edges.get(edges.size() - 1).elevationAt(list[edges.size() - 3]);
-        }
-        if (index == -1) {
-            return edges.get(0).elevationAt(0);
-        }
-        if (index <= 0) {
-            if (index <= -2) {
-                return edges.get(-index - 2).elevationAt(position - list[-index - 2]);
-            }
-            return edges.get(0).elevationAt(position);
-        } else return edges.get(index - 1).elevationAt(position - list[index - 1]);
+        double clampedPosition = Math2.clamp(0, position, length);
+        int index = edgeIndexAt(clampedPosition);
+        return edges.get(index).elevationAt(clampedPosition - positions[index]);
     }
 
 
@@ -176,36 +161,34 @@ public final class SingleRoute implements Route {
 
     @Override
     public int nodeClosestTo(double position) {
+        double clampedPosition = Math2.clamp(0, position, length);
+        int index = edgeIndexAt(clampedPosition);
+        return clampedPosition - positions[index] <= edgeLengths[index] * 0.5
+                ? fromNodeIds[index]
+                : toNodeIds[index];
+    }
 
-        double[] list = new double[edges.size() + 1];
-
-        list[0] = 0;
-        double maxLength = 0;
-
-        for (int i = 1; i <= edges().size(); i++) {
-            maxLength += edges.get(i - 1).length();
-            list[i] = maxLength;
-        }
-        int index = Arrays.binarySearch(list, position);
 
-        if (-index - 2 >= edges.size() || index == edges.size()) {
-            return edges.get(edges.size() - 1).toNodeId();
-        }
-        if (index == -1 || index == 0) {
-            return edges.get(0).fromNodeId();
+    /**
+     * Retourne l'index de la première arête dont la fin se trouve à la position donnée ou au-delà,
+     * c.-à-d. de l'arête contenant cette position, la position d'un nœud étant attribuée à l'arête qui y arrive ;
+     * la recherche est dichotomique et n'alloue rien
+     */
+    private int edgeIndexAt(double position) {
+        int low = 0;
+        int high = edgeLengths.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (positions[middle + 1] >= position) high = middle;
+            else low = middle + 1;
         }
-        if (index <= -2) {
-            if (position - list[-index - 2] <= (edges.get(-index - 2).length()) * 0.5) {
-                return edges.get(-index - 2).fromNodeId();
-            } else {
-                return edges.get(-index - 2).toNodeId();
-            }
-        } else return edges.get(index - 1).toNodeId();
+        return low;
     }
 
 
     /**
-     * Retourne le point de l'itinéraire se trouvant le plus proche du point de référence donné
+     * Retourne le point de l'itinéraire se trouvant le plus proche du point de référence donné ;
+     * l'index spatial des arêtes est construit lors du premier appel
      *
      * @param point point de référence dont on cherche le point de l'itineéraire le pljus proche
      * @return le point de l'itinéraire se trouvant le plus proche du point de référence donné
@@ -213,16 +196,11 @@ public final class SingleRoute implements Route {
 
     @Override
     public RoutePoint pointClosestTo(PointCh point) {
-
-        RoutePoint routePoint = RoutePoint.NONE;
-        double somme = 0;
-
-        for (Edge edge : edges) {
-            double position = Math2.clamp(0, edge.positionClosestTo(point), edge.length());
-            routePoint = routePoint.min(edge.pointAt(position), somme + position, edge.pointAt(position).distanceTo(point));
-            somme += edge.length();
+        RouteSpatialIndex spatialIndex = this.spatialIndex;
+        if (spatialIndex == null) {
+            this.spatialIndex = spatialIndex =
+                    new RouteSpatialIndex(fromEs, fromNs, toEs, toNs, edgeLengths, positions);
         }
-
-        return routePoint;
+        return spatialIndex.pointClosestTo(point);
     }
-}
\ No newline at end of file
+}
@@ -8,7 +8,7 @@ import java.util.Optional;
 import static ch.epfl.javelo.data.Attribute.*;
 import static ch.epfl.javelo.data.Attribute.TRACKTYPE_GRADE5;
 
-public record SportBikeCF(Graph graph) implements CostFunction {
+public record SportBikeCF(Graph graph) implements AttributeCostFunction {
     // Any kind of marked cycle route (international, national, regional or local)
     private static final AttributeSet CYCLE_ROUTE =
             AttributeSet.of(ICN_YES, NCN_YES, RCN_YES, LCN_YES);
@@ -60,14 +60,11 @@ public record SportBikeCF(Graph graph) implements CostFunction {
     private static final Optional<Boolean> UNKNOWN = Optional.empty();
 
     @Override
-    public double costFactor(int nodeId, int edgeId) {
-        var edgeAttributes = graph.edgeAttributes(edgeId);
-
+    public double flatCostFactor(AttributeSet edgeAttributes, boolean isInverted) {
         // Exclude motorways.
         if (edgeAttributes.contains(HIGHWAY_MOTORWAY)) return Double.POSITIVE_INFINITY;
 
         // Exclude forbidden one-way streets.
-        var isInverted = graph.edgeIsInverted(edgeId);
         var wrongOneWay = isInverted
                 ? edgeAttributes.intersects(ONEWAY_FORWARD)
                 : edgeAttributes.contains(ONEWAY_M1);
@@ -88,16 +85,15 @@ public record SportBikeCF(Graph graph) implements CostFunction {
         if (!isAccessible) return Double.POSITIVE_INFINITY;
 
         // Marked cycle routes are always considered as perfect, anything else is worse.
-        var flatCost = isCycleRoute
+        return isCycleRoute
                 ? 1d
                 : 0.05 + nonCycleRouteCostFactor(edgeAttributes);
+    }
 
-        var averageUpSlope = graph.edgeElevationGain(edgeId) / graph.edgeLength(edgeId);
-        if (averageUpSlope < 0.01) return flatCost;
-        else if (averageUpSlope < 0.03) return flatCost * 1.2;
-        else if (averageUpSlope < 0.05) return flatCost * 1.4;
-        else if (averageUpSlope < 0.10) return flatCost * 1.8;
-        else return flatCost * 2.6;
+    // Steps have a fixed cost, whatever their slope.
+    @Override
+    public boolean dependsOnSlope(AttributeSet edgeAttributes) {
+        return !edgeAttributes.contains(HIGHWAY_STEPS);
     }
 
     private Optional<Boolean> isAccessibleByBike(AttributeSet edgeAttributes) {
@@ -97,4 +97,26 @@ class FunctionsTest {
             }
         }
     }
+
+    @Test
+    void functionsSampledReversedEqualsSampledOnReversedCopy() {
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            var sampleCount = rng.nextInt(2, 20);
+            var samples = new float[sampleCount];
+            var reversedSamples = new float[sampleCount];
+            for (int j = 0; j < sampleCount; j += 1) {
+                samples[j] = rng.nextFloat(-5000, 5000);
+                reversedSamples[sampleCount - 1 - j] = samples[j];
+            }
+            var xMax = rng.nextDouble(1, 100);
+            var f = Functions.sampledReversed(samples, xMax);
+            var g = Functions.sampled(reversedSamples, xMax);
+            for (int j = 0; j < 100; j += 1) {
+                var x = rng.nextDouble(-10, xMax + 10);
+                assertEquals(g.applyAsDouble(x), f.applyAsDouble(x));
+            }
+            assertEquals(g.applyAsDouble(xMax), f.applyAsDouble(xMax));
+        }
+    }
 }
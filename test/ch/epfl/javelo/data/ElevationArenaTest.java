@@ -0,0 +1,100 @@
+package ch.epfl.javelo.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElevationArenaTest {
+    private static final int EDGES_COUNT = 7;
+
+    // Arêtes 2k et 2k + 1 : deux sens d'une même voie, de profil non compressé commençant à l'échantillon 4k ;
+    // la dernière arête n'a pas de profil
+    private static GraphEdges edges() {
+        var edgesBuffer = ByteBuffer.allocate(10 * EDGES_COUNT);
+        var profileIds = new int[EDGES_COUNT];
+        var elevations = ShortBuffer.allocate(4 * EDGES_COUNT);
+        for (int edgeId = 0; edgeId < EDGES_COUNT; edgeId += 1) {
+            edgesBuffer.putInt(10 * edgeId, edgeId % 2 == 0 ? edgeId : ~edgeId);
+            // 3 échantillons, donc une longueur de 4 m
+            edgesBuffer.putShort(10 * edgeId + 4, (short) (4 << 4));
+            profileIds[edgeId] = edgeId == EDGES_COUNT - 1 ? 0 : (1 << 30) | (4 * (edgeId / 2));
+        }
+        for (int i = 0; i < elevations.capacity(); i += 1)
+            elevations.put(i, (short) ((100 + 3 * i) << 4));
+        return new GraphEdges(edgesBuffer, IntBuffer.wrap(profileIds), elevations);
+    }
+
+    private static float[] toArray(FloatBuffer buffer) {
+        var array = new float[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+
+    private static ByteBuffer toBytes(GraphBuffer buffer) {
+        var bytes = ByteBuffer.allocate((int) buffer.byteSize());
+        for (int i = 0; i < bytes.capacity(); i += Short.BYTES) bytes.putShort(i, buffer.getShort(i));
+        return bytes;
+    }
+
+    private static void assertArenaMatches(GraphEdges edges, ElevationArena arena) {
+        for (int edgeId = 0; edgeId < EDGES_COUNT; edgeId += 1) {
+            var expected = edges.hasProfile(edgeId) ? edges.osmProfileSamples(edgeId) : new float[0];
+            assertArrayEquals(expected, toArray(arena.osmProfileSamples(edgeId)));
+        }
+    }
+
+    @Test
+    void elevationArenaDecodesEachProfileOnce() {
+        var edges = edges();
+        var arena = ElevationArena.of(edges);
+        assertArenaMatches(edges, arena);
+        assertEquals(3 * 3, arena.sampleCount());
+        assertTrue(arena.osmProfileSamples(0).isReadOnly());
+    }
+
+    @Test
+    void elevationArenaIsPersistedAndReloaded(@TempDir Path directory) throws IOException {
+        var edges = edges();
+        BinaryFiles.write(directory.resolve("edges.bin"), toBytes(edges.edgesBuffer()));
+        BinaryFiles.write(directory.resolve("profile_ids.bin"), toBytes(edges.profileIds()));
+        BinaryFiles.write(directory.resolve("elevations.bin"), toBytes(edges.elevations()));
+
+        assertArenaMatches(edges, ElevationArena.loadOrDecode(directory, edges));
+        var path = directory.resolve(ElevationArena.FILE_NAME);
+        assertTrue(Files.exists(path));
+        var modified = Files.getLastModifiedTime(path);
+        assertArenaMatches(edges, ElevationArena.loadOrDecode(directory, edges));
+        assertEquals(modified, Files.getLastModifiedTime(path));
+
+        // un fichier qui ne correspond plus au graphe est remplacé
+        Files.write(path, new byte[]{1, 2, 3});
+        assertArenaMatches(edges, ElevationArena.loadOrDecode(directory, edges));
+        assertTrue(Files.size(path) > 3);
+    }
+
+    @Test
+    void graphEdgeProfileReadsArenaInBothDirections() {
+        var edges = edges();
+        var onDemand = new Graph(new GraphNodes(IntBuffer.allocate(0)), new GraphSectors(ByteBuffer.allocate(0)),
+                edges, List.of());
+        var decoded = new Graph(new GraphNodes(IntBuffer.allocate(0)), new GraphSectors(ByteBuffer.allocate(0)),
+                edges, List.of(), null, ElevationArena.of(edges));
+        for (int edgeId = 0; edgeId < EDGES_COUNT; edgeId += 1) {
+            for (int i = -5; i <= 45; i += 1) {
+                var x = i / 10.0;
+                assertEquals(onDemand.edgeProfile(edgeId).applyAsDouble(x),
+                        decoded.edgeProfile(edgeId).applyAsDouble(x));
+            }
+        }
+    }
+}
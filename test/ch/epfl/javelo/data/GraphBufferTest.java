@@ -0,0 +1,71 @@
+package ch.epfl.javelo.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphBufferTest {
+    private static ByteBuffer randomBytes(int size) {
+        var rng = newRandom();
+        var bytes = new byte[size];
+        rng.nextBytes(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static void assertSameContents(ByteBuffer expected, GraphBuffer actual) {
+        assertEquals(expected.capacity(), actual.byteSize());
+        for (int offset = 0; offset + Integer.BYTES <= expected.capacity(); offset += Integer.BYTES)
+            assertEquals(expected.getInt(offset), actual.getInt(offset));
+        for (int offset = 0; offset + Short.BYTES <= expected.capacity(); offset += Short.BYTES)
+            assertEquals(expected.getShort(offset), actual.getShort(offset));
+    }
+
+    @Test
+    void graphBufferWorksOnAllBufferTypes() {
+        for (int i = 0; i < RANDOM_ITERATIONS / 100; i += 1) {
+            var bytes = randomBytes(4 * (i + 1));
+            assertSameContents(bytes, GraphBuffer.of(bytes));
+            assertSameContents(bytes, GraphBuffer.of(bytes.asIntBuffer()));
+            assertSameContents(bytes, GraphBuffer.of(bytes.asShortBuffer()));
+        }
+    }
+
+    @Test
+    void graphBufferMapWorksAcrossChunkBoundaries(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("data.bin");
+        // 10 octets par valeur, comme les arêtes, afin que des entiers chevauchent les limites des tranches
+        var bytes = randomBytes(10 * 1_000);
+        BinaryFiles.write(path, bytes);
+        assertSameContents(bytes, GraphBuffer.map(path));
+        for (int chunkBits = 3; chunkBits <= 12; chunkBits += 1) {
+            var chunked = GraphBuffer.map(path, chunkBits);
+            assertSameContents(bytes, chunked);
+            for (int offset = 0; offset < bytes.capacity(); offset += 10) {
+                assertEquals(bytes.getInt(offset), chunked.getInt(offset));
+                assertEquals(bytes.getShort(offset + 8), chunked.getShort(offset + 8));
+            }
+        }
+    }
+
+    @Test
+    void graphBufferMapWorksOnEmptyFile(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("empty.bin");
+        BinaryFiles.write(path);
+        assertEquals(0, GraphBuffer.map(path).byteSize());
+    }
+
+    @Test
+    void graphBufferMapThrowsOnInvalidChunkSize(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("data.bin");
+        BinaryFiles.write(path, randomBytes(16));
+        assertThrows(IllegalArgumentException.class, () -> GraphBuffer.map(path, 2));
+        assertThrows(IllegalArgumentException.class, () -> GraphBuffer.map(path, 31));
+    }
+}
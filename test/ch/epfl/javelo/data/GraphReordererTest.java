@@ -0,0 +1,146 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.projection.PointCh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphReordererTest {
+    private static final int NODES_COUNT = 500;
+    private static final int SECTORS_COUNT = 128 * 128;
+    private static final int MAX_SAMPLES_COUNT = 21;
+
+    // Graphe aléatoire de nœuds répartis sur quelques secteurs autour de Berne, rangés par secteur
+    private static void writeRandomGraph(RandomGenerator rng, Path directory) throws IOException {
+        var points = new long[NODES_COUNT];
+        var sectorIndices = new int[NODES_COUNT];
+        for (int i = 0; i < NODES_COUNT; i += 1) {
+            var e = (int) Math.scalb(rng.nextDouble(2_595_000, 2_605_000), 4);
+            var n = (int) Math.scalb(rng.nextDouble(1_195_000, 1_205_000), 4);
+            points[i] = ((long) e << 32) | (n & 0xFFFFFFFFL);
+        }
+        // tri des nœuds par secteur, comme dans les fichiers produits par le pré-traitement
+        var sorted = Arrays.stream(points).boxed().sorted((p, q) -> Integer.compare(sector(p), sector(q)))
+                .mapToLong(Long::longValue).toArray();
+        for (int i = 0; i < NODES_COUNT; i += 1) sectorIndices[i] = sector(sorted[i]);
+
+        var sectors = ByteBuffer.allocate(6 * SECTORS_COUNT);
+        for (int i = 0; i < NODES_COUNT; i += 1) {
+            if (i == 0 || sectorIndices[i] != sectorIndices[i - 1]) sectors.putInt(6 * sectorIndices[i], i);
+            sectors.putShort(6 * sectorIndices[i] + 4, (short) (sectors.getShort(6 * sectorIndices[i] + 4) + 1));
+        }
+
+        var nodes = ByteBuffer.allocate(12 * NODES_COUNT);
+        var osmIds = ByteBuffer.allocate(8 * NODES_COUNT);
+        var degrees = new int[NODES_COUNT];
+        var edgesCount = 0;
+        for (int i = 0; i < NODES_COUNT; i += 1) {
+            degrees[i] = rng.nextInt(4);
+            nodes.putInt(12 * i, (int) (sorted[i] >> 32));
+            nodes.putInt(12 * i + 4, (int) sorted[i]);
+            nodes.putInt(12 * i + 8, (degrees[i] << 28) | edgesCount);
+            osmIds.putLong(8 * i, rng.nextLong(1L << 40));
+            edgesCount += degrees[i];
+        }
+
+        var edges = ByteBuffer.allocate(10 * edgesCount);
+        var profileIds = ByteBuffer.allocate(4 * edgesCount);
+        for (int edgeId = 0; edgeId < edgesCount; edgeId += 1) {
+            var target = rng.nextInt(NODES_COUNT);
+            edges.putInt(10 * edgeId, rng.nextBoolean() ? ~target : target);
+            // moins de 40 m, donc au plus 21 échantillons, propres à chaque arête
+            edges.putShort(10 * edgeId + 4, (short) rng.nextInt(1, 40 << 4));
+            edges.putShort(10 * edgeId + 6, (short) rng.nextInt(1 << 12));
+            edges.putShort(10 * edgeId + 8, (short) rng.nextInt(2));
+            profileIds.putInt(4 * edgeId, rng.nextBoolean() ? 0 : (1 << 30) | (MAX_SAMPLES_COUNT * edgeId));
+        }
+        var elevations = ByteBuffer.allocate(2 * MAX_SAMPLES_COUNT * edgesCount);
+        for (int i = 0; i < elevations.capacity(); i += 2) elevations.putShort(i, (short) rng.nextInt(1 << 14));
+        var attributes = ByteBuffer.allocate(2 * 8).putLong(0, 1L).putLong(8, 6L);
+
+        BinaryFiles.write(directory.resolve("nodes.bin"), nodes);
+        BinaryFiles.write(directory.resolve("sectors.bin"), sectors);
+        BinaryFiles.write(directory.resolve("edges.bin"), edges);
+        BinaryFiles.write(directory.resolve("profile_ids.bin"), profileIds);
+        BinaryFiles.write(directory.resolve("elevations.bin"), elevations);
+        BinaryFiles.write(directory.resolve("attributes.bin"), attributes);
+        BinaryFiles.write(directory.resolve("nodes_osmid.bin"), osmIds);
+    }
+
+    private static int sector(long point) {
+        return GraphSectors.sectorX(Math.scalb((double) (int) (point >> 32), -4))
+                + 128 * GraphSectors.sectorY(Math.scalb((double) (int) point, -4));
+    }
+
+    @Test
+    void graphReordererPreservesTheGraph(@TempDir Path directory) throws IOException {
+        var rng = newRandom();
+        var source = directory.resolve("source");
+        Files.createDirectories(source);
+        writeRandomGraph(rng, source);
+        var graph = Graph.loadFrom(source);
+        var osmIds = BinaryFiles.map(source.resolve("nodes_osmid.bin")).asLongBuffer();
+
+        for (var order : GraphReorderer.Order.values()) {
+            var target = directory.resolve(order.name());
+            var newToOld = GraphReorderer.reorder(source, target, order);
+            var reordered = Graph.loadFrom(target);
+            var newOsmIds = BinaryFiles.map(target.resolve("nodes_osmid.bin")).asLongBuffer();
+
+            var oldToNew = new int[NODES_COUNT];
+            Arrays.fill(oldToNew, -1);
+            for (int i = 0; i < NODES_COUNT; i += 1) oldToNew[newToOld[i]] = i;
+            assertTrue(Arrays.stream(oldToNew).allMatch(i -> i != -1));
+
+            for (int newNodeId = 0; newNodeId < NODES_COUNT; newNodeId += 1) {
+                var oldNodeId = newToOld[newNodeId];
+                assertEquals(graph.nodePoint(oldNodeId), reordered.nodePoint(newNodeId));
+                assertEquals(osmIds.get(oldNodeId), newOsmIds.get(newNodeId));
+                assertEquals(graph.nodeOutDegree(oldNodeId), reordered.nodeOutDegree(newNodeId));
+                for (int i = 0; i < graph.nodeOutDegree(oldNodeId); i += 1) {
+                    var oldEdgeId = graph.nodeOutEdgeId(oldNodeId, i);
+                    var newEdgeId = reordered.nodeOutEdgeId(newNodeId, i);
+                    assertEquals(oldToNew[graph.edgeTargetNodeId(oldEdgeId)], reordered.edgeTargetNodeId(newEdgeId));
+                    assertEquals(graph.edgeIsInverted(oldEdgeId), reordered.edgeIsInverted(newEdgeId));
+                    assertEquals(graph.edgeLength(oldEdgeId), reordered.edgeLength(newEdgeId));
+                    assertEquals(graph.edgeElevationGain(oldEdgeId), reordered.edgeElevationGain(newEdgeId));
+                    assertEquals(graph.edgeAttributes(oldEdgeId), reordered.edgeAttributes(newEdgeId));
+                    for (double x = 0; x <= graph.edgeLength(oldEdgeId); x += 0.75) {
+                        assertEquals(graph.edgeProfile(oldEdgeId).applyAsDouble(x),
+                                reordered.edgeProfile(newEdgeId).applyAsDouble(x));
+                    }
+                }
+            }
+
+            // les secteurs réécrits permettent de retrouver les mêmes nœuds
+            for (int i = 0; i < 200; i += 1) {
+                var e = rng.nextDouble(2_594_000, 2_606_000);
+                var n = rng.nextDouble(1_194_000, 1_206_000);
+                var oldClosest = graph.nodesClosestTo(new PointCh(e, n), 800, 5);
+                var newClosest = reordered.nodesClosestTo(new PointCh(e, n), 800, 5);
+                assertEquals(oldClosest.length, newClosest.length);
+                for (int k = 0; k < oldClosest.length; k += 1) {
+                    assertEquals(graph.nodePoint(oldClosest[k]), reordered.nodePoint(newClosest[k]));
+                }
+            }
+        }
+    }
+
+    @Test
+    void graphReordererThrowsOnNonEmptyTarget(@TempDir Path directory) throws IOException {
+        var source = directory.resolve("source");
+        Files.createDirectories(source);
+        writeRandomGraph(newRandom(), source);
+        assertThrows(IllegalArgumentException.class,
+                () -> GraphReorderer.reorder(source, source, GraphReorderer.Order.HILBERT));
+    }
+}
@@ -0,0 +1,78 @@
+package ch.epfl.javelo.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphReverseEdgesTest {
+
+    @Test
+    void graphReverseEdgesWorksOnSmallGraph() {
+        // Nœud 0 : arêtes 0 (→ 1) et 1 (→ 2). Nœud 1 : arête 2 (→ 2). Nœud 2 : arête 3 (→ 0, inversée).
+        IntBuffer nodesBuffer = IntBuffer.wrap(new int[]{
+                0, 0, (2 << 28) | 0,
+                0, 0, (1 << 28) | 2,
+                0, 0, (1 << 28) | 3
+        });
+        ByteBuffer edgesBuffer = ByteBuffer.allocate(4 * 10);
+        edgesBuffer.putInt(0, 1);
+        edgesBuffer.putInt(10, 2);
+        edgesBuffer.putInt(20, 2);
+        edgesBuffer.putInt(30, ~0);
+        var edges = new GraphEdges(edgesBuffer, IntBuffer.allocate(4), ShortBuffer.allocate(0));
+
+        var reverseEdges = GraphReverseEdges.of(new GraphNodes(nodesBuffer), edges);
+
+        assertEquals(1, reverseEdges.inDegree(0));
+        assertEquals(3, reverseEdges.edgeId(0, 0));
+        assertEquals(2, reverseEdges.sourceNodeId(0, 0));
+
+        assertEquals(1, reverseEdges.inDegree(1));
+        assertEquals(0, reverseEdges.edgeId(1, 0));
+        assertEquals(0, reverseEdges.sourceNodeId(1, 0));
+
+        assertEquals(2, reverseEdges.inDegree(2));
+        assertEquals(1, reverseEdges.edgeId(2, 0));
+        assertEquals(0, reverseEdges.sourceNodeId(2, 0));
+        assertEquals(2, reverseEdges.edgeId(2, 1));
+        assertEquals(1, reverseEdges.sourceNodeId(2, 1));
+
+        assertEquals(GraphReverseEdges.fileInts(3, 4),
+                reverseEdges.offsets().capacity() + reverseEdges.edges().capacity());
+    }
+
+    @Test
+    void graphReverseEdgesIsPersistedAndReplacedWhenStale(@TempDir Path directory) throws IOException {
+        // Nœud 0 : arête 0 (→ 1). Nœud 1 : arête 1 (→ 0).
+        var nodesBuffer = IntBuffer.wrap(new int[]{0, 0, (1 << 28) | 0, 0, 0, (1 << 28) | 1});
+        var edgesBuffer = ByteBuffer.allocate(2 * 10).putInt(0, 1).putInt(10, 0);
+        BinaryFiles.write(directory.resolve("nodes.bin"), BinaryFiles.asBytes(nodesBuffer));
+        BinaryFiles.write(directory.resolve("edges.bin"), edgesBuffer);
+        var nodes = new GraphNodes(nodesBuffer);
+        var edges = new GraphEdges(edgesBuffer, IntBuffer.allocate(2), ShortBuffer.allocate(0));
+
+        var path = directory.resolve(GraphReverseEdges.FILE_NAME);
+        assertEquals(1, GraphReverseEdges.loadOrCompute(directory, nodes, edges).sourceNodeId(0, 0));
+        assertTrue(Files.exists(path));
+        var modified = Files.getLastModifiedTime(path);
+        assertEquals(1, GraphReverseEdges.loadOrCompute(directory, nodes, edges).sourceNodeId(0, 0));
+        assertEquals(modified, Files.getLastModifiedTime(path));
+
+        // même nombre de nœuds et d'arêtes, mais arêtes différentes : l'ancien index n'est pas réutilisé
+        var newEdgesBuffer = ByteBuffer.allocate(2 * 10).putInt(0, 0).putInt(10, 1);
+        BinaryFiles.write(directory.resolve("edges.bin"), newEdgesBuffer);
+        var newEdges = new GraphEdges(newEdgesBuffer, IntBuffer.allocate(2), ShortBuffer.allocate(0));
+        var reverseEdges = GraphReverseEdges.loadOrCompute(directory, nodes, newEdges);
+        assertEquals(0, reverseEdges.sourceNodeId(0, 0));
+        assertEquals(1, reverseEdges.sourceNodeId(1, 0));
+        assertEquals(0, GraphReverseEdges.loadOrCompute(directory, nodes, newEdges).sourceNodeId(0, 0));
+    }
+}
@@ -17,6 +17,7 @@ import java.util.List;
 import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
 import static ch.epfl.test.TestRandomizer.newRandom;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class GraphTest {
@@ -111,6 +112,33 @@ class GraphTest {
 
             var graph = new Graph(graphNodes, graphSectors, graphEdges, attributeSets);
             assertEquals(new PointCh(e, n), graph.nodePoint(nodeId));
+            assertEquals(e, graph.nodeE(nodeId));
+            assertEquals(n, graph.nodeN(nodeId));
+        }
+    }
+
+    @Test
+    void graphNodeSquaredDistanceAgreesWithNodePoint() {
+        var edgesBuffer = ByteBuffer.allocate(10);
+        var graphEdges = new GraphEdges(edgesBuffer, IntBuffer.allocate(1), ShortBuffer.allocate(10));
+        var graphSectors = new GraphSectors(SECTORS_BUFFER);
+
+        var nodesCount = 1_000;
+        var buffer = IntBuffer.allocate(3 * nodesCount);
+        var rng = newRandom();
+        for (int nodeId = 0; nodeId < nodesCount; nodeId += 1) {
+            buffer.put(3 * nodeId, (int) Math.scalb(2_600_000 + 50_000 * rng.nextDouble(), 4));
+            buffer.put(3 * nodeId + 1, (int) Math.scalb(1_200_000 + 50_000 * rng.nextDouble(), 4));
+        }
+        var graph = new Graph(new GraphNodes(buffer), graphSectors, graphEdges, List.of());
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            var nodeId1 = rng.nextInt(nodesCount);
+            var nodeId2 = rng.nextInt(nodesCount);
+            var point = new PointCh(2_600_000 + 50_000 * rng.nextDouble(), 1_200_000 + 50_000 * rng.nextDouble());
+            assertEquals(graph.nodePoint(nodeId1).squaredDistanceTo(graph.nodePoint(nodeId2)),
+                    graph.nodeSquaredDistance(nodeId1, nodeId2));
+            assertEquals(graph.nodePoint(nodeId1).squaredDistanceTo(point),
+                    graph.nodeSquaredDistance(nodeId1, point.e(), point.n()));
         }
     }
 
@@ -179,6 +207,35 @@ class GraphTest {
         assertEquals(expected3, actual3);
     }
 
+    @Test
+    void graphNodeClosestToIsStableAcrossCalls() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        for (int i = 0; i < 1000; i += 1) {
+            assertEquals(159049, graph.nodeClosestTo(new PointCh(2_532_734.8, 1_152_348.0), 100));
+            assertEquals(-1, graph.nodeClosestTo(2_600_000, 1_200_000, 100));
+        }
+    }
+
+    @Test
+    void graphNodesClosestToWorksOnLausanneData() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var point = new PointCh(2_538_619.9, 1_154_088.0);
+
+        var closest = graph.nodesClosestTo(point, 100, 5);
+        assertTrue(closest.length > 0 && closest.length <= 5);
+        assertEquals(graph.nodeClosestTo(point, 100), closest[0]);
+        for (int i = 1; i < closest.length; i += 1) {
+            assertTrue(graph.nodePoint(closest[i - 1]).squaredDistanceTo(point)
+                    <= graph.nodePoint(closest[i]).squaredDistanceTo(point));
+        }
+        for (int nodeId : closest) {
+            assertTrue(graph.nodePoint(nodeId).distanceTo(point) <= 100);
+        }
+
+        assertEquals(0, graph.nodesClosestTo(new PointCh(2_600_000, 1_200_000), 100, 5).length);
+        assertThrows(IllegalArgumentException.class, () -> graph.nodesClosestTo(point, 100, 0));
+    }
+
     @Test
     void graphEdgeTargetNodeIdWorksOnRandomValues() {
         var nodesCount = 10;
@@ -0,0 +1,88 @@
+package ch.epfl.javelo.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileCacheTest {
+    private static final int EDGES_COUNT = 6;
+
+    // Arêtes 2k et 2k + 1 : deux sens d'une même voie, de profil non compressé commençant à l'échantillon 4k
+    private static GraphEdges edges() {
+        var edgesBuffer = ByteBuffer.allocate(10 * EDGES_COUNT);
+        var profileIds = new int[EDGES_COUNT];
+        var elevations = ShortBuffer.allocate(4 * EDGES_COUNT);
+        for (int edgeId = 0; edgeId < EDGES_COUNT; edgeId += 1) {
+            edgesBuffer.putInt(10 * edgeId, edgeId % 2 == 0 ? edgeId : ~edgeId);
+            // 3 échantillons, donc une longueur de 4 m
+            edgesBuffer.putShort(10 * edgeId + 4, (short) (4 << 4));
+            profileIds[edgeId] = (1 << 30) | (4 * (edgeId / 2));
+        }
+        for (int i = 0; i < elevations.capacity(); i += 1)
+            elevations.put(i, (short) ((100 + 3 * i) << 4));
+        return new GraphEdges(edgesBuffer, IntBuffer.wrap(profileIds), elevations);
+    }
+
+    @Test
+    void profileCacheSharesSamplesBetweenEdgeAndInverse() {
+        var edges = edges();
+        var cache = new ProfileCache(16);
+        var samples = cache.osmProfileSamples(edges, 0);
+        assertArrayEquals(new float[]{100, 103, 106}, samples);
+        assertSame(samples, cache.osmProfileSamples(edges, 1));
+        assertSame(samples, cache.osmProfileSamples(edges, 0));
+
+        var stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+        assertTrue(stats.bytes() >= 3 * Float.BYTES);
+    }
+
+    @Test
+    void profileCacheIsBounded() {
+        var edges = edges();
+        var cache = new ProfileCache(1);
+        for (int i = 0; i < 10; i += 1) {
+            for (int edgeId = 0; edgeId < EDGES_COUNT; edgeId += 1)
+                assertArrayEquals(edges.osmProfileSamples(edgeId), cache.osmProfileSamples(edges, edgeId));
+        }
+        var stats = cache.stats();
+        assertTrue(stats.size() <= 2);
+        assertEquals(60, stats.hits() + stats.misses());
+        assertEquals(stats.misses() - stats.size(), stats.evictions());
+    }
+
+    @Test
+    void profileCacheConstructorThrowsOnInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ProfileCache(0));
+    }
+
+    @Test
+    void graphEdgeProfileUsesCachedSamplesInBothDirections() {
+        var edges = edges();
+        var graph = new Graph(new GraphNodes(IntBuffer.allocate(0)), new GraphSectors(ByteBuffer.allocate(0)),
+                edges, List.of());
+        for (int edgeId = 0; edgeId < EDGES_COUNT; edgeId += 1) {
+            var samples = edges.profileSamples(edgeId);
+            var profile = graph.edgeProfile(edgeId);
+            for (int i = 0; i <= 40; i += 1) {
+                var x = i / 10.0;
+                var expected = samples[Math.min(2, (int) (x / 2))];
+                if (x < 4) {
+                    var j = (int) (x / 2);
+                    expected = (float) (samples[j] + (samples[j + 1] - samples[j]) * (x / 2 - j));
+                }
+                assertEquals(expected, profile.applyAsDouble(x), 1e-4);
+            }
+        }
+        assertEquals(3, graph.profileCacheStats().misses());
+        assertEquals(3, graph.profileCacheStats().hits());
+    }
+}
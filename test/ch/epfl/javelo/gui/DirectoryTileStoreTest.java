@@ -0,0 +1,82 @@
+package ch.epfl.javelo.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryTileStoreTest {
+
+    @Test
+    void directoryTileStoreUsesZoomXYLayout(@TempDir Path directory) throws IOException {
+        var store = new DirectoryTileStore(directory);
+        var tileId = new TileManager.TileId(12, 2132, 1448);
+        assertFalse(store.contains(tileId));
+        assertNull(store.read(tileId));
+
+        store.write(tileId, new byte[]{1, 2, 3});
+        assertTrue(store.contains(tileId));
+        assertTrue(Files.exists(directory.resolve("12/2132/1448.png")));
+        assertArrayEquals(new byte[]{1, 2, 3}, store.read(tileId));
+    }
+
+    @Test
+    void directoryTileStoreRespectsQuota(@TempDir Path directory) throws IOException {
+        var store = new DirectoryTileStore(directory, 1_000, TileStore.EvictionPolicy.LRU);
+        for (int x = 0; x < 30; x += 1) {
+            store.write(new TileManager.TileId(10, x, 0), new byte[100]);
+            assertTrue(store.sizeBytes() <= 1_000);
+        }
+        assertTrue(store.contains(new TileManager.TileId(10, 29, 0)));
+
+        var reopened = new DirectoryTileStore(directory, 1_000, TileStore.EvictionPolicy.LRU);
+        assertEquals(store.sizeBytes(), reopened.sizeBytes());
+    }
+
+    @Test
+    void directoryTileStoreLfuKeepsFrequentlyReadTiles(@TempDir Path directory) throws IOException {
+        var store = new DirectoryTileStore(directory, 1_000, TileStore.EvictionPolicy.LFU);
+        var frequent = new TileManager.TileId(10, 0, 0);
+        for (int x = 0; x < 30; x += 1) {
+            store.write(new TileManager.TileId(10, x, 0), new byte[100]);
+            store.read(frequent);
+        }
+        assertTrue(store.contains(frequent));
+    }
+
+    @Test
+    void directoryTileStoreSupportsConcurrentWritesOfTheSameTile(@TempDir Path directory) throws Exception {
+        var store = new DirectoryTileStore(directory, 1_000_000, TileStore.EvictionPolicy.LFU);
+        var tileId = new TileManager.TileId(12, 2132, 1448);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var writes = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 200; i += 1) {
+                var tile = new byte[]{(byte) i, (byte) i, (byte) i};
+                writes.add(executor.submit((Callable<Void>) () -> {
+                    store.write(tileId, tile);
+                    store.read(tileId);
+                    return null;
+                }));
+            }
+            for (var write : writes) write.get();
+        } finally {
+            executor.shutdown();
+        }
+        var tile = store.read(tileId);
+        assertEquals(3, tile.length);
+        assertTrue(tile[0] == tile[1] && tile[1] == tile[2]);
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ch.epfl.javelo.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedTileStoreTest {
+
+    @Test
+    void packedTileStoreReadsWrittenTiles(@TempDir Path directory) throws IOException {
+        try (var store = PackedTileStore.open(directory.resolve("tiles.pack"))) {
+            for (int i = 0; i < 10; i += 1) {
+                store.write(new TileManager.TileId(12, i, i), new byte[]{(byte) i, 42});
+            }
+            store.write(new TileManager.TileId(12, 3, 3), new byte[]{7});
+            assertArrayEquals(new byte[]{7}, store.read(new TileManager.TileId(12, 3, 3)));
+            assertArrayEquals(new byte[]{9, 42}, store.read(new TileManager.TileId(12, 9, 9)));
+            assertNull(store.read(new TileManager.TileId(12, 1, 2)));
+            assertFalse(store.contains(new TileManager.TileId(12, 1, 2)));
+        }
+    }
+
+    @Test
+    void packedTileStoreSurvivesReopeningAndTornIndex(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("tiles.pack");
+        try (var store = PackedTileStore.open(path)) {
+            store.write(new TileManager.TileId(12, 0, 0), new byte[]{1, 2, 3});
+            store.write(new TileManager.TileId(12, 1, 0), new byte[]{4, 5});
+        }
+        Files.write(directory.resolve("tiles.pack.idx"), new byte[30], StandardOpenOption.APPEND);
+        try (var store = PackedTileStore.open(path)) {
+            assertArrayEquals(new byte[]{1, 2, 3}, store.read(new TileManager.TileId(12, 0, 0)));
+            assertArrayEquals(new byte[]{4, 5}, store.read(new TileManager.TileId(12, 1, 0)));
+            store.write(new TileManager.TileId(12, 2, 0), new byte[]{6});
+            assertArrayEquals(new byte[]{6}, store.read(new TileManager.TileId(12, 2, 0)));
+        }
+    }
+
+    @Test
+    void packedTileStoreCompactsWhenQuotaIsExceeded(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("tiles.pack");
+        var frequent = new TileManager.TileId(12, 0, 0);
+        try (var store = PackedTileStore.open(path, 1_000, TileStore.EvictionPolicy.LRU)) {
+            for (int x = 0; x < 100; x += 1) {
+                store.write(new TileManager.TileId(12, x, 0), new byte[]{(byte) x, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+                store.read(frequent);
+                assertTrue(store.sizeBytes() <= 1_000);
+            }
+            assertTrue(store.contains(frequent));
+            assertEquals(99, store.read(new TileManager.TileId(12, 99, 0))[0]);
+        }
+        try (var store = PackedTileStore.open(path, 1_000, TileStore.EvictionPolicy.LRU)) {
+            assertEquals(99, store.read(new TileManager.TileId(12, 99, 0))[0]);
+        }
+    }
+}
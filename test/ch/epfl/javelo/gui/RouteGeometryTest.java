@@ -0,0 +1,95 @@
+package ch.epfl.javelo.gui;
+
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.PointWebMercator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteGeometryTest {
+
+    @Test
+    void routeGeometryCollapsesStraightLine() {
+        // points alignés en Web Mercator (et donc pas tout à fait en coordonnées suisses)
+        var start = PointWebMercator.ofPointCh(new PointCh(2_532_000, 1_152_000));
+        var end = PointWebMercator.ofPointCh(new PointCh(2_542_000, 1_155_000));
+        var points = new ArrayList<PointCh>();
+        for (int i = 0; i <= 1_000; i += 1) {
+            double t = i / 1_000d;
+            points.add(new PointWebMercator(start.x() + t * (end.x() - start.x()),
+                    start.y() + t * (end.y() - start.y())).toPointCh());
+        }
+        var geometry = new RouteGeometry(points);
+        for (int zoomLevel = 8; zoomLevel <= 19; zoomLevel += 1) {
+            var coordinates = geometry.coordinates(zoomLevel);
+            assertEquals(4, coordinates.length);
+            var first = PointWebMercator.ofPointCh(points.get(0));
+            var last = PointWebMercator.ofPointCh(points.get(points.size() - 1));
+            assertEquals(first.xAtZoomLevel(zoomLevel), coordinates[0], 1e-6);
+            assertEquals(first.yAtZoomLevel(zoomLevel), coordinates[1], 1e-6);
+            assertEquals(last.xAtZoomLevel(zoomLevel), coordinates[2], 1e-6);
+            assertEquals(last.yAtZoomLevel(zoomLevel), coordinates[3], 1e-6);
+        }
+    }
+
+    @Test
+    void routeGeometryKeepsMorePointsAtHigherZoomLevels() {
+        var points = randomWalk(5_000);
+        var geometry = new RouteGeometry(points);
+        for (int zoomLevel = 8; zoomLevel <= 19; zoomLevel += 1) {
+            assertTrue(geometry.coordinates(zoomLevel).length <= 2 * points.size());
+        }
+        assertTrue(geometry.coordinates(8).length < geometry.coordinates(19).length);
+        assertSame(geometry.coordinates(12), geometry.coordinates(12));
+    }
+
+    @Test
+    void routeGeometryStaysWithinHalfAPixel() {
+        var points = randomWalk(2_000);
+        var geometry = new RouteGeometry(points);
+        for (int zoomLevel = 8; zoomLevel <= 19; zoomLevel += 1) {
+            var coordinates = geometry.coordinates(zoomLevel);
+            for (var point : points) {
+                var pointWebMercator = PointWebMercator.ofPointCh(point);
+                double x = pointWebMercator.xAtZoomLevel(zoomLevel);
+                double y = pointWebMercator.yAtZoomLevel(zoomLevel);
+                double minDistance = Double.POSITIVE_INFINITY;
+                for (int i = 0; i + 3 < coordinates.length; i += 2) {
+                    minDistance = Math.min(minDistance, distanceToSegment(x, y,
+                            coordinates[i], coordinates[i + 1], coordinates[i + 2], coordinates[i + 3]));
+                }
+                assertTrue(minDistance <= 0.5 + 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void routeGeometryThrowsOnInvalidZoomLevel() {
+        var geometry = new RouteGeometry(randomWalk(10));
+        assertThrows(IllegalArgumentException.class, () -> geometry.coordinates(-1));
+        assertThrows(IllegalArgumentException.class, () -> geometry.coordinates(20));
+    }
+
+    private static List<PointCh> randomWalk(int count) {
+        var rng = newRandom();
+        var points = new ArrayList<PointCh>();
+        double e = 2_600_000, n = 1_200_000;
+        for (int i = 0; i < count; i += 1) {
+            points.add(new PointCh(e, n));
+            e += rng.nextDouble(-5, 20);
+            n += rng.nextDouble(-10, 10);
+        }
+        return points;
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double squaredLength = dx * dx + dy * dy;
+        double t = squaredLength == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / squaredLength));
+        return Math.hypot(ax + t * dx - px, ay + t * dy - py);
+    }
+}
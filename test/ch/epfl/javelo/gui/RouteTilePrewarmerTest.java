@@ -0,0 +1,60 @@
+package ch.epfl.javelo.gui;
+
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.PointWebMercator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTilePrewarmerTest {
+
+    private static final List<PointCh> POINTS = List.of(
+            new PointCh(2_532_697, 1_152_350),
+            new PointCh(2_533_500, 1_152_900),
+            new PointCh(2_538_000, 1_154_000),
+            new PointCh(2_538_100, 1_157_200));
+
+    @Test
+    void corridorTilesThrowsOnInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> RouteTilePrewarmer.corridorTiles(POINTS, -1, 10, 12));
+        assertThrows(IllegalArgumentException.class, () -> RouteTilePrewarmer.corridorTiles(POINTS, 100, 12, 10));
+        assertThrows(IllegalArgumentException.class, () -> RouteTilePrewarmer.corridorTiles(POINTS, 100, 10, 20));
+    }
+
+    @Test
+    void corridorTilesContainsTilesOfAllRoutePoints() {
+        var tiles = RouteTilePrewarmer.corridorTiles(POINTS, 0, 10, 16);
+        assertEquals(tiles.size(), new HashSet<>(tiles).size());
+        for (int zoomLevel = 10; zoomLevel <= 16; zoomLevel += 1) {
+            for (var point : POINTS) {
+                var pointWebMercator = PointWebMercator.ofPointCh(point);
+                var tileId = new TileManager.TileId(zoomLevel,
+                        (int) (pointWebMercator.xAtZoomLevel(zoomLevel) / 256),
+                        (int) (pointWebMercator.yAtZoomLevel(zoomLevel) / 256));
+                assertTrue(tiles.contains(tileId));
+            }
+        }
+    }
+
+    @Test
+    void corridorTilesAreSortedByZoomLevelAndGrowWithBuffer() {
+        var narrow = RouteTilePrewarmer.corridorTiles(POINTS, 0, 12, 15);
+        var wide = RouteTilePrewarmer.corridorTiles(POINTS, 1_000, 12, 15);
+        assertTrue(wide.containsAll(narrow));
+        assertTrue(wide.size() > narrow.size());
+        for (int i = 1; i < wide.size(); i += 1) {
+            assertTrue(wide.get(i - 1).zoomLevel() <= wide.get(i).zoomLevel());
+        }
+    }
+
+    @Test
+    void corridorTilesExcludesFarTiles() {
+        var tiles = RouteTilePrewarmer.corridorTiles(POINTS, 200, 16, 16);
+        var far = PointWebMercator.ofPointCh(new PointCh(2_545_000, 1_152_350));
+        assertFalse(tiles.contains(new TileManager.TileId(16,
+                (int) (far.xAtZoomLevel(16) / 256), (int) (far.yAtZoomLevel(16) / 256))));
+    }
+}
@@ -0,0 +1,54 @@
+package ch.epfl.javelo.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileManagerTest {
+
+    @Test
+    void tileManagerDoesNotStarveDisplayedTilesBehindPrefetches(@TempDir Path directory) throws Exception {
+        var displayed = new TileManager.TileId(11, 1060, 724);
+        var displayedStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var tileManager = new TileManager(new DirectoryTileStore(directory), "tile.openstreetmap.org",
+                TileManager.DEFAULT_MEMORY_CACHE_BYTES, tileId -> {
+            if (tileId.equals(displayed)) {
+                displayedStarted.countDown();
+            } else {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            return new byte[]{1, 2, 3};
+        });
+        try {
+            // bien plus de préchargements que de fils de téléchargement, tous bloqués
+            for (int x = 0; x < 16; x += 1) {
+                tileManager.storeTileAsync(new TileManager.TileId(10, 530 + x, 362));
+            }
+            tileManager.imageForTileAtAsync(displayed);
+            assertTrue(displayedStarted.await(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void tileManagerStoreTileAsyncStoresDownloadedTile(@TempDir Path directory) throws Exception {
+        var tileId = new TileManager.TileId(10, 530, 362);
+        var tileManager = new TileManager(new DirectoryTileStore(directory), "tile.openstreetmap.org",
+                TileManager.DEFAULT_MEMORY_CACHE_BYTES, t -> new byte[]{1, 2, 3});
+        assertEquals(3, (int) tileManager.storeTileAsync(tileId).get(10, TimeUnit.SECONDS));
+        assertTrue(tileManager.store().contains(tileId));
+        assertEquals(0, (int) tileManager.storeTileAsync(tileId).get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,92 @@
+package ch.epfl.javelo.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileMemoryCacheTest {
+
+    @Test
+    void tileMemoryCacheConstructorThrowsOnNonPositiveMaximum() {
+        assertThrows(IllegalArgumentException.class, () -> new TileMemoryCache<Integer, String>(0, String::length));
+    }
+
+    @Test
+    void tileMemoryCacheReturnsStoredValues() {
+        var cache = new TileMemoryCache<Integer, String>(1_000, String::length);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        assertEquals("one", cache.get(1));
+        assertEquals("two", cache.get(2));
+        assertNull(cache.get(3));
+        cache.put(1, "uno");
+        assertEquals("uno", cache.get(1));
+
+        var stats = cache.stats();
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0, stats.evictions());
+        assertEquals(2, stats.size());
+        assertEquals(6, stats.bytes());
+        assertEquals(0.75, stats.hitRate());
+    }
+
+    @Test
+    void tileMemoryCacheStaysBelowMaximumBytes() {
+        var cache = new TileMemoryCache<Integer, String>(100, String::length);
+        for (int i = 0; i < 1_000; i += 1) {
+            cache.put(i, "x".repeat(1 + i % 7));
+            assertTrue(cache.stats().bytes() <= 100);
+        }
+        var stats = cache.stats();
+        assertEquals(1_000 - stats.size(), stats.evictions());
+    }
+
+    @Test
+    void tileMemoryCacheKeepsFrequentlyUsedValuesDespiteScan() {
+        var cache = new TileMemoryCache<Integer, String>(100, String::length);
+        for (int round = 0; round < 10; round += 1) {
+            for (int i = 0; i < 10; i += 1) {
+                if (cache.get(i) == null) cache.put(i, "hot");
+            }
+        }
+        // un long parcours de clefs utilisées une seule fois ne doit pas évincer les valeurs fréquentes
+        for (int i = 1_000; i < 2_000; i += 1) {
+            cache.put(i, "cold");
+        }
+        long hot = IntStream.range(0, 10).filter(i -> cache.get(i) != null).count();
+        assertTrue(hot >= 9, "only " + hot + " frequent values kept");
+    }
+
+    @Test
+    void tileMemoryCachePeekIsNotCounted() {
+        var cache = new TileMemoryCache<Integer, String>(1_000, String::length);
+        cache.put(1, "one");
+        assertEquals("one", cache.peek(1));
+        assertNull(cache.peek(2));
+        var stats = cache.stats();
+        assertEquals(0, stats.hits());
+        assertEquals(0, stats.misses());
+    }
+
+    @Test
+    void tileMemoryCachePeekDoesNotAffectEviction() {
+        var rng = newRandom();
+        var peeked = new TileMemoryCache<Integer, String>(100, String::length);
+        var untouched = new TileMemoryCache<Integer, String>(100, String::length);
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            var key = rng.nextInt(200);
+            for (var cache : List.of(peeked, untouched)) {
+                if (cache.get(key) == null) cache.put(key, "x".repeat(1 + key % 5));
+            }
+            peeked.peek(rng.nextInt(200));
+        }
+        for (int key = 0; key < 200; key += 1) assertEquals(untouched.peek(key), peeked.peek(key));
+        assertEquals(untouched.stats(), peeked.stats());
+    }
+}
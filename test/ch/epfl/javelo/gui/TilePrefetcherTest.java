@@ -0,0 +1,70 @@
+package ch.epfl.javelo.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TilePrefetcherTest {
+
+    @Test
+    void tilePrefetcherConstructorThrowsOnInvalidBudget() {
+        var tileManager = new TileManager(Path.of("osm-cache"), "tile.openstreetmap.org");
+        assertThrows(IllegalArgumentException.class, () -> new TilePrefetcher(tileManager, -1, 2, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> new TilePrefetcher(tileManager, 2, 0, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> new TilePrefetcher(tileManager, 2, 2, 0));
+    }
+
+    @Test
+    void tilesAroundWorksOnKnownView() {
+        // Portion affichée : tuiles 2121 à 2124 en x et 1447 à 1449 en y, au niveau de zoom 12.
+        var mapView = new MapViewParameters(12, 543200, 370650);
+        var tiles = TilePrefetcher.tilesAround(mapView, 600, 300, 1);
+
+        var ring = tiles.subList(0, 6 * 5 - 4 * 3);
+        for (var tileId : ring) {
+            assertEquals(12, tileId.zoomLevel());
+            assertTrue(tileId.x() >= 2120 && tileId.x() <= 2125 && tileId.y() >= 1446 && tileId.y() <= 1450);
+            assertFalse(tileId.x() >= 2121 && tileId.x() <= 2124 && tileId.y() >= 1447 && tileId.y() <= 1449);
+        }
+
+        var lower = tiles.subList(ring.size(), ring.size() + 3 * 3);
+        for (var tileId : lower) {
+            assertEquals(11, tileId.zoomLevel());
+        }
+
+        var upper = tiles.subList(ring.size() + lower.size(), tiles.size());
+        assertEquals(8 * 6, upper.size());
+        for (var tileId : upper) {
+            assertEquals(13, tileId.zoomLevel());
+        }
+        assertEquals(tiles.size(), new HashSet<>(tiles).size());
+    }
+
+    @Test
+    void tilesAroundSortsRingByDistance() {
+        var mapView = new MapViewParameters(12, 543200, 370650);
+        var tiles = TilePrefetcher.tilesAround(mapView, 600, 300, 3);
+        int previousDistance = 0;
+        for (var tileId : tiles) {
+            if (tileId.zoomLevel() != 12) break;
+            int distance = Math.max(Math.max(2121 - tileId.x(), tileId.x() - 2124),
+                    Math.max(1447 - tileId.y(), tileId.y() - 1449));
+            assertTrue(distance >= previousDistance);
+            previousDistance = distance;
+        }
+        assertEquals(3, previousDistance);
+    }
+
+    @Test
+    void tilesAroundStaysWithinMap() {
+        var tiles = TilePrefetcher.tilesAround(new MapViewParameters(8, -300, -300), 600, 600, 2);
+        assertFalse(tiles.isEmpty());
+        for (var tileId : tiles) {
+            assertTrue(TileManager.TileId.isValid(tileId.zoomLevel(), tileId.x(), tileId.y()));
+            assertTrue(tileId.zoomLevel() >= 8 && tileId.zoomLevel() <= 9);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Mesure commune aux bancs d'essai du paquetage : la tâche mesurée est exécutée un nombre donné de fois
+ * pour préchauffer la machine virtuelle, puis un nombre donné de fois pendant la mesure, dont on retourne
+ * la moyenne par exécution ; la mémoire allouée par le fil courant est lue au moyen
+ * de com.sun.management.ThreadMXBean
+ *
+ * @author Georges Moussalli (316630)
+ */
+final class Benchmarks {
+    private Benchmarks() {}
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Tâche mesurée, qui peut lever une exception d'entrée/sortie
+     */
+    interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * Durée moyenne, en nanosecondes, et mémoire moyenne allouée, en octets, d'une exécution d'une tâche
+     */
+    record Measure(double ns, double bytes) {
+    }
+
+    /**
+     * Retourne la durée moyenne et la mémoire moyenne allouée d'une exécution de la tâche donnée
+     *
+     * @param warmupIterations   nombre d'exécutions de préchauffage, non mesurées
+     * @param measuredIterations nombre d'exécutions mesurées
+     * @param task               tâche mesurée
+     * @return la mesure moyenne par exécution
+     * @throws IOException en cas d'erreur d'entrée/sortie de la tâche
+     */
+    static Measure measure(int warmupIterations, int measuredIterations, Task task) throws IOException {
+        for (int i = 0; i < warmupIterations; i++) {
+            task.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long startBytes = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            task.run();
+        }
+        long ns = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - startBytes;
+        return new Measure((double) ns / measuredIterations, (double) bytes / measuredIterations);
+    }
+
+    /**
+     * Retourne la durée moyenne, en nanosecondes, d'une exécution de la tâche donnée
+     *
+     * @param warmupIterations   nombre d'exécutions de préchauffage, non mesurées
+     * @param measuredIterations nombre d'exécutions mesurées
+     * @param task               tâche mesurée
+     * @return la durée moyenne d'une exécution, en nanosecondes
+     * @throws IOException en cas d'erreur d'entrée/sortie de la tâche
+     */
+    static double time(int warmupIterations, int measuredIterations, Task task) throws IOException {
+        return measure(warmupIterations, measuredIterations, task).ns();
+    }
+}
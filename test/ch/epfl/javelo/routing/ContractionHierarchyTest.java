@@ -0,0 +1,127 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Attribute;
+import ch.epfl.javelo.data.AttributeSet;
+import ch.epfl.javelo.data.BinaryFiles;
+import ch.epfl.javelo.data.Graph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractionHierarchyTest {
+
+    private static Graph graph;
+    private static ContractionHierarchy hierarchy;
+
+    private static RouteComputer newLausanneRouteComputer() {
+        if (graph == null) {
+            try {
+                graph = Graph.loadFrom(Path.of("lausanne"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            hierarchy = ContractionHierarchyBuilder.build(graph, new CityBikeCF(graph));
+        }
+        return new RouteComputer(graph, new CityBikeCF(graph));
+    }
+
+    // Nœud 0 : arête 0 (→ 1). Nœud 1 : arête 1 (→ 0). Deux pistes cyclables de la longueur donnée, sans profil.
+    private static void writeTwoNodeGraph(Path directory, int length) throws IOException {
+        var nodes = ByteBuffer.allocate(2 * 12).putInt(8, 1 << 28).putInt(20, (1 << 28) | 1);
+        var edges = ByteBuffer.allocate(2 * 10)
+                .putInt(0, 1).putShort(4, (short) (length << 4))
+                .putInt(10, 0).putShort(14, (short) (length << 4));
+        var attributes = ByteBuffer.allocate(8).putLong(0, AttributeSet.of(Attribute.HIGHWAY_CYCLEWAY).bits());
+        BinaryFiles.write(directory.resolve("nodes.bin"), nodes);
+        BinaryFiles.write(directory.resolve("edges.bin"), edges);
+        BinaryFiles.write(directory.resolve("sectors.bin"), ByteBuffer.allocate(128 * 128 * 6));
+        BinaryFiles.write(directory.resolve("profile_ids.bin"), ByteBuffer.allocate(2 * 4));
+        BinaryFiles.write(directory.resolve("elevations.bin"));
+        BinaryFiles.write(directory.resolve("attributes.bin"), attributes);
+    }
+
+    @Test
+    void contractionHierarchyRanksAreAPermutation() {
+        newLausanneRouteComputer();
+        boolean[] seen = new boolean[hierarchy.nodeCount()];
+        for (int nodeId = 0; nodeId < hierarchy.nodeCount(); nodeId++) {
+            int rank = hierarchy.rank(nodeId);
+            assertFalse(seen[rank]);
+            seen[rank] = true;
+        }
+    }
+
+    @Test
+    void contractionHierarchyEdgesGoUpwardAndDownward() {
+        newLausanneRouteComputer();
+        for (int nodeId = 0; nodeId < hierarchy.nodeCount(); nodeId++) {
+            for (int i = 0; i < hierarchy.upwardDegree(nodeId); i++) {
+                int chEdgeId = hierarchy.upwardEdgeId(nodeId, i);
+                assertEquals(nodeId, hierarchy.edgeFromNodeId(chEdgeId));
+                assertTrue(hierarchy.rank(hierarchy.edgeToNodeId(chEdgeId)) > hierarchy.rank(nodeId));
+            }
+            for (int i = 0; i < hierarchy.downwardDegree(nodeId); i++) {
+                int chEdgeId = hierarchy.downwardEdgeId(nodeId, i);
+                assertEquals(nodeId, hierarchy.edgeToNodeId(chEdgeId));
+                assertTrue(hierarchy.rank(hierarchy.edgeFromNodeId(chEdgeId)) > hierarchy.rank(nodeId));
+            }
+        }
+    }
+
+    @Test
+    void routeComputerWithHierarchyReturnsNullForUnreachableNodes() {
+        var rc = newLausanneRouteComputer().withContractionHierarchy(hierarchy);
+        assertNull(rc.bestRouteBetween(149195, 153181));
+    }
+
+    @Test
+    void routeComputerWithHierarchyFindsSameRoutesAsAStar() {
+        var rc = newLausanneRouteComputer();
+        var chRc = rc.withContractionHierarchy(hierarchy);
+        int[][] queries = {{159049, 117669}, {210641, 43713}};
+        for (int[] query : queries) {
+            var expected = rc.bestRouteBetween(query[0], query[1]);
+            var actual = chRc.bestRouteBetween(query[0], query[1]);
+            assertNotNull(actual);
+            assertEquals(expected.length(), actual.length(), 1);
+            assertEquals(query[0], actual.edges().get(0).fromNodeId());
+            assertEquals(query[1], actual.edges().get(actual.edges().size() - 1).toNodeId());
+            for (int i = 1; i < actual.edges().size(); i++) {
+                assertEquals(actual.edges().get(i - 1).toNodeId(), actual.edges().get(i).fromNodeId());
+            }
+        }
+    }
+
+    @Test
+    void contractionHierarchyFilesAreRejectedAndRebuiltWhenTheGraphChanges(@TempDir Path directory)
+            throws IOException {
+        writeTwoNodeGraph(directory, 10);
+        var graph = Graph.loadFrom(directory);
+        var profile = new CityBikeCF(graph).name();
+        var built = ContractionHierarchyBuilder.loadOrBuild(graph, new CityBikeCF(graph), directory);
+        var loaded = ContractionHierarchy.loadFrom(directory, profile);
+        assertEquals(built.edgeCount(), loaded.edgeCount());
+        assertTrue(loaded.edgeCount() > 0);
+        for (int i = 0; i < loaded.edgeCount(); i += 1)
+            assertEquals(built.edgeWeight(i), loaded.edgeWeight(i));
+
+        // le graphe est reconstruit sur place avec le même nombre de nœuds, mais des arêtes plus longues
+        writeTwoNodeGraph(directory, 20);
+        assertThrows(IOException.class, () -> ContractionHierarchy.loadFrom(directory, profile));
+        var newGraph = Graph.loadFrom(directory);
+        var expected = ContractionHierarchyBuilder.build(newGraph, new CityBikeCF(newGraph));
+        ContractionHierarchyBuilder.loadOrBuild(newGraph, new CityBikeCF(newGraph), directory);
+        var reloaded = ContractionHierarchy.loadFrom(directory, profile);
+        assertEquals(expected.edgeCount(), reloaded.edgeCount());
+        for (int i = 0; i < reloaded.edgeCount(); i += 1) {
+            assertEquals(expected.edgeWeight(i), reloaded.edgeWeight(i));
+            assertNotEquals(built.edgeWeight(i), reloaded.edgeWeight(i));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeSpatialIndexTest {
+
+    private static Graph graph;
+    private static EdgeSpatialIndex index;
+
+    private static EdgeSpatialIndex lausanneIndex() {
+        if (graph == null) {
+            try {
+                graph = Graph.loadFrom(Path.of("lausanne"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            index = new EdgeSpatialIndex(graph);
+        }
+        return index;
+    }
+
+    @Test
+    void edgePointClosestToIsNeverFartherThanClosestNode() {
+        var index = lausanneIndex();
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            var point = new PointCh(rng.nextDouble(2_530_000, 2_545_000), rng.nextDouble(1_150_000, 1_160_000));
+            var edgePoint = index.edgePointClosestTo(point, 500);
+            var nodeId = graph.nodeClosestTo(point, 500);
+            if (nodeId == -1) continue;
+            assertNotNull(edgePoint);
+            assertTrue(edgePoint.distanceToReference() <= graph.nodePoint(nodeId).distanceTo(point) + 1e-6);
+            assertEquals(edgePoint.distanceToReference(), edgePoint.point().distanceTo(point), 1e-6);
+            assertTrue(edgePoint.position() >= 0 && edgePoint.position() <= graph.edgeLength(edgePoint.edgeId()));
+            assertEquals(edgePoint.toNodeId(), graph.edgeTargetNodeId(edgePoint.edgeId()));
+        }
+    }
+
+    @Test
+    void edgePointClosestToReturnsNullFarFromAnyEdge() {
+        assertNull(lausanneIndex().edgePointClosestTo(new PointCh(2_600_000, 1_200_000), 100));
+    }
+
+    @Test
+    void routeComputerComputesRouteBetweenEdgePoints() {
+        var index = lausanneIndex();
+        var rc = new RouteComputer(graph, new CityBikeCF(graph));
+        var start = index.edgePointClosestTo(graph.nodePoint(159049), 100);
+        var end = index.edgePointClosestTo(graph.nodePoint(117669), 100);
+        var route = rc.bestRouteBetween(start, end);
+        assertNotNull(route);
+        assertEquals(0, route.pointAt(0).distanceTo(start.point()), 1e-6);
+        assertEquals(0, route.pointAt(route.length()).distanceTo(end.point()), 1e-6);
+        assertEquals(rc.bestRouteBetween(159049, 117669).length(), route.length(), 1);
+    }
+}
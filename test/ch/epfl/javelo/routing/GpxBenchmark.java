@@ -0,0 +1,78 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.projection.PointCh;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mesure le coût de l'exportation GPX d'itinéraires longs (plusieurs jours de randonnée), en comparant l'écriture
+ * en continu de GpxGenerator.writeGpx à l'ancienne exportation, qui construisait le document DOM puis
+ * le sérialisait au moyen d'un Transformer ; les documents sont écrits dans un flot qui ignore les octets
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class GpxBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final int[] EDGE_COUNTS = {10_000, 100_000};
+    private static final double EDGE_LENGTH = 20;
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(2022);
+        for (int edgeCount : EDGE_COUNTS) {
+            Route route = randomRoute(random, edgeCount);
+            ElevationProfile profile = ElevationProfileComputer.elevationProfile(route, 5);
+
+            double streamNs = Benchmarks.time(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                    () -> GpxGenerator.writeGpx(OutputStream.nullOutputStream(), route, profile));
+            double domNs = Benchmarks.time(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                    () -> writeDomGpx(OutputStream.nullOutputStream(), route, profile));
+            System.out.printf("%d points, %.1f km%n", route.points().size(), route.length() / 1000);
+            System.out.printf("  écriture en continu : %10.1f ms%n", streamNs / 1e6);
+            System.out.printf("  document DOM et Transformer : %10.1f ms%n", domNs / 1e6);
+        }
+    }
+
+    private static Route randomRoute(Random random, int count) {
+        List<Edge> edges = new ArrayList<>(count);
+        PointCh from = new PointCh(2_600_000, 1_200_000);
+        for (int i = 0; i < count; i++) {
+            // itinéraire en lacets, qui change de direction tous les 2000 segments afin de rester en Suisse
+            double angle = random.nextDouble() * Math.PI / 2;
+            double direction = (i / 2_000) % 2 == 0 ? 1 : -1;
+            PointCh to = new PointCh(from.e() + direction * EDGE_LENGTH * Math.cos(angle) / 2,
+                    from.n() + EDGE_LENGTH * (Math.sin(angle) - 2 / Math.PI) / 2);
+            double startElevation = 500 + 100 * Math.sin(i / 50.0);
+            edges.add(new Edge(i, i + 1, from, to, from.distanceTo(to), x -> startElevation + x / 10));
+            from = to;
+        }
+        return new SingleRoute(edges);
+    }
+
+    private static void writeDomGpx(OutputStream out, Route route, ElevationProfile profile) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            Transformer transformer = TransformerFactory.newDefaultInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.transform(new DOMSource(GpxGenerator.createGpx(route, profile)), new StreamResult(w));
+        } catch (TransformerException e) {
+            throw new Error(e);
+        }
+        w.flush();
+    }
+}
@@ -0,0 +1,82 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.projection.PointCh;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GpxGeneratorTest {
+
+    private static Route randomRoute(RandomGenerator rng, int edgesCount) {
+        var edges = new ArrayList<Edge>(edgesCount);
+        var from = new PointCh(rng.nextDouble(2_500_000, 2_800_000), rng.nextDouble(1_100_000, 1_250_000));
+        for (int i = 0; i < edgesCount; i += 1) {
+            var to = new PointCh(from.e() + rng.nextDouble(-300, 300), from.n() + rng.nextDouble(-300, 300));
+            edges.add(new Edge(i, i + 1, from, to, from.distanceTo(to) * rng.nextDouble(1, 1.5), x -> Double.NaN));
+            from = to;
+        }
+        return new SingleRoute(edges);
+    }
+
+    private static ElevationProfile randomProfile(RandomGenerator rng, double length) {
+        var samples = new float[rng.nextInt(2, 500)];
+        for (int i = 0; i < samples.length; i += 1) {
+            // les valeurs au centième et demi mettent à l'épreuve l'arrondi des égalités
+            samples[i] = rng.nextBoolean()
+                    ? (float) rng.nextDouble(200, 4_000)
+                    : rng.nextInt(20_000, 400_000) / 100f + 0.005f;
+        }
+        return new ElevationProfile(length, samples);
+    }
+
+    private static byte[] domGpx(Route route, ElevationProfile profile) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var w = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            var transformer = TransformerFactory.newDefaultInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.transform(new DOMSource(GpxGenerator.createGpx(route, profile)), new StreamResult(w));
+        } catch (TransformerException e) {
+            throw new Error(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void writeGpxIsIdenticalToDomSerialization() throws IOException {
+        var rng = newRandom();
+        for (int i = 0; i < 50; i += 1) {
+            var route = randomRoute(rng, rng.nextInt(1, 300));
+            var profile = randomProfile(rng, route.length());
+            var streamed = new ByteArrayOutputStream();
+            GpxGenerator.writeGpx(streamed, route, profile);
+            assertArrayEquals(domGpx(route, profile), streamed.toByteArray());
+        }
+    }
+
+    @Test
+    void writeGpxHandlesSpecialElevations() throws IOException {
+        var edges = List.of(new Edge(0, 1, new PointCh(2_600_000, 1_200_000),
+                new PointCh(2_600_100, 1_200_000), 100, x -> Double.NaN));
+        var route = new SingleRoute(edges);
+        for (float elevation : new float[]{-0f, 0f, -12.345f, 0.005f, 1e7f}) {
+            var profile = new ElevationProfile(route.length(), new float[]{elevation, elevation});
+            var streamed = new ByteArrayOutputStream();
+            GpxGenerator.writeGpx(streamed, route, profile);
+            assertArrayEquals(domGpx(route, profile), streamed.toByteArray());
+        }
+    }
+}
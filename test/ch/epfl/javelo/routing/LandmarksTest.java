@@ -0,0 +1,118 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Attribute;
+import ch.epfl.javelo.data.AttributeSet;
+import ch.epfl.javelo.data.BinaryFiles;
+import ch.epfl.javelo.data.Graph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LandmarksTest {
+
+    private static Graph graph;
+    private static Landmarks landmarks;
+
+    private static RouteComputer newLausanneRouteComputer() {
+        if (graph == null) {
+            try {
+                graph = Graph.loadFrom(Path.of("lausanne"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            landmarks = LandmarksBuilder.build(graph, new CityBikeCF(graph), 4);
+        }
+        return new RouteComputer(graph, new CityBikeCF(graph));
+    }
+
+    // Nœud 0 : arête 0 (→ 1). Nœud 1 : arête 1 (→ 0). Deux pistes cyclables de la longueur donnée, sans profil.
+    private static void writeTwoNodeGraph(Path directory, int length) throws IOException {
+        var nodes = ByteBuffer.allocate(2 * 12).putInt(8, 1 << 28).putInt(20, (1 << 28) | 1);
+        var edges = ByteBuffer.allocate(2 * 10)
+                .putInt(0, 1).putShort(4, (short) (length << 4))
+                .putInt(10, 0).putShort(14, (short) (length << 4));
+        var attributes = ByteBuffer.allocate(8).putLong(0, AttributeSet.of(Attribute.HIGHWAY_CYCLEWAY).bits());
+        BinaryFiles.write(directory.resolve("nodes.bin"), nodes);
+        BinaryFiles.write(directory.resolve("edges.bin"), edges);
+        BinaryFiles.write(directory.resolve("sectors.bin"), ByteBuffer.allocate(128 * 128 * 6));
+        BinaryFiles.write(directory.resolve("profile_ids.bin"), ByteBuffer.allocate(2 * 4));
+        BinaryFiles.write(directory.resolve("elevations.bin"));
+        BinaryFiles.write(directory.resolve("attributes.bin"), attributes);
+    }
+
+    @Test
+    void landmarksBuilderThrowsOnNonPositiveCount() {
+        newLausanneRouteComputer();
+        assertThrows(IllegalArgumentException.class, () -> {
+            LandmarksBuilder.build(graph, new CityBikeCF(graph), 0);
+        });
+    }
+
+    @Test
+    void landmarksHaveZeroDistanceToThemselves() {
+        newLausanneRouteComputer();
+        assertEquals(4, landmarks.count());
+        for (int i = 0; i < landmarks.count(); i++) {
+            int nodeId = landmarks.nodeIds().get(i);
+            assertEquals(0, landmarks.distanceFrom(i, nodeId));
+            assertEquals(0, landmarks.distanceTo(i, nodeId));
+        }
+    }
+
+    @Test
+    void landmarksLowerBoundIsZeroOnSameNode() {
+        newLausanneRouteComputer();
+        assertEquals(0, landmarks.lowerBound(159049, 159049));
+    }
+
+    @Test
+    void routeComputerWithLandmarksFindsSameRoutesAsAStar() {
+        var rc = newLausanneRouteComputer();
+        var altRc = rc.withLandmarks(landmarks);
+        int[][] queries = {{159049, 117669}, {210641, 43713}};
+        for (int[] query : queries) {
+            var expected = rc.bestRouteBetween(query[0], query[1]);
+            var actual = altRc.bestRouteBetween(query[0], query[1]);
+            assertNotNull(actual);
+            assertEquals(expected.length(), actual.length(), 1);
+            assertEquals(expected.edges().size(), actual.edges().size());
+        }
+    }
+
+    @Test
+    void routeComputerWithLandmarksReturnsNullForUnreachableNodes() {
+        var rc = newLausanneRouteComputer().withLandmarks(landmarks);
+        assertNull(rc.bestRouteBetween(149195, 153181));
+    }
+
+    @Test
+    void landmarksFilesAreRejectedAndRebuiltWhenTheGraphChanges(@TempDir Path directory) throws IOException {
+        writeTwoNodeGraph(directory, 10);
+        var graph = Graph.loadFrom(directory);
+        var profile = new CityBikeCF(graph).name();
+        var built = LandmarksBuilder.loadOrBuild(graph, new CityBikeCF(graph), 1, directory);
+        var loaded = Landmarks.loadFrom(directory, profile);
+        assertEquals(1, loaded.count());
+        assertEquals(2, loaded.nodeCount());
+        float builtBound = built.lowerBound(0, 1);
+        assertTrue(builtBound > 0);
+        assertEquals(builtBound, loaded.lowerBound(0, 1));
+
+        // le graphe est reconstruit sur place avec le même nombre de nœuds, mais des arêtes plus longues
+        writeTwoNodeGraph(directory, 20);
+        assertThrows(IOException.class, () -> Landmarks.loadFrom(directory, profile));
+        var newGraph = Graph.loadFrom(directory);
+        LandmarksBuilder.loadOrBuild(newGraph, new CityBikeCF(newGraph), 1, directory);
+        assertEquals(2 * builtBound, Landmarks.loadFrom(directory, profile).lowerBound(0, 1), 1e-3);
+
+        // un nombre de points de repère différent de celui des fichiers les fait aussi recalculer
+        LandmarksBuilder.loadOrBuild(newGraph, new CityBikeCF(newGraph), 2, directory);
+        assertEquals(2, Landmarks.loadFrom(directory, profile).count());
+    }
+}
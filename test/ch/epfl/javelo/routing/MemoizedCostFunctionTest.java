@@ -0,0 +1,40 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoizedCostFunctionTest {
+
+    @Test
+    void memoizedCostFunctionMatchesOriginalOnAllEdges() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        for (AttributeCostFunction costFunction : new AttributeCostFunction[]{
+                new CityBikeCF(graph), new SportBikeCF(graph), new VttBikeCF(graph), new HikingBikeCF(graph)}) {
+            var memoized = costFunction.memoized();
+            assertEquals(costFunction.name(), memoized.name());
+            for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId += 1) {
+                for (int i = 0; i < graph.nodeOutDegree(nodeId); i += 1) {
+                    int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                    assertEquals(costFunction.costFactor(nodeId, edgeId), memoized.costFactor(nodeId, edgeId));
+                }
+            }
+        }
+    }
+
+    @Test
+    void attributeCostFunctionDefaultSlopeCostFactorWorks() throws IOException {
+        var graph = Graph.loadFrom(Path.of("lausanne"));
+        var costFunction = new CityBikeCF(graph);
+        assertEquals(2, costFunction.slopeCostFactor(2, 0.005));
+        assertEquals(2.4, costFunction.slopeCostFactor(2, 0.02), 1e-9);
+        assertEquals(2.8, costFunction.slopeCostFactor(2, 0.04), 1e-9);
+        assertEquals(3.6, costFunction.slopeCostFactor(2, 0.07), 1e-9);
+        assertEquals(5.2, costFunction.slopeCostFactor(2, 0.2), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, costFunction.slopeCostFactor(Double.POSITIVE_INFINITY, 0.2));
+    }
+}
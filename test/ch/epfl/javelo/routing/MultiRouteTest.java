@@ -304,6 +304,34 @@ class MultiRouteTest {
         }
     }
 
+    @Test
+    void multiRouteWithManySegmentsAgreesWithSingleRoute() {
+        var edgesCount = 200;
+        var edges = sawToothEdges(edgesCount);
+        var routes = new ArrayList<Route>();
+        for (int i = 0; i < edgesCount; i += 4) routes.add(new SingleRoute(edges.subList(i, i + 4)));
+        var multiRoute = new MultiRoute(routes);
+        var singleRoute = new SingleRoute(edges);
+
+        assertEquals(singleRoute.length(), multiRoute.length());
+        assertEquals(singleRoute.edges(), multiRoute.edges());
+        assertEquals(singleRoute.points(), multiRoute.points());
+        assertSame(multiRoute.edges(), multiRoute.edges());
+        assertSame(multiRoute.points(), multiRoute.points());
+
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            var p = rng.nextDouble(-1000, multiRoute.length() + 1000);
+            assertEquals(singleRoute.pointAt(p).e(), multiRoute.pointAt(p).e(), 1e-6);
+            assertEquals(singleRoute.pointAt(p).n(), multiRoute.pointAt(p).n(), 1e-6);
+            assertEquals(singleRoute.elevationAt(p), multiRoute.elevationAt(p), 1e-6);
+            assertEquals(singleRoute.nodeClosestTo(p), multiRoute.nodeClosestTo(p));
+            var clampedP = Math.max(0, Math.min(p, multiRoute.length()));
+            assertEquals((int) Math.max(0, Math.ceil(clampedP / (4 * TOOTH_LENGTH)) - 1),
+                    multiRoute.indexOfSegmentAt(p));
+        }
+    }
+
     private static List<Edge> verticalEdges(int edgesCount) {
         var edges = new ArrayList<Edge>(edgesCount);
         for (int i = 0; i < edgesCount; i += 1) {
@@ -0,0 +1,99 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphReorderer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Mesure la durée des recherches A* sur un graphe et sur ses renumérotations par GraphReorderer,
+ * pour les mêmes paires de nœuds ; les graphes renumérotés sont écrits dans des répertoires temporaires,
+ * supprimés à la fin de la mesure
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class NodeOrderBenchmark {
+
+    private static final int QUERY_COUNT = 200;
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "ch_west");
+        Graph graph = Graph.loadFrom(basePath);
+        Random random = new Random(2022);
+        int[][] queries = new int[QUERY_COUNT][2];
+        for (int[] query : queries) {
+            do {
+                query[0] = random.nextInt(graph.nodeCount());
+                query[1] = random.nextInt(graph.nodeCount());
+            } while (query[0] == query[1]);
+        }
+
+        double[] originalLengths = new double[QUERY_COUNT];
+        double originalNs = time(graph, queries, originalLengths);
+        System.out.printf("ordre d'origine : %10.1f µs par recherche%n", originalNs / 1000);
+
+        for (GraphReorderer.Order order : GraphReorderer.Order.values()) {
+            Path target = Files.createTempDirectory("javelo-" + order.name().toLowerCase());
+            try {
+                Files.delete(target);
+                int[] newToOld = GraphReorderer.reorder(basePath, target, order);
+                int[] oldToNew = new int[newToOld.length];
+                for (int i = 0; i < newToOld.length; i++) {
+                    oldToNew[newToOld[i]] = i;
+                }
+                int[][] reorderedQueries = new int[QUERY_COUNT][];
+                for (int i = 0; i < QUERY_COUNT; i++) {
+                    reorderedQueries[i] = new int[]{oldToNew[queries[i][0]], oldToNew[queries[i][1]]};
+                }
+
+                double[] lengths = new double[QUERY_COUNT];
+                double ns = time(Graph.loadFrom(target), reorderedQueries, lengths);
+                int differences = 0;
+                for (int i = 0; i < QUERY_COUNT; i++) {
+                    // des itinéraires de même coût mais de longueurs différentes peuvent être choisis
+                    if (Math.abs(lengths[i] - originalLengths[i]) > 1e-6) differences++;
+                }
+                System.out.printf("%-15s : %10.1f µs par recherche (%+.1f %%), "
+                                + "%d itinéraires de longueur différente%n",
+                        order, ns / 1000, 100 * (ns / originalNs - 1), differences);
+            } finally {
+                deleteRecursively(target);
+            }
+        }
+    }
+
+    /**
+     * Retourne la durée moyenne, en nanosecondes, d'une recherche entre les paires de nœuds données,
+     * et place la longueur des itinéraires trouvés (ou -1) dans le tableau donné
+     */
+    private static double time(Graph graph, int[][] queries, double[] lengths) throws IOException {
+        RouteComputer rc = new RouteComputer(graph, new CityBikeCF(graph).memoized());
+        SearchWorkspace workspace = new SearchWorkspace(graph.nodeCount());
+        for (int i = 0; i < queries.length; i++) {
+            SingleRoute route = rc.bestRouteBetween(queries[i][0], queries[i][1]);
+            lengths[i] = route == null ? -1 : route.length();
+        }
+        double ns = Benchmarks.time(WARMUP_ITERATIONS, MEASURED_ITERATIONS, () -> {
+            for (int[] query : queries) {
+                rc.search(workspace, query[0], query[1]);
+            }
+        });
+        return ns / queries.length;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.BinaryFiles;
+import ch.epfl.javelo.data.Graph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrecomputedCostFunctionTest {
+
+    private static Graph graph;
+
+    private static Graph lausanneGraph() {
+        if (graph == null) {
+            try {
+                graph = Graph.loadFrom(Path.of("lausanne"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return graph;
+    }
+
+    @Test
+    void precomputedCostFunctionMatchesOriginalOnAllEdges() {
+        var graph = lausanneGraph();
+        for (CostFunction costFunction : new CostFunction[]{
+                new CityBikeCF(graph), new SportBikeCF(graph), new VttBikeCF(graph), new HikingBikeCF(graph)}) {
+            var precomputed = PrecomputedCostFunction.of(graph, costFunction);
+            assertEquals(costFunction.name(), precomputed.name());
+            assertEquals(graph.edgeCount(), precomputed.costFactors().capacity());
+            for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId += 1) {
+                for (int i = 0; i < graph.nodeOutDegree(nodeId); i += 1) {
+                    int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                    assertEquals((float) costFunction.costFactor(nodeId, edgeId),
+                            precomputed.costFactor(nodeId, edgeId));
+                }
+            }
+        }
+    }
+
+    @Test
+    void routeComputerWithPrecomputedCostFunctionFindsSameRoute() {
+        var graph = lausanneGraph();
+        var costFunction = new CityBikeCF(graph);
+        var expected = new RouteComputer(graph, costFunction).bestRouteBetween(159049, 117669);
+        var actual = new RouteComputer(graph, PrecomputedCostFunction.of(graph, costFunction))
+                .bestRouteBetween(159049, 117669);
+        assertEquals(expected.length(), actual.length(), 1);
+        assertEquals(expected.edges().size(), actual.edges().size());
+    }
+
+    @Test
+    void precomputedCostFunctionIsKeptInMemoryWhenItCannotBeWritten(@TempDir Path directory) throws IOException {
+        // Nœud 0 : arête 0 (→ 1). Nœud 1 : arête 1 (→ 0). Aucun profil, aucun attribut.
+        var nodes = ByteBuffer.allocate(2 * 12).putInt(8, 1 << 28).putInt(20, (1 << 28) | 1);
+        var edges = ByteBuffer.allocate(2 * 10).putInt(0, 1).putInt(10, 0);
+        BinaryFiles.write(directory.resolve("nodes.bin"), nodes);
+        BinaryFiles.write(directory.resolve("edges.bin"), edges);
+        BinaryFiles.write(directory.resolve("sectors.bin"), ByteBuffer.allocate(128 * 128 * 6));
+        BinaryFiles.write(directory.resolve("profile_ids.bin"), ByteBuffer.allocate(2 * 4));
+        BinaryFiles.write(directory.resolve("elevations.bin"));
+        BinaryFiles.write(directory.resolve("attributes.bin"), ByteBuffer.allocate(8));
+        var graph = Graph.loadFrom(directory);
+        var costFunction = new CityBikeCF(graph);
+
+        // un répertoire du même nom que le fichier de la table empêche son écriture
+        Files.createDirectory(PrecomputedCostFunction.costFactorsPath(directory, costFunction.name()));
+        var precomputed = PrecomputedCostFunction.loadOrCompute(graph, costFunction, directory);
+        for (int edgeId = 0; edgeId < graph.edgeCount(); edgeId += 1)
+            assertEquals((float) costFunction.costFactor(0, edgeId), precomputed.costFactor(0, edgeId));
+    }
+}
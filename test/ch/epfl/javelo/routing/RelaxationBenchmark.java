@@ -0,0 +1,90 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.routing.Benchmarks.Measure;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Mesure le coût, en temps et en mémoire allouée, de la relaxation des arêtes lors de la recherche A*,
+ * en comparant l'heuristique calculée au moyen des accesseurs primitifs du graphe (nodeSquaredDistance)
+ * à l'ancienne, qui construisait deux PointCh par arête relâchée
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class RelaxationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+    private static final int SEARCH_COUNT = 20;
+
+    public static void main(String[] args) throws IOException {
+        Graph graph = Graph.loadFrom(Path.of(args.length > 0 ? args[0] : "ch_west"));
+        CostFunction costFunction = new CityBikeCF(graph).memoized();
+        Random random = new Random(2022);
+        int endNodeId = random.nextInt(graph.nodeCount());
+
+        long relaxations = 0;
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            relaxations += graph.nodeOutDegree(nodeId);
+        }
+        System.out.printf("%d nœuds, %d relaxations par passe%n", graph.nodeCount(), relaxations);
+
+        Measure primitive = Benchmarks.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                () -> relaxPrimitive(graph, costFunction, endNodeId));
+        Measure legacy = Benchmarks.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                () -> relaxLegacy(graph, costFunction, endNodeId));
+        System.out.printf("  accesseurs primitifs : %8.2f ns, %8.3f octets par relaxation%n",
+                primitive.ns() / relaxations, primitive.bytes() / relaxations);
+        System.out.printf("  deux PointCh par arête : %8.2f ns, %8.3f octets par relaxation%n",
+                legacy.ns() / relaxations, legacy.bytes() / relaxations);
+
+        // recherches complètes, dont seules la reconstruction de l'itinéraire et l'espace de travail allouent
+        RouteComputer rc = new RouteComputer(graph, costFunction);
+        SearchWorkspace workspace = new SearchWorkspace(graph.nodeCount());
+        int[][] queries = new int[SEARCH_COUNT][2];
+        for (int[] query : queries) {
+            query[0] = random.nextInt(graph.nodeCount());
+            query[1] = random.nextInt(graph.nodeCount());
+        }
+        Measure search = Benchmarks.measure(WARMUP_ITERATIONS, MEASURED_ITERATIONS, () -> {
+            for (int[] query : queries) {
+                if (query[0] != query[1]) rc.search(workspace, query[0], query[1]);
+            }
+        });
+        System.out.printf("  recherche A* : %8.2f ms, %10.0f octets par recherche%n",
+                search.ns() / SEARCH_COUNT / 1e6, search.bytes() / SEARCH_COUNT);
+    }
+
+    private static volatile float sink;
+
+    private static void relaxPrimitive(Graph graph, CostFunction costFunction, int endNodeId) {
+        float sum = 0;
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int arrivalId = graph.edgeTargetNodeId(edgeId);
+                float d = (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+                float h = (float) Math.sqrt(graph.nodeSquaredDistance(arrivalId, endNodeId));
+                sum += d + h;
+            }
+        }
+        sink = sum;
+    }
+
+    private static void relaxLegacy(Graph graph, CostFunction costFunction, int endNodeId) {
+        float sum = 0;
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int arrivalId = graph.edgeTargetNodeId(edgeId);
+                float d = (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+                float h = (float) graph.nodePoint(arrivalId).distanceTo(graph.nodePoint(endNodeId));
+                sum += d + h;
+            }
+        }
+        sink = sum;
+    }
+}
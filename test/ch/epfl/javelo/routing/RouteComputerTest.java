@@ -8,6 +8,9 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -94,4 +97,44 @@ class RouteComputerTest {
         assertEquals(expected20kE, actualPointAt20kE, 1);
         assertEquals(expected20kN, actualPointAt20kN, 1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void routeComputerBidirectionalSearchFindsSameRoutesAsAStar() {
+        var rc = newLausanneRouteComputer();
+        var bidirectionalRc = rc.withBidirectionalSearch(true);
+        int[][] queries = {{159049, 117669}, {210641, 43713}};
+        for (int[] query : queries) {
+            var expected = rc.bestRouteBetween(query[0], query[1]);
+            var actual = bidirectionalRc.bestRouteBetween(query[0], query[1]);
+            assertNotNull(actual);
+            assertEquals(expected.length(), actual.length(), 1);
+            assertEquals(expected.edges().size(), actual.edges().size());
+            for (int i = 1; i < actual.edges().size(); i += 1) {
+                assertEquals(actual.edges().get(i - 1).toNodeId(), actual.edges().get(i).fromNodeId());
+            }
+        }
+    }
+
+    @Test
+    void routeComputerBidirectionalSearchReturnsNullForUnreachableNodes() {
+        var rc = newLausanneRouteComputer().withBidirectionalSearch(true);
+        assertNull(rc.bestRouteBetween(149195, 153181));
+    }
+
+    @Test
+    void routeComputerWorksFromSeveralThreads() throws Exception {
+        var rc = newLausanneRouteComputer();
+        var expected = rc.bestRouteBetween(159049, 117669).length();
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var lengths = new ArrayList<Future<Double>>();
+            for (int i = 0; i < 8; i += 1) {
+                var computer = i % 2 == 0 ? rc : rc.withBidirectionalSearch(true);
+                lengths.add(executor.submit(() -> computer.bestRouteBetween(159049, 117669).length()));
+            }
+            for (var length : lengths) assertEquals(expected, length.get(), 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
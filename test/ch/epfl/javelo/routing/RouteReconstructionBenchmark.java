@@ -0,0 +1,75 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Mesure le coût de la reconstruction des itinéraires longs (plus de 100 km), en comparant la reconstruction
+ * à partir des arêtes précédentes enregistrées lors de la recherche à l'ancienne reconstruction, qui parcourait
+ * les arêtes sortantes du nœud précédent pour retrouver l'arête empruntée et insérait en tête d'une liste chaînée
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class RouteReconstructionBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1_000;
+    private static final double MIN_LENGTH = 100_000;
+
+    // Genève – Berne et Genève – Neuchâtel
+    private static final PointCh[][] QUERIES = {
+            {new PointCh(2_500_000, 1_118_000), new PointCh(2_600_000, 1_200_000)},
+            {new PointCh(2_500_000, 1_118_000), new PointCh(2_561_000, 1_205_000)},
+    };
+
+    public static void main(String[] args) throws IOException {
+        Graph graph = Graph.loadFrom(Path.of(args.length > 0 ? args[0] : "ch_west"));
+        RouteComputer rc = new RouteComputer(graph, new CityBikeCF(graph));
+
+        for (PointCh[] query : QUERIES) {
+            int startNodeId = graph.nodeClosestTo(query[0], 1000);
+            int endNodeId = graph.nodeClosestTo(query[1], 1000);
+            if (startNodeId == -1 || endNodeId == -1) continue;
+
+            SearchWorkspace workspace = new SearchWorkspace(graph.nodeCount());
+            if (!rc.search(workspace, startNodeId, endNodeId)) continue;
+            SingleRoute route = rc.routeTo(workspace, startNodeId, endNodeId);
+            if (route.length() < MIN_LENGTH) {
+                System.out.printf("%d → %d : itinéraire de %.1f km ignoré%n",
+                        startNodeId, endNodeId, route.length() / 1000);
+                continue;
+            }
+
+            double arrayNs = Benchmarks.time(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                    () -> rc.routeTo(workspace, startNodeId, endNodeId));
+            double rescanNs = Benchmarks.time(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                    () -> rescanRoute(graph, workspace, startNodeId, endNodeId));
+            System.out.printf("%d → %d : %.1f km, %d arêtes%n", startNodeId, endNodeId,
+                    route.length() / 1000, route.edges().size());
+            System.out.printf("  arêtes précédentes, tableau : %10.1f µs%n", arrayNs / 1000);
+            System.out.printf("  parcours des arêtes sortantes, liste chaînée : %10.1f µs%n", rescanNs / 1000);
+        }
+    }
+
+    private static SingleRoute rescanRoute(Graph graph, SearchWorkspace workspace, int startNodeId, int endNodeId) {
+        List<Edge> route = new LinkedList<>();
+        int i = endNodeId;
+        while (i != startNodeId) {
+            int previous = workspace.previous(i);
+            for (int j = 0; j < graph.nodeOutDegree(previous); j++) {
+                int edgeId = graph.nodeOutEdgeId(previous, j);
+                if (graph.edgeTargetNodeId(edgeId) == i) {
+                    route.add(0, Edge.of(graph, edgeId, previous, i));
+                    break;
+                }
+            }
+            i = previous;
+        }
+        return new SingleRoute(route);
+    }
+}
@@ -0,0 +1,86 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.projection.PointCh;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteSpatialIndexTest {
+    private static final double ORIGIN_E = 2_600_000;
+    private static final double ORIGIN_N = 1_200_000;
+
+    private static List<Edge> randomWalkEdges(RandomGenerator rng, int edgesCount) {
+        var edges = new ArrayList<Edge>(edgesCount);
+        var from = new PointCh(ORIGIN_E, ORIGIN_N);
+        for (int i = 0; i < edgesCount; i += 1) {
+            var to = new PointCh(from.e() + rng.nextDouble(-200, 200), from.n() + rng.nextDouble(-200, 200));
+            edges.add(new Edge(i, i + 1, from, to, from.distanceTo(to), x -> Double.NaN));
+            from = to;
+        }
+        return edges;
+    }
+
+    // Version de référence, qui examine toutes les arêtes
+    private static RoutePoint scanClosestTo(List<Edge> edges, PointCh point) {
+        var routePoint = RoutePoint.NONE;
+        var position = 0d;
+        for (var edge : edges) {
+            var p = Math2.clamp(0, edge.positionClosestTo(point), edge.length());
+            routePoint = routePoint.min(edge.pointAt(p), position + p, edge.pointAt(p).distanceTo(point));
+            position += edge.length();
+        }
+        return routePoint;
+    }
+
+    @Test
+    void routeSpatialIndexAgreesWithFullScan() {
+        var rng = newRandom();
+        for (int edgesCount : new int[]{1, 7, 8, 9, 100, 1000}) {
+            var edges = randomWalkEdges(rng, edgesCount);
+            var index = RouteSpatialIndex.of(edges);
+            for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+                var point = new PointCh(
+                        ORIGIN_E + rng.nextDouble(-5_000, 5_000),
+                        ORIGIN_N + rng.nextDouble(-5_000, 5_000));
+                assertEquals(scanClosestTo(edges, point), index.pointClosestTo(point));
+            }
+        }
+    }
+
+    @Test
+    void routeSpatialIndexPrefersFirstEdgeOnTies() {
+        // aller-retour sur le même segment : chaque point est à égale distance des deux arêtes
+        var p1 = new PointCh(ORIGIN_E, ORIGIN_N);
+        var p2 = new PointCh(ORIGIN_E + 1000, ORIGIN_N);
+        var edges = new ArrayList<Edge>();
+        for (int i = 0; i < 20; i += 1) {
+            edges.add(i % 2 == 0
+                    ? new Edge(i, i + 1, p1, p2, 1000, x -> Double.NaN)
+                    : new Edge(i, i + 1, p2, p1, 1000, x -> Double.NaN));
+        }
+        var index = RouteSpatialIndex.of(edges);
+        var routePoint = index.pointClosestTo(new PointCh(ORIGIN_E + 250, ORIGIN_N + 10));
+        assertEquals(250, routePoint.position(), 1e-9);
+        assertEquals(10, routePoint.distanceToReference(), 1e-9);
+    }
+
+    @Test
+    void routeSpatialIndexHandlesZeroLengthEdges() {
+        var p = new PointCh(ORIGIN_E, ORIGIN_N);
+        var q = new PointCh(ORIGIN_E + 100, ORIGIN_N);
+        var edges = List.of(
+                new Edge(0, 1, p, q, 100, x -> Double.NaN),
+                new Edge(1, 1, q, q, 0, x -> Double.NaN));
+        var routePoint = RouteSpatialIndex.of(edges).pointClosestTo(new PointCh(ORIGIN_E + 200, ORIGIN_N));
+        assertEquals(q, routePoint.point());
+        assertEquals(100, routePoint.position());
+        assertEquals(100, routePoint.distanceToReference());
+    }
+}
@@ -0,0 +1,35 @@
+package ch.epfl.javelo.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchWorkspacePoolTest {
+
+    @Test
+    void searchWorkspacePoolReusesReleasedWorkspaces() {
+        var pool = new SearchWorkspacePool(10, 2);
+        var workspace = pool.acquire();
+        pool.release(workspace);
+        assertSame(workspace, pool.acquire());
+        assertNotSame(workspace, pool.acquire());
+    }
+
+    @Test
+    void searchWorkspacePoolKeepsAtMostMaxIdleWorkspaces() {
+        var pool = new SearchWorkspacePool(10, 2);
+        var workspaces = new ArrayList<SearchWorkspace>();
+        for (int i = 0; i < 5; i += 1) workspaces.add(pool.acquire());
+        for (var workspace : workspaces) pool.release(workspace);
+        assertEquals(2, pool.idleCount());
+        pool.acquire();
+        assertEquals(1, pool.idleCount());
+    }
+
+    @Test
+    void searchWorkspacePoolThrowsOnNegativeMaxIdle() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchWorkspacePool(10, -1));
+    }
+}
@@ -0,0 +1,60 @@
+package ch.epfl.javelo.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchWorkspaceTest {
+
+    @Test
+    void searchWorkspacePollsNodesByIncreasingPriority() {
+        var rng = newRandom();
+        var workspace = new SearchWorkspace(RANDOM_ITERATIONS);
+        workspace.reset();
+        float[] priorities = new float[RANDOM_ITERATIONS];
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            priorities[i] = rng.nextFloat(0, 1000);
+            workspace.update(i, priorities[i], priorities[i], i);
+        }
+        Arrays.sort(priorities);
+        for (int i = 0; i < RANDOM_ITERATIONS; i += 1) {
+            assertEquals(priorities[i], workspace.peekPriority());
+            int nodeId = workspace.poll();
+            assertTrue(workspace.isSettled(nodeId));
+        }
+        assertTrue(workspace.isEmpty());
+    }
+
+    @Test
+    void searchWorkspaceDecreasesKeys() {
+        var workspace = new SearchWorkspace(10);
+        workspace.reset();
+        for (int i = 0; i < 10; i += 1) {
+            workspace.update(i, 100 + i, 100 + i, -1);
+        }
+        workspace.update(7, 1, 1, 3, 42);
+        assertEquals(1, workspace.distance(7));
+        assertEquals(3, workspace.previous(7));
+        assertEquals(42, workspace.previousEdge(7));
+        assertEquals(7, workspace.poll());
+        assertEquals(0, workspace.poll());
+    }
+
+    @Test
+    void searchWorkspaceForgetsPreviousSearchOnReset() {
+        var workspace = new SearchWorkspace(10);
+        workspace.reset();
+        workspace.update(4, 12, 12, -1);
+        workspace.poll();
+        assertTrue(workspace.isSettled(4));
+
+        workspace.reset();
+        assertFalse(workspace.isSettled(4));
+        assertEquals(Float.POSITIVE_INFINITY, workspace.distance(4));
+        assertTrue(workspace.isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mesure le coût des accès par position (pointAt, elevationAt et nodeClosestTo) sur des itinéraires simples longs,
+ * en comparant la représentation en colonnes de SingleRoute à l'ancienne, qui reconstruisait le tableau
+ * des positions des nœuds à chaque appel d'elevationAt et de nodeClosestTo
+ *
+ * @author Georges Moussalli (316630)
+ */
+public final class SingleRouteBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+    private static final int QUERIES = 10_000;
+    private static final int[] EDGE_COUNTS = {1_000, 10_000, 50_000};
+
+    // empêche la machine virtuelle d'éliminer les appels mesurés
+    private static double sink;
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(2022);
+        for (int edgeCount : EDGE_COUNTS) {
+            List<Edge> edges = randomEdges(random, edgeCount);
+            SingleRoute route = new SingleRoute(edges);
+            double[] positions = new double[QUERIES];
+            for (int i = 0; i < QUERIES; i++) positions[i] = random.nextDouble() * route.length();
+
+            double[] legacyPositions = legacyPositions(edges);
+            System.out.printf("%d arêtes, %.1f km, %d positions%n", edgeCount, route.length() / 1000, QUERIES);
+            report("pointAt",
+                    () -> { for (double p : positions) sink += route.pointAt(p).e(); },
+                    () -> { for (double p : positions) sink += legacyPointAt(edges, legacyPositions, p).e(); });
+            report("elevationAt",
+                    () -> { for (double p : positions) sink += route.elevationAt(p); },
+                    () -> { for (double p : positions) sink += legacyElevationAt(edges, p); });
+            report("nodeClosestTo",
+                    () -> { for (double p : positions) sink += route.nodeClosestTo(p); },
+                    () -> { for (double p : positions) sink += legacyNodeClosestTo(edges, p); });
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    private static void report(String name, Benchmarks.Task columns, Benchmarks.Task legacy) throws IOException {
+        double columnsNs = Benchmarks.time(WARMUP_ITERATIONS, MEASURED_ITERATIONS, columns);
+        double legacyNs = Benchmarks.time(WARMUP_ITERATIONS, MEASURED_ITERATIONS, legacy);
+        System.out.printf("  %-14s colonnes : %10.1f µs, ancienne représentation : %10.1f µs%n",
+                name, columnsNs / 1000, legacyNs / 1000);
+    }
+
+    private static List<Edge> randomEdges(Random random, int count) {
+        List<Edge> edges = new ArrayList<>(count);
+        PointCh from = new PointCh(2_530_000, 1_150_000);
+        for (int i = 0; i < count; i++) {
+            PointCh to = new PointCh(
+                    Math.min(2_830_000, Math.max(2_485_000, from.e() + random.nextDouble(-60, 60))),
+                    Math.min(1_296_000, Math.max(1_075_000, from.n() + random.nextDouble(-60, 60))));
+            double length = from.distanceTo(to);
+            float[] samples = {random.nextFloat() * 1000, random.nextFloat() * 1000};
+            edges.add(new Edge(i, i + 1, from, to, length, Functions.sampled(samples, length)));
+            from = to;
+        }
+        return edges;
+    }
+
+    private static double[] legacyPositions(List<Edge> edges) {
+        double[] list = new double[edges.size() + 1];
+        for (int i = 1; i <= edges.size(); i++) list[i] = list[i - 1] + edges.get(i - 1).length();
+        return list;
+    }
+
+    private static PointCh legacyPointAt(List<Edge> edges, double[] list, double position) {
+        int index = Arrays.binarySearch(list, position);
+        if (index == -1) return edges.get(0).fromPoint();
+        if (-index - 2 >= edges.size()) return edges.get(edges.size() - 1).toPoint();
+        if (index <= 0) {
+            if (index <= -2) index = -index - 2;
+            return edges.get(index).pointAt(position - list[index]);
+        }
+        return edges.get(index - 1).pointAt(edges.get(index - 1).length());
+    }
+
+    private static double legacyElevationAt(List<Edge> edges, double position) {
+        double[] list = legacyPositions(edges);
+        int index = Arrays.binarySearch(list, position);
+        if (-index - 2 >= edges.size()) return edges.get(edges.size() - 1).elevationAt(list[edges.size() - 3]);
+        if (index == -1) return edges.get(0).elevationAt(0);
+        if (index <= 0) {
+            if (index <= -2) return edges.get(-index - 2).elevationAt(position - list[-index - 2]);
+            return edges.get(0).elevationAt(position);
+        }
+        return edges.get(index - 1).elevationAt(position - list[index - 1]);
+    }
+
+    private static int legacyNodeClosestTo(List<Edge> edges, double position) {
+        double[] list = legacyPositions(edges);
+        int index = Arrays.binarySearch(list, position);
+        if (-index - 2 >= edges.size() || index == edges.size()) return edges.get(edges.size() - 1).toNodeId();
+        if (index == -1 || index == 0) return edges.get(0).fromNodeId();
+        if (index <= -2) {
+            Edge edge = edges.get(-index - 2);
+            return position - list[-index - 2] <= edge.length() * 0.5 ? edge.fromNodeId() : edge.toNodeId();
+        }
+        return edges.get(index - 1).toNodeId();
+    }
+}
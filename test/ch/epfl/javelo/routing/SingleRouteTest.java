@@ -125,6 +125,27 @@ class SingleRouteTest {
         assertEquals(edgesCount * TOOTH_ELEVATION_GAIN, route.elevationAt(+1e6));
     }
 
+    @Test
+    void singleRouteElevationAtBeyondLengthIsElevationAtEnd() {
+        // arêtes de longueurs différentes, dont le profil donne la position le long de l'arête
+        var edges = new ArrayList<Edge>();
+        var lengths = new double[]{10, 200, 35.5};
+        for (int i = 0; i < lengths.length; i += 1) {
+            var p1 = new PointCh(ORIGIN_E, ORIGIN_N + i * 1_000);
+            var p2 = new PointCh(ORIGIN_E, ORIGIN_N + (i + 1) * 1_000);
+            var offset = 1_000 * i;
+            edges.add(new Edge(i, i + 1, p1, p2, lengths[i], x -> offset + x));
+        }
+        for (int edgesCount = 1; edgesCount <= lengths.length; edgesCount += 1) {
+            var route = new SingleRoute(edges.subList(0, edgesCount));
+            var endElevation = 1_000 * (edgesCount - 1) + lengths[edgesCount - 1];
+            assertEquals(endElevation, route.elevationAt(route.length()));
+            assertEquals(endElevation, route.elevationAt(route.length() + 1));
+            assertEquals(endElevation, route.elevationAt(+1e6));
+            assertEquals(0, route.elevationAt(-1));
+        }
+    }
+
     @Test
     void singleRouteNodeClosestToWorks() {
         var edgesCount = 4;